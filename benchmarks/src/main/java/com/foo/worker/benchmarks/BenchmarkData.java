@@ -0,0 +1,65 @@
+package com.foo.worker.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foo.worker.models.CustomerDetails;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
+import com.foo.worker.models.ProductDetails;
+
+/**
+ * BenchmarkData: Sample orders and enrichment responses shared by the benchmarks.
+ * Product lines carry only their productId, like most orders on the "orders"
+ * topic, so enrichment has to fill in name and price.
+ */
+final class BenchmarkData {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkData() {
+    }
+
+    static OrderMessage orderMessage(String orderId, int productCount) {
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            products.add(new Product("product-" + i, null, null));
+        }
+        return new OrderMessage(orderId, "customer-456", products);
+    }
+
+    static byte[] orderMessageJson(String orderId, int productCount) {
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            products.add(new Product("product-" + i, "Product " + i, 10.0 + i));
+        }
+        return toJson(new OrderMessage(orderId, "customer-456", products));
+    }
+
+    static CustomerDetails customer(String customerId) {
+        return new CustomerDetails(customerId, "John Doe", "john.doe@example.com", true);
+    }
+
+    static ProductDetails product(String productId) {
+        return new ProductDetails(productId, "Product " + productId, "Description of " + productId, 99.99);
+    }
+
+    static List<ProductDetails> products(int productCount) {
+        List<ProductDetails> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            products.add(product("product-" + i));
+        }
+        return products;
+    }
+
+    static byte[] toJson(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value).getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.foo.worker.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner: Entry point of benchmarks.jar. Accepts the regular JMH command
+ * line (benchmark regex, -f, -wi, -i, -rf json, ...) and always adds the gc
+ * profiler, so every run reports the allocation rate next to throughput and
+ * latency percentiles.
+ *
+ * Usage:
+ *   mvn -q install -DskipTests            (from the worker directory)
+ *   mvn -q -f benchmarks/pom.xml package
+ *   java -jar benchmarks/target/benchmarks.jar [regex] [JMH options]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.foo.worker.benchmarks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.foo.worker.models.CustomerDetails;
+import com.foo.worker.models.ProductDetails;
+import com.foo.worker.service.RedisCachePolicy;
+
+/**
+ * CacheEntryBenchmark: Encoding and decoding of the Redis cache entries that
+ * EnrichmentServiceImpl reads on every L1 miss, per "worker.cache.redis.format".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheEntryBenchmark {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    @Param({ "JSON", "SMILE" })
+    private RedisCachePolicy.Format format;
+
+    private RedisCachePolicy cachePolicy;
+    private CustomerDetails customer;
+    private byte[] customerEntry;
+    private byte[] productEntry;
+
+    @Setup
+    public void setUp() throws IOException {
+        cachePolicy = new RedisCachePolicy(TTL, TTL, Duration.ofMinutes(1), true, Duration.ofMinutes(10), format);
+        customer = BenchmarkData.customer("customer-456");
+        customerEntry = cachePolicy.encode(customer, TTL);
+        productEntry = cachePolicy.encode(BenchmarkData.product("product-789"), TTL);
+    }
+
+    @Benchmark
+    public byte[] encodeCustomer() throws IOException {
+        return cachePolicy.encode(customer, TTL);
+    }
+
+    @Benchmark
+    public RedisCachePolicy.Entry<CustomerDetails> decodeCustomer() throws IOException {
+        return cachePolicy.decode(customerEntry, CustomerDetails.class);
+    }
+
+    @Benchmark
+    public RedisCachePolicy.Entry<ProductDetails> decodeProduct() throws IOException {
+        return cachePolicy.decode(productEntry, ProductDetails.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.foo.worker.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.foo.worker.models.CustomerDetails;
+import com.foo.worker.models.Order;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.ProductDetails;
+import com.foo.worker.service.OrderProcessorServiceImpl;
+
+/**
+ * CreateEnrichedOrderBenchmark: Merging of the enrichment responses into the
+ * order that is stored in MongoDB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateEnrichedOrderBenchmark {
+
+    @Param({ "1", "10", "50" })
+    private int productCount;
+
+    private final OrderProcessorServiceImpl orderProcessorService = new OrderProcessorServiceImpl(null, null, null, null, Duration.ZERO);
+    private OrderMessage orderMessage;
+    private CustomerDetails customer;
+    private List<ProductDetails> products;
+
+    @Setup
+    public void setUp() {
+        orderMessage = BenchmarkData.orderMessage("order-123", productCount);
+        customer = BenchmarkData.customer("customer-456");
+        products = BenchmarkData.products(productCount);
+    }
+
+    @Benchmark
+    public Order createEnrichedOrder() {
+        return orderProcessorService.createEnrichedOrder(orderMessage, customer, products);
+    }
+}
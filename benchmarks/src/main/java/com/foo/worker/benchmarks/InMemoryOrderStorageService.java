@@ -0,0 +1,42 @@
+package com.foo.worker.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.foo.worker.models.Order;
+import com.foo.worker.service.OrderStorageService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * InMemoryOrderStorageService: Stand-in for the MongoDB order storage that upserts
+ * orders by orderId into a map.
+ */
+class InMemoryOrderStorageService implements OrderStorageService {
+
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Order> saveOrder(Order order) {
+        return Mono.fromSupplier(() -> {
+            order.setId(order.getOrderId());
+            orders.put(order.getOrderId(), order);
+            return order;
+        });
+    }
+
+    @Override
+    public Flux<Order> saveOrders(Flux<Order> orders) {
+        return orders.concatMap(this::saveOrder);
+    }
+
+    @Override
+    public Flux<Order> findRecentOrders(int limit) {
+        return Flux.fromIterable(orders.values()).take(limit);
+    }
+
+    void clear() {
+        orders.clear();
+    }
+}
@@ -0,0 +1,120 @@
+package com.foo.worker.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * InMemoryReactiveRedisTemplate: ReactiveRedisTemplate backed by a map, with the
+ * operations the worker uses on its hot path:
+ * - GET, SET, SET NX, MGET and MSET through opsForValue().
+ * - EXPIRE and PUBLISH.
+ * - The compare-and-delete / compare-and-pexpire lock scripts, and the script
+ *   setting product entries with their TTL.
+ *
+ * TTLs are accepted but not enforced. Any other operation throws
+ * UnsupportedOperationException, so a benchmark never silently measures a no-op.
+ */
+class InMemoryReactiveRedisTemplate<V> extends ReactiveRedisTemplate<String, V> {
+
+    private final Map<String, V> store = new ConcurrentHashMap<>();
+    private final ReactiveValueOperations<String, V> valueOperations = valueOperations();
+
+    @SuppressWarnings("unchecked")
+    InMemoryReactiveRedisTemplate() {
+        super(unsupported(ReactiveRedisConnectionFactory.class),
+                (RedisSerializationContext<String, V>) (RedisSerializationContext<?, ?>) RedisSerializationContext.string());
+    }
+
+    @Override
+    public ReactiveValueOperations<String, V> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    public Mono<Boolean> expire(String key, Duration timeout) {
+        return Mono.fromSupplier(() -> store.containsKey(key));
+    }
+
+    @Override
+    public Mono<Long> convertAndSend(String destination, V message) {
+        return Mono.just(0L);
+    }
+
+    /**
+     * Runs a 'px' script by storing every KEYS[i] with ARGV[i], or a lock script: if
+     * KEYS[1] holds ARGV[1], the key is deleted ('del' scripts) or kept (renewal) and
+     * 1 is returned; otherwise 0.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, List<?> args) {
+        return Flux.defer(() -> {
+            if (script.getScriptAsString().contains("'px'")) {
+                for (int i = 0; i < keys.size(); i++) {
+                    store.put(keys.get(i), (V) args.get(i));
+                }
+                return Flux.just((T) Long.valueOf(keys.size()));
+            }
+            String key = keys.get(0);
+            if (!Objects.equals(store.get(key), args.get(0))) {
+                return Flux.just((T) Long.valueOf(0));
+            }
+            if (script.getScriptAsString().contains("'del'")) {
+                store.remove(key);
+            }
+            return Flux.just((T) Long.valueOf(1));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReactiveValueOperations<String, V> valueOperations() {
+        return (ReactiveValueOperations<String, V>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ReactiveValueOperations.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "get" -> Mono.justOrEmpty(store.get(args[0]));
+                    case "set" -> Mono.fromSupplier(() -> {
+                        store.put((String) args[0], (V) args[1]);
+                        return true;
+                    });
+                    case "setIfAbsent" -> Mono.fromSupplier(() -> store.putIfAbsent((String) args[0], (V) args[1]) == null);
+                    case "multiGet" -> Mono.fromSupplier(() -> multiGet((Collection<String>) args[0]));
+                    case "multiSet" -> Mono.fromSupplier(() -> {
+                        store.putAll((Map<String, V>) args[0]);
+                        return true;
+                    });
+                    case "toString" -> "InMemoryValueOperations";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private List<V> multiGet(Collection<String> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(store.get(key));
+        }
+        return values;
+    }
+
+    private static <T> T unsupported(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+}
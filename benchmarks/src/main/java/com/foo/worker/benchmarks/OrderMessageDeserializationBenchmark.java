@@ -0,0 +1,55 @@
+package com.foo.worker.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foo.worker.consumer.OrderMessageDeserializer;
+import com.foo.worker.models.OrderMessage;
+
+/**
+ * OrderMessageDeserializationBenchmark: Decoding of an "orders" record value with
+ * OrderMessageDeserializer, against ObjectMapper data binding as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMessageDeserializationBenchmark {
+
+    @Param({ "1", "10", "50" })
+    private int productCount;
+
+    private final OrderMessageDeserializer deserializer = new OrderMessageDeserializer();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] record;
+
+    @Setup
+    public void setUp() {
+        record = BenchmarkData.orderMessageJson("order-123", productCount);
+    }
+
+    @Benchmark
+    public OrderMessage streamingDeserializer() {
+        return deserializer.deserialize("orders", record);
+    }
+
+    @Benchmark
+    public OrderMessage objectMapper() throws IOException {
+        return objectMapper.readValue(record, OrderMessage.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.foo.worker.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.Order;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
+import com.foo.worker.service.EnrichmentCache;
+import com.foo.worker.service.EnrichmentServiceImpl;
+import com.foo.worker.service.HedgedRequests;
+import com.foo.worker.service.OrderProcessorServiceImpl;
+import com.foo.worker.service.RedisCachePolicy;
+import com.foo.worker.service.RedisLockServiceImpl;
+import com.foo.worker.service.ResiliencePolicy;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * ProcessOrderBenchmark: The full processOrder pipeline (lock, customer and product
+ * enrichment, order creation, storage, unlock) wired with the production services
+ * against in-memory Redis, an in-memory Go API behind WebClient, and in-memory
+ * order storage.
+ *
+ * Cache tiers ("cacheTier"):
+ * - local: L1 enabled, enrichment is served from EnrichmentCache.
+ * - redis: L1 disabled, every entry is read and decoded from Redis.
+ * - api: L1 disabled and a new customer per order, so the customer always goes
+ *   through WebClient; products still come from Redis.
+ *
+ * Resilience4j annotations are not applied, as there is no Spring proxy. Meters
+ * are recorded to an in-memory registry, so their cost is part of the measurement.
+ * Only warnings are logged (src/main/resources/logback.xml), as in a production
+ * run where per-order lines are disabled or rate-limited.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessOrderBenchmark {
+
+    @Param({ "local", "redis", "api" })
+    private String cacheTier;
+
+    @Param({ "1", "10" })
+    private int productCount;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private InMemoryOrderStorageService orderStorageService;
+    private OrderProcessorServiceImpl orderProcessorService;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryReactiveRedisTemplate<String> redisTemplate = new InMemoryReactiveRedisTemplate<>();
+        InMemoryReactiveRedisTemplate<byte[]> bytesRedisTemplate = new InMemoryReactiveRedisTemplate<>();
+        Duration ttl = Duration.ofHours(1);
+        WorkerMetrics metrics = new WorkerMetrics(new SimpleMeterRegistry());
+        EnrichmentCache enrichmentCache = new EnrichmentCache(redisTemplate, "local".equals(cacheTier), 10_000,
+                Duration.ofMinutes(5), metrics);
+        RedisCachePolicy cachePolicy = new RedisCachePolicy(ttl, ttl, Duration.ofMinutes(1), true,
+                Duration.ofMinutes(10), RedisCachePolicy.Format.SMILE);
+        WebClient goApi = WebClient.builder().baseUrl("http://localhost:8081").exchangeFunction(new StubGoApi()).build();
+        EnrichmentServiceImpl enrichmentService = new EnrichmentServiceImpl(goApi, goApi,
+                new HedgedRequests("customer", true, 0.95, Duration.ofMillis(20), 0.1),
+                new HedgedRequests("product", true, 0.95, Duration.ofMillis(20), 0.1),
+                new ResiliencePolicy("customer", 3, Duration.ofMillis(100), Duration.ofSeconds(1), 0.5,
+                        CircuitBreakerConfig.ofDefaults()),
+                new ResiliencePolicy("product", 3, Duration.ofMillis(100), Duration.ofSeconds(1), 0.5,
+                        CircuitBreakerConfig.ofDefaults()),
+                bytesRedisTemplate, enrichmentCache, Duration.ofMillis(500), 8, cachePolicy, metrics,
+                false, Duration.ZERO, 1); // one order at a time: a batch window would only add its wait
+
+        orderStorageService = new InMemoryOrderStorageService();
+        orderProcessorService = new OrderProcessorServiceImpl(enrichmentService, orderStorageService,
+                new RedisLockServiceImpl(redisTemplate, Duration.ofSeconds(30), metrics), metrics, Duration.ofSeconds(10));
+        products = BenchmarkData.orderMessage("warm-up", productCount).getProducts();
+
+        processOrder(); // fills Redis and the local cache
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearOrders() {
+        orderStorageService.clear();
+    }
+
+    @Benchmark
+    public Order processOrder() {
+        long id = sequence.incrementAndGet();
+        String customerId = "api".equals(cacheTier) ? "customer-" + id : "customer-456";
+        return orderProcessorService.processOrder(new OrderMessage("order-" + id, customerId, products)).block();
+    }
+}
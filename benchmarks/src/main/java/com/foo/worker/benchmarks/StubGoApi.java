@@ -0,0 +1,36 @@
+package com.foo.worker.benchmarks;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * StubGoApi: ExchangeFunction answering the Go customer and product APIs in memory,
+ * so WebClient still encodes the request and decodes the JSON response but no
+ * socket is opened. Every customer is active and every product exists.
+ */
+class StubGoApi implements ExchangeFunction {
+
+    @Override
+    public Mono<ClientResponse> exchange(ClientRequest request) {
+        var query = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams();
+        Object body = switch (request.url().getPath()) {
+            case "/customer" -> BenchmarkData.customer(query.getFirst("customerId"));
+            case "/product" -> BenchmarkData.product(query.getFirst("productId"));
+            default -> null;
+        };
+        if (body == null) {
+            return Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+        }
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(new String(BenchmarkData.toJson(body)))
+                .build());
+    }
+}
@@ -2,9 +2,14 @@ package main
 
 import (
 	"encoding/json"
+	"fmt"
 	"net/http"
+	"strings"
 )
 
+// Máximo de IDs por petición en los endpoints por lotes
+const maxBatchSize = 100
+
 type Product struct {
 	ProductID   string  `json:"productId"`
 	Name        string  `json:"name"`
@@ -19,28 +24,46 @@ type Customer struct {
 	Active     bool   `json:"active"`
 }
 
-func getProduct(w http.ResponseWriter, r *http.Request) {
-	w.Header().Set("Content-Type", "application/json")
-
-	productID := r.URL.Query().Get("productId")
-
-	var product Product
+func findProduct(productID string) Product {
 	if productID == "product-100" {
-		product = Product{
+		return Product{
 			ProductID:   "product-100",
 			Name:        "Iphone",
 			Description: "Un smartphone de última generación",
 			Price:       2000.00,
 		}
-	} else {
-		product = Product{
-			ProductID:   "product-789",
-			Name:        "Laptop",
-			Description: "Una laptop potente",
-			Price:       999.99,
-		}
 	}
-	json.NewEncoder(w).Encode(product)
+	return Product{
+		ProductID:   "product-789",
+		Name:        "Laptop",
+		Description: "Una laptop potente",
+		Price:       999.99,
+	}
+}
+
+func getProduct(w http.ResponseWriter, r *http.Request) {
+	w.Header().Set("Content-Type", "application/json")
+
+	productID := r.URL.Query().Get("productId")
+
+	json.NewEncoder(w).Encode(findProduct(productID))
+}
+
+// getProducts devuelve varios productos en una sola petición: /products?ids=a,b,c
+// La respuesta es un objeto JSON indexado por el ID solicitado
+func getProducts(w http.ResponseWriter, r *http.Request) {
+	ids, ok := batchIDs(w, r)
+	if !ok {
+		return
+	}
+
+	products := make(map[string]Product, len(ids))
+	for _, id := range ids {
+		products[id] = findProduct(id)
+	}
+
+	w.Header().Set("Content-Type", "application/json")
+	json.NewEncoder(w).Encode(products)
 }
 
 func getCustomer(w http.ResponseWriter, r *http.Request) {
@@ -49,32 +72,67 @@ func getCustomer(w http.ResponseWriter, r *http.Request) {
 	// Obtener el parámetro customerId de la query string
 	customerID := r.URL.Query().Get("customerId")
 
-	// Simular diferentes clientes según el customerId recibido
-	var customer Customer
+	// Devolver el cliente como respuesta
+	json.NewEncoder(w).Encode(findCustomer(customerID))
+}
+
+// Simular diferentes clientes según el customerId recibido
+func findCustomer(customerID string) Customer {
 	if customerID == "Freyder-111" {
-		customer = Customer{
+		return Customer{
 			CustomerID: "Freyder-111",
 			Name:       "Freyder Otalvaro",
 			Email:      "freyde.otalvaro@example.com",
 			Active:     false, // Cliente inactivo
 		}
-	} else {
-		// Cliente por defecto
-		customer = Customer{
-			CustomerID: "Violetta-495",
-			Name:       "Violetta Otalvaro",
-			Email:      "violetta.otalvaro@example.com",
-			Active:     true,
-		}
 	}
+	// Cliente por defecto
+	return Customer{
+		CustomerID: "Violetta-495",
+		Name:       "Violetta Otalvaro",
+		Email:      "violetta.otalvaro@example.com",
+		Active:     true,
+	}
+}
 
-	// Devolver el cliente como respuesta
-	json.NewEncoder(w).Encode(customer)
+// getCustomers devuelve varios clientes en una sola petición: /customers?ids=a,b,c
+// La respuesta es un objeto JSON indexado por el ID solicitado
+func getCustomers(w http.ResponseWriter, r *http.Request) {
+	ids, ok := batchIDs(w, r)
+	if !ok {
+		return
+	}
+
+	customers := make(map[string]Customer, len(ids))
+	for _, id := range ids {
+		customers[id] = findCustomer(id)
+	}
+
+	w.Header().Set("Content-Type", "application/json")
+	json.NewEncoder(w).Encode(customers)
+}
+
+// batchIDs lee el parámetro ids (separado por comas) y responde 400 si está vacío
+// o supera maxBatchSize
+func batchIDs(w http.ResponseWriter, r *http.Request) ([]string, bool) {
+	var ids []string
+	for _, id := range strings.Split(r.URL.Query().Get("ids"), ",") {
+		if id != "" {
+			ids = append(ids, id)
+		}
+	}
+	if len(ids) == 0 || len(ids) > maxBatchSize {
+		http.Error(w, fmt.Sprintf("ids must list between 1 and %d IDs", maxBatchSize), http.StatusBadRequest)
+		return nil, false
+	}
+	return ids, true
 }
 
 func main() {
 	http.HandleFunc("/product", getProduct)
 	http.HandleFunc("/customer", getCustomer)
+	http.HandleFunc("/products", getProducts)
+	http.HandleFunc("/customers", getCustomers)
 
 	// Iniciar el servidor en el puerto 8081
 	http.ListenAndServe(":8081", nil)
@@ -0,0 +1,115 @@
+package com.foo.worker.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.KafkaRetryService;
+import com.foo.worker.service.PartitionLockRegistry;
+
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+
+/**
+ * Configuration class that defines the Kafka listener container factories
+ * used by the order consumer in addition to the Spring Boot default one.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Container factory for batch listeners. It inherits every "spring.kafka.*"
+     * setting from Spring Boot and delivers the records of each poll as a list.
+     * Offsets are committed once the listener returns for the whole batch.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Container factory for the retry topics of "worker.retry.backend=kafka". Records
+     * are acknowledged manually, so a record that is not due yet can be nacked and
+     * redelivered once its paused partition resumes.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "worker.retry.backend", havingValue = "kafka")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Creates the retry and dead-letter topics of "worker.retry.backend=kafka"
+     * if they do not exist yet.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "worker.retry.backend", havingValue = "kafka")
+    public KafkaAdmin.NewTopics retryTopics(KafkaRetryService kafkaRetryService) {
+        List<NewTopic> topics = new ArrayList<>();
+        kafkaRetryService.getRetryTopics().forEach(topic -> topics.add(TopicBuilder.name(topic).build()));
+        topics.add(TopicBuilder.name(kafkaRetryService.getDeadLetterTopic()).build());
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+
+    /**
+     * Reactive Kafka receiver used when "worker.kafka.consumer.mode" is "reactive".
+     * It reuses the "spring.kafka.consumer.*" settings, commits acknowledged offsets
+     * periodically and allows out-of-order acknowledgements within a partition
+     * (only contiguous offsets are committed). In "partition" lock mode, partition
+     * assignments are forwarded to the PartitionLockRegistry.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "worker.kafka.consumer.mode", havingValue = "reactive")
+    public KafkaReceiver<String, OrderMessage> orderKafkaReceiver(KafkaProperties kafkaProperties,
+            @Value("${worker.kafka.reactive.commit-interval:1s}") Duration commitInterval,
+            @Value("${worker.kafka.reactive.max-deferred-commits:1000}") int maxDeferredCommits,
+            ObjectProvider<PartitionLockRegistry> partitionLockRegistry) {
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties(null);
+        ReceiverOptions<String, OrderMessage> options = ReceiverOptions.<String, OrderMessage>create(consumerProperties)
+                .commitInterval(commitInterval)
+                .maxDeferredCommits(maxDeferredCommits)
+                .subscription(List.of("orders"));
+        PartitionLockRegistry registry = partitionLockRegistry.getIfAvailable();
+        if (registry != null) {
+            options = options
+                    .addAssignListener(partitions -> registry.assign(topicPartitions(partitions)))
+                    .addRevokeListener(partitions -> registry.revoke(topicPartitions(partitions)));
+        }
+        return KafkaReceiver.create(options);
+    }
+
+    private static List<TopicPartition> topicPartitions(Collection<ReceiverPartition> partitions) {
+        return partitions.stream().map(ReceiverPartition::topicPartition).toList();
+    }
+
+}
@@ -1,26 +1,51 @@
 package com.foo.worker.config;
 
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
 
 import com.foo.worker.models.Order;
+import com.mongodb.MongoException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Configuration class responsible for creating MongoDB indexes
  * on the "orders" collection when the application is ready.
  * 
  * This improves query performance on frequently accessed fields
- * such as "orderId" and "customerId".
+ * such as "orderId" and "customerId". The "orderId" index is unique, which
+ * makes order storage idempotent (see OrderStorageServiceImpl).
+ *
+ * The former non-unique "orderId_1" index is only replaced when MongoDB reports
+ * that it conflicts with the unique one (codes 85/86), and only if no orderId is
+ * stored twice: otherwise the unique build would fail after the drop and leave
+ * the collection without any orderId index. Duplicates are logged and the old
+ * index is kept until they are cleaned up.
  */
 @Configuration
 public class MongoIndexConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private static final String ORDER_ID_INDEX = "orderId_1";
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+    private static final int DUPLICATES_LOGGED = 10;
+
     @Autowired
     private ReactiveMongoTemplate reactiveMongoTemplate;
 
@@ -28,19 +53,68 @@ public class MongoIndexConfig {
     public void createIndexes() {
         ReactiveIndexOperations indexOps = reactiveMongoTemplate.indexOps(Order.class);
 
-        // Create an index on the "orderId" field of the "orders" collection
-        indexOps.ensureIndex(new Index().on("orderId", Sort.Direction.ASC))
-                .doOnSuccess(success -> System.out.println("Index created for orderId."))
-                .doOnError(error -> System.err.println("Error creating index for orderId: " + error.getMessage()))
+        // Create a unique index on the "orderId" field of the "orders" collection.
+        createOrderIdIndex(indexOps)
+                .doOnSuccess(success -> log.info("Unique index created for orderId."))
+                .doOnError(error -> log.error("Error creating unique index for orderId: {}", error.getMessage()))
                 .subscribe();
 
         // Create an index on the "customerId" field of the "orders" collection
         indexOps.ensureIndex(new Index().on("customerId", Sort.Direction.ASC))
-                .doOnSuccess(success -> System.out.println("Index created for customerId."))
-                .doOnError(error -> System.err.println("Error creating index for customerId: " + error.getMessage()))
+                .doOnSuccess(success -> log.info("Index created for customerId."))
+                .doOnError(error -> log.error("Error creating index for customerId: {}", error.getMessage()))
                 .subscribe();
 
-        System.out.println("Indexes created in MongoDB.");
+        log.info("Indexes created in MongoDB.");
+    }
+
+    /**
+     * Ensures the unique "orderId" index. If the former non-unique index of the same
+     * name is in the way, it is replaced, unless duplicate orderIds are stored.
+     *
+     * @return Mono<String> with the index name, or an error (e.g. Mongo unreachable, duplicates).
+     */
+    Mono<String> createOrderIdIndex(ReactiveIndexOperations indexOps) {
+        Index orderIdIndex = new Index().on("orderId", Sort.Direction.ASC).unique();
+        return indexOps.ensureIndex(orderIdIndex)
+                .onErrorResume(MongoIndexConfig::isIndexConflict, conflict -> findDuplicateOrderIds()
+                        .collectList()
+                        .flatMap(duplicates -> duplicates.isEmpty()
+                                ? indexOps.dropIndex(ORDER_ID_INDEX).then(indexOps.ensureIndex(orderIdIndex))
+                                : Mono.error(duplicatesFound(duplicates))));
+    }
+
+    /**
+     * Returns up to DUPLICATES_LOGGED orderIds stored more than once.
+     */
+    Flux<String> findDuplicateOrderIds() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.group("orderId").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)),
+                Aggregation.limit(DUPLICATES_LOGGED));
+        return reactiveMongoTemplate.aggregate(duplicates, reactiveMongoTemplate.getCollectionName(Order.class),
+                        Document.class)
+                .map(document -> String.valueOf(document.get("_id")));
+    }
+
+    private static IllegalStateException duplicatesFound(List<String> duplicates) {
+        return new IllegalStateException("Duplicate orderIds are stored " + duplicates
+                + ", keeping the non-unique index " + ORDER_ID_INDEX + " until they are removed");
+    }
+
+    /**
+     * Returns whether the error, or one of its causes, is MongoDB reporting an existing
+     * index with the same name or keys and different options.
+     */
+    static boolean isIndexConflict(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && (mongoException.getCode() == INDEX_OPTIONS_CONFLICT
+                        || mongoException.getCode() == INDEX_KEY_SPECS_CONFLICT)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 /**
  * Configuration class that sets up a reactive RedisTemplate 
@@ -22,4 +23,17 @@ public class RedisConfig {
         return new ReactiveRedisTemplate<>(factory, RedisSerializationContext.string());
     }
 
+    /**
+     * Defines a reactive RedisTemplate with String keys and raw byte[] values.
+     * This is used for the enrichment cache entries, which may be binary-encoded.
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveBytesRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        RedisSerializationContext<String, byte[]> serializationContext = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        return new ReactiveRedisTemplate<>(factory, serializationContext);
+    }
+
 }
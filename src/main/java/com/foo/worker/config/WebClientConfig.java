@@ -0,0 +1,287 @@
+package com.foo.worker.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.service.AdaptiveConcurrencyLimiter;
+import com.foo.worker.service.HedgedRequests;
+import com.foo.worker.service.ResiliencePolicy;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Configuration class that defines the HTTP clients of the Go customer and product
+ * APIs ("worker.enrichment.*").
+ *
+ * Both clients share one Reactor Netty connection pool, sized per remote host
+ * ("worker.enrichment.http.*"): a slow API can hold at most max-connections
+ * connections, a bounded number of requests wait for one, and waiting longer than
+ * pending-acquire-timeout fails the call instead of stalling the pipeline. Idle and
+ * old connections are evicted in the background. Pool gauges are published as
+ * "reactor.netty.connection.provider.*".
+ *
+ * Each API has its own base URL and response timeout. With protocol H2C, requests
+ * are multiplexed over HTTP/2 cleartext connections, as many per connection as the
+ * server allows (prior knowledge: the Go API must serve h2c).
+ *
+ * Each API also has an AdaptiveConcurrencyLimiter ("worker.enrichment.limiter.*"):
+ * calls over the adaptive limit wait up to max-wait for a slot, and
+ * KafkaConsumptionThrottle pauses Kafka consumption while a limit is saturated, so
+ * the worker takes in only the orders the APIs can serve.
+ *
+ * Calls slower than a latency percentile of their API are hedged with a second
+ * request ("worker.enrichment.hedge.*", see HedgedRequests and EnrichmentServiceImpl),
+ * and retried and circuit-broken per API ("worker.enrichment.retry.*" and
+ * "worker.enrichment.circuit-breaker.*", see ResiliencePolicy).
+ */
+@Configuration
+public class WebClientConfig {
+
+    private final boolean limiterEnabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int alpha;
+    private final int beta;
+    private final double backoffRatio;
+    private final Duration maxWait;
+
+    /**
+     * WebClientConfig constructor, with the settings of the concurrency limiters.
+     * @param limiterEnabled Whether the Go API calls go through the limiters.
+     * @param initialLimit Limit before any call.
+     * @param minLimit Lowest limit.
+     * @param maxLimit Highest limit, at most the connections of the pool.
+     * @param alpha Estimated calls queued in the API below which the limit grows.
+     * @param beta Estimated calls queued in the API above which the limit shrinks.
+     * @param backoffRatio Factor applied to the limit when a call fails.
+     * @param maxWait Longest wait of a call over the limit before it is rejected.
+     */
+    public WebClientConfig(@Value("${worker.enrichment.limiter.enabled:true}") boolean limiterEnabled,
+                           @Value("${worker.enrichment.limiter.initial-limit:20}") int initialLimit,
+                           @Value("${worker.enrichment.limiter.min-limit:4}") int minLimit,
+                           @Value("${worker.enrichment.limiter.max-limit:200}") int maxLimit,
+                           @Value("${worker.enrichment.limiter.alpha:3}") int alpha,
+                           @Value("${worker.enrichment.limiter.beta:6}") int beta,
+                           @Value("${worker.enrichment.limiter.backoff-ratio:0.9}") double backoffRatio,
+                           @Value("${worker.enrichment.limiter.max-wait:500ms}") Duration maxWait) {
+        this.limiterEnabled = limiterEnabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.backoffRatio = backoffRatio;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Connection pool shared by the enrichment clients.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider enrichmentConnectionProvider(
+            @Value("${worker.enrichment.http.max-connections:200}") int maxConnections,
+            @Value("${worker.enrichment.http.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${worker.enrichment.http.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${worker.enrichment.http.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${worker.enrichment.http.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${worker.enrichment.http.evict-interval:30s}") Duration evictInterval) {
+        return ConnectionProvider.builder("enrichment")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Reactor Netty client of the enrichment APIs, with the connect timeout, response
+     * compression and protocol of "worker.enrichment.http.*".
+     */
+    @Bean
+    public HttpClient enrichmentHttpClient(ConnectionProvider enrichmentConnectionProvider,
+            @Value("${worker.enrichment.http.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${worker.enrichment.http.compression:true}") boolean compression,
+            @Value("${worker.enrichment.http.protocol:HTTP11}") HttpProtocol protocol) {
+        return HttpClient.create(enrichmentConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+                .compress(compression)
+                .protocol(protocol);
+    }
+
+    /**
+     * Concurrency limiter of the Go customer API.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter customerLimiter(WorkerMetrics metrics) {
+        return limiter("customer", metrics);
+    }
+
+    /**
+     * Concurrency limiter of the Go product API.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter productLimiter(WorkerMetrics metrics) {
+        return limiter("product", metrics);
+    }
+
+    /**
+     * Hedged requests of the Go customer API.
+     */
+    @Bean
+    public HedgedRequests customerHedging(WorkerMetrics metrics,
+            @Value("${worker.enrichment.hedge.enabled:true}") boolean enabled,
+            @Value("${worker.enrichment.hedge.percentile:0.95}") double percentile,
+            @Value("${worker.enrichment.hedge.min-delay:20ms}") Duration minDelay,
+            @Value("${worker.enrichment.hedge.max-ratio:0.1}") double maxHedgeRatio) {
+        return hedging("customer", metrics, enabled, percentile, minDelay, maxHedgeRatio);
+    }
+
+    /**
+     * Hedged requests of the Go product API.
+     */
+    @Bean
+    public HedgedRequests productHedging(WorkerMetrics metrics,
+            @Value("${worker.enrichment.hedge.enabled:true}") boolean enabled,
+            @Value("${worker.enrichment.hedge.percentile:0.95}") double percentile,
+            @Value("${worker.enrichment.hedge.min-delay:20ms}") Duration minDelay,
+            @Value("${worker.enrichment.hedge.max-ratio:0.1}") double maxHedgeRatio) {
+        return hedging("product", metrics, enabled, percentile, minDelay, maxHedgeRatio);
+    }
+
+    /**
+     * Circuit breaker settings shared by the Go APIs (each API has its own circuit).
+     */
+    @Bean
+    public CircuitBreakerConfig enrichmentCircuitBreakerConfig(
+            @Value("${worker.enrichment.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${worker.enrichment.circuit-breaker.sliding-window-size:100}") int slidingWindowSize,
+            @Value("${worker.enrichment.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${worker.enrichment.circuit-breaker.wait-in-open-state:10s}") Duration waitInOpenState,
+            @Value("${worker.enrichment.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindow(slidingWindowSize, minimumCalls, SlidingWindowType.COUNT_BASED)
+                .waitDurationInOpenState(waitInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .build();
+    }
+
+    /**
+     * Retry and circuit breaker of the Go customer API.
+     */
+    @Bean
+    public ResiliencePolicy customerResilience(WorkerMetrics metrics, CircuitBreakerConfig enrichmentCircuitBreakerConfig,
+            @Value("${worker.enrichment.retry.max-attempts:3}") int maxAttempts,
+            @Value("${worker.enrichment.retry.initial-backoff:100ms}") Duration initialBackoff,
+            @Value("${worker.enrichment.retry.max-backoff:1s}") Duration maxBackoff,
+            @Value("${worker.enrichment.retry.jitter:0.5}") double jitter) {
+        return resilience("customer", metrics, maxAttempts, initialBackoff, maxBackoff, jitter,
+                enrichmentCircuitBreakerConfig);
+    }
+
+    /**
+     * Retry and circuit breaker of the Go product API.
+     */
+    @Bean
+    public ResiliencePolicy productResilience(WorkerMetrics metrics, CircuitBreakerConfig enrichmentCircuitBreakerConfig,
+            @Value("${worker.enrichment.retry.max-attempts:3}") int maxAttempts,
+            @Value("${worker.enrichment.retry.initial-backoff:100ms}") Duration initialBackoff,
+            @Value("${worker.enrichment.retry.max-backoff:1s}") Duration maxBackoff,
+            @Value("${worker.enrichment.retry.jitter:0.5}") double jitter) {
+        return resilience("product", metrics, maxAttempts, initialBackoff, maxBackoff, jitter,
+                enrichmentCircuitBreakerConfig);
+    }
+
+    /**
+     * WebClient of the Go customer API.
+     */
+    @Bean
+    public WebClient customerWebClient(WebClient.Builder webClientBuilder, HttpClient enrichmentHttpClient,
+            @Qualifier("customerLimiter") AdaptiveConcurrencyLimiter limiter,
+            @Value("${worker.enrichment.customer.base-url:${worker.enrichment.base-url:http://localhost:8081}}") String baseUrl,
+            @Value("${worker.enrichment.customer.response-timeout:2s}") Duration responseTimeout) {
+        return enrichmentWebClient(limited(webClientBuilder, limiter), enrichmentHttpClient, baseUrl, responseTimeout);
+    }
+
+    /**
+     * WebClient of the Go product API.
+     */
+    @Bean
+    public WebClient productWebClient(WebClient.Builder webClientBuilder, HttpClient enrichmentHttpClient,
+            @Qualifier("productLimiter") AdaptiveConcurrencyLimiter limiter,
+            @Value("${worker.enrichment.product.base-url:${worker.enrichment.base-url:http://localhost:8081}}") String baseUrl,
+            @Value("${worker.enrichment.product.response-timeout:2s}") Duration responseTimeout) {
+        return enrichmentWebClient(limited(webClientBuilder, limiter), enrichmentHttpClient, baseUrl, responseTimeout);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(String name, WorkerMetrics metrics) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(name, initialLimit, minLimit, maxLimit,
+                alpha, beta, backoffRatio, maxWait);
+        metrics.registerLimiter(limiter);
+        return limiter;
+    }
+
+    private static HedgedRequests hedging(String name, WorkerMetrics metrics, boolean enabled, double percentile,
+                                          Duration minDelay, double maxHedgeRatio) {
+        HedgedRequests hedging = new HedgedRequests(name, enabled, percentile, minDelay, maxHedgeRatio);
+        metrics.registerHedging(hedging);
+        return hedging;
+    }
+
+    private static ResiliencePolicy resilience(String name, WorkerMetrics metrics, int maxAttempts,
+                                               Duration initialBackoff, Duration maxBackoff, double jitter,
+                                               CircuitBreakerConfig circuitBreakerConfig) {
+        ResiliencePolicy policy = new ResiliencePolicy(name, maxAttempts, initialBackoff, maxBackoff, jitter,
+                circuitBreakerConfig);
+        metrics.registerResilience(policy);
+        return policy;
+    }
+
+    private WebClient.Builder limited(WebClient.Builder webClientBuilder, AdaptiveConcurrencyLimiter limiter) {
+        return limiterEnabled ? webClientBuilder.filter(limiterFilter(limiter)) : webClientBuilder;
+    }
+
+    /**
+     * Filter running each exchange within the limiter. 5xx and 429 responses count
+     * as an overloaded API, like timeouts and connection errors.
+     */
+    static ExchangeFilterFunction limiterFilter(AdaptiveConcurrencyLimiter limiter) {
+        return (request, next) -> limiter.limit(next.exchange(request), WebClientConfig::overloaded);
+    }
+
+    private static boolean overloaded(ClientResponse response) {
+        return response.statusCode().is5xxServerError()
+                || response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    /**
+     * Builds a WebClient on the shared pool. The builder is Spring Boot's, so the
+     * client keeps its codecs and observations (metrics and trace propagation).
+     */
+    static WebClient enrichmentWebClient(WebClient.Builder webClientBuilder, HttpClient httpClient, String baseUrl,
+                                         Duration responseTimeout) {
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient.responseTimeout(responseTimeout)))
+                .baseUrl(baseUrl)
+                .build();
+    }
+}
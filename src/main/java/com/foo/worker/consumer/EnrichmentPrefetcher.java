@@ -0,0 +1,87 @@
+package com.foo.worker.consumer;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
+import com.foo.worker.service.EnrichmentService;
+
+/**
+ * EnrichmentPrefetcher: Starts the enrichment of orders that have been fetched from
+ * Kafka but wait for their turn, so their customers and products are loaded while
+ * they queue rather than after.
+ *
+ * KafkaOrderConsumer hands it the records of a poll beyond the ones it processes
+ * right away (batch mode). Their distinct customer and product IDs are preloaded in
+ * the background (see EnrichmentService#preload); an order that reaches an ID still
+ * being preloaded joins that load. At most "worker.enrichment.prefetch.max-in-flight"
+ * preloads run at a time, further lookaheads are skipped: prefetching is only worth
+ * it while the APIs have room.
+ */
+@Service
+public class EnrichmentPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentPrefetcher.class);
+
+    private final EnrichmentService enrichmentService;
+    private final WorkerMetrics metrics;
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * EnrichmentPrefetcher constructor.
+     * @param enrichmentService Service preloading the customers and products.
+     * @param metrics Counts the prefetched IDs.
+     * @param enabled Whether fetched records are prefetched.
+     * @param maxInFlight Highest number of preloads running at a time.
+     */
+    public EnrichmentPrefetcher(EnrichmentService enrichmentService, WorkerMetrics metrics,
+                                @Value("${worker.enrichment.prefetch.enabled:true}") boolean enabled,
+                                @Value("${worker.enrichment.prefetch.max-in-flight:2}") int maxInFlight) {
+        this.enrichmentService = enrichmentService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Preloads the customers and products of the orders in the background, unless
+     * prefetching is disabled or enough preloads are already running.
+     *
+     * @param orders Orders fetched but not processed yet.
+     */
+    public void prefetch(List<OrderMessage> orders) {
+        if (!enabled || orders.isEmpty()) {
+            return;
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return;
+        }
+        Set<String> customerIds = new LinkedHashSet<>();
+        Set<String> productIds = new LinkedHashSet<>();
+        for (OrderMessage order : orders) {
+            if (order.getCustomerId() != null) {
+                customerIds.add(order.getCustomerId());
+            }
+            if (order.getProducts() != null) {
+                order.getProducts().stream().map(Product::getProductId).filter(Objects::nonNull).forEach(productIds::add);
+            }
+        }
+        metrics.countPreload("lookahead", customerIds.size() + productIds.size());
+        enrichmentService.preload(customerIds, productIds)
+                .doFinally(signalType -> inFlight.decrementAndGet())
+                .subscribe(null, error -> log.debug("Prefetch failed: {}", error.getMessage()));
+    }
+}
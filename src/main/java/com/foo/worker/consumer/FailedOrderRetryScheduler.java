@@ -0,0 +1,188 @@
+package com.foo.worker.consumer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.OrderProcessorService;
+import com.foo.worker.service.PartitionAffinityRouter;
+import com.foo.worker.service.RedisFailureService;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * FailedOrderRetryScheduler: Drains the Redis retry queue of failed orders.
+ *
+ * Every "worker.retry.poll-interval" it claims up to "worker.retry.batch-size" due
+ * orders from RedisFailureService and sends them back through
+ * {@link OrderProcessorService#processOrder}, at most "worker.retry.concurrency" at
+ * a time. A batch that comes back full is followed immediately by the next one, so
+ * a large backlog is drained as fast as processing allows. Processed orders are
+ * removed from the queue; failed ones are recorded again, which reschedules them
+ * with a longer backoff or moves them to the dead-letter stream. An order locked by
+ * another consumer is rescheduled without using up an attempt, and a message that
+ * cannot be parsed is dead-lettered right away.
+ *
+ * In "partition" lock mode a due order is not processed here but routed to its
+ * partition with its attempt count (see PartitionAffinityRouter), and removed from
+ * the queue; a new failure there records it again.
+ */
+@Service
+@ConditionalOnProperty(name = "worker.retry.backend", havingValue = "redis", matchIfMissing = true)
+public class FailedOrderRetryScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FailedOrderRetryScheduler.class);
+
+    private final OrderProcessorService orderProcessorService;
+    private final RedisFailureService redisFailureService;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final int concurrency;
+    private final WorkerMetrics metrics;
+    private final PartitionAffinityRouter router;
+
+    private Disposable subscription;
+
+    /**
+     * FailedOrderRetryScheduler constructor.
+     * @param orderProcessorService Service responsible for processing and saving orders.
+     * @param redisFailureService Service holding the retry queue.
+     * @param pollInterval Delay between two polls of an empty or partially due queue.
+     * @param batchSize Maximum number of orders claimed per poll.
+     * @param concurrency Maximum number of retried orders in flight.
+     * @param metrics Meters counting failed orders.
+     * @param router Router of orders to their partition ("partition" lock mode only).
+     */
+    @Autowired
+    public FailedOrderRetryScheduler(OrderProcessorService orderProcessorService,
+                                     RedisFailureService redisFailureService,
+                                     @Value("${worker.retry.poll-interval:1s}") Duration pollInterval,
+                                     @Value("${worker.retry.batch-size:100}") int batchSize,
+                                     @Value("${worker.retry.concurrency:8}") int concurrency,
+                                     WorkerMetrics metrics,
+                                     ObjectProvider<PartitionAffinityRouter> router) {
+        this(orderProcessorService, redisFailureService, pollInterval, batchSize, concurrency, metrics,
+                router.getIfAvailable());
+    }
+
+    FailedOrderRetryScheduler(OrderProcessorService orderProcessorService, RedisFailureService redisFailureService,
+                              Duration pollInterval, int batchSize, int concurrency, WorkerMetrics metrics,
+                              PartitionAffinityRouter router) {
+        this.orderProcessorService = orderProcessorService;
+        this.redisFailureService = redisFailureService;
+        this.pollInterval = pollInterval;
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.metrics = metrics;
+        this.router = router;
+    }
+
+    /**
+     * Starts polling the retry queue once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> drain(), 1)
+                .subscribe();
+        log.info("Failed order retry scheduler started.");
+    }
+
+    /**
+     * Claims and processes due orders batch after batch until a batch is not full.
+     *
+     * @return Mono<Long> with the number of orders handled.
+     */
+    Mono<Long> drain() {
+        return processDueBatch()
+                .expand(handled -> handled >= batchSize ? processDueBatch() : Mono.empty())
+                .reduce(0L, Long::sum)
+                .onErrorResume(error -> {
+                    log.error("Error draining the retry queue: {}", error.getMessage());
+                    return Mono.just(0L);
+                });
+    }
+
+    private Mono<Long> processDueBatch() {
+        return redisFailureService.claimDueRetries(batchSize)
+                .flatMap(orderId -> retryOrder(orderId).thenReturn(orderId), concurrency)
+                .count();
+    }
+
+    private Mono<Void> retryOrder(String orderId) {
+        return redisFailureService.getFailedMessage(orderId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(message -> {
+                    if (message.isEmpty()) {
+                        return redisFailureService.completeRetry(orderId); // nothing left to retry
+                    }
+                    OrderMessage orderMessage = parseMessage(message.get());
+                    if (orderMessage == null) {
+                        return redisFailureService.deadLetter(orderId, message.get(), "Malformed message");
+                    }
+                    if (router != null) {
+                        return routeToPartition(orderId, message.get());
+                    }
+                    return Mono.defer(() -> orderProcessorService.processOrder(orderMessage))
+                            .doOnEach(OrderLogContext.onNext(savedOrder -> log.info(OrderLogContext.ORDER,
+                                    "Retried order stored in MongoDB with ID: {}", savedOrder.getId())))
+                            .then(Mono.defer(() -> redisFailureService.completeRetry(orderId)))
+                            .doOnEach(OrderLogContext.onError(error -> log.warn(OrderLogContext.ORDER,
+                                    "Retry of order {} failed: {}", orderId, error.getMessage())))
+                            .onErrorResume(error -> {
+                                metrics.countFailedOrder(error);
+                                if (error instanceof OrderProcessorService.OrderLockedException) {
+                                    return redisFailureService.reschedule(orderId, message.get(), 0);
+                                }
+                                return redisFailureService.recordFailure(orderId, message.get(), 0, error.getMessage());
+                            });
+                })
+                .doOnEach(OrderLogContext.onError(error -> log.error(OrderLogContext.ORDER,
+                        "Error retrying order {}: {}", orderId, error.getMessage())))
+                .onErrorResume(error -> Mono.empty())
+                .contextWrite(context -> OrderLogContext.withOrderId(context, orderId));
+    }
+
+    /**
+     * Routes the order to its partition with its attempt count, then removes it from the queue.
+     */
+    private Mono<Void> routeToPartition(String orderId, String message) {
+        return redisFailureService.getAttemptCount(orderId)
+                .defaultIfEmpty(0)
+                .flatMap(attempts -> router.route(orderId, message, attempts))
+                .then(Mono.defer(() -> redisFailureService.completeRetry(orderId)));
+    }
+
+    private OrderMessage parseMessage(String message) {
+        try {
+            return OrderMessageDeserializer.parse(message.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
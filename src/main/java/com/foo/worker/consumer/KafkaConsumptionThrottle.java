@@ -0,0 +1,128 @@
+package com.foo.worker.consumer;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.service.AdaptiveConcurrencyLimiter;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+/**
+ * KafkaConsumptionThrottle: Pauses Kafka consumption while the Go APIs are saturated.
+ *
+ * Every "worker.enrichment.limiter.check-interval" it checks the concurrency limiter
+ * of each Go API (see AdaptiveConcurrencyLimiter). When one of them is saturated,
+ * every running listener container is paused: once the records of the current poll
+ * are dispatched, the consumers keep polling, so the group stays stable, but no new
+ * orders are taken in. The containers are resumed
+ * once every limiter is below "worker.enrichment.limiter.resume-utilization" of its
+ * limit. Orders in flight carry on, and new ones wait in Kafka rather than in
+ * memory, so consumption follows what the APIs can serve.
+ *
+ * The reactive consumer (worker.kafka.consumer.mode=reactive) is not paused here: its
+ * bounded pipeline stops requesting records, and reactor-kafka pauses the consumer.
+ */
+@Service
+public class KafkaConsumptionThrottle implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumptionThrottle.class);
+
+    private final List<AdaptiveConcurrencyLimiter> limiters;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final Duration checkInterval;
+    private final double resumeUtilization;
+    private final Set<String> pausedContainers = new HashSet<>();
+
+    private Disposable subscription;
+
+    /**
+     * KafkaConsumptionThrottle constructor.
+     * @param limiters Concurrency limiters of the Go APIs.
+     * @param listenerRegistry Registry of the Kafka listener containers.
+     * @param checkInterval Delay between two checks of the limiters.
+     * @param resumeUtilization Share of every limit in flight below which consumption resumes.
+     */
+    public KafkaConsumptionThrottle(List<AdaptiveConcurrencyLimiter> limiters,
+                                    KafkaListenerEndpointRegistry listenerRegistry,
+                                    @Value("${worker.enrichment.limiter.check-interval:50ms}") Duration checkInterval,
+                                    @Value("${worker.enrichment.limiter.resume-utilization:0.8}") double resumeUtilization) {
+        this.limiters = limiters;
+        this.listenerRegistry = listenerRegistry;
+        this.checkInterval = checkInterval;
+        this.resumeUtilization = resumeUtilization;
+    }
+
+    /**
+     * Starts checking the limiters once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.interval(checkInterval)
+                .onBackpressureDrop()
+                .subscribe(tick -> check(), error -> log.error("Kafka consumption throttle stopped: {}",
+                        error.getMessage()));
+    }
+
+    /**
+     * Pauses the running listener containers if a limiter is saturated, or resumes
+     * the containers it paused once every limiter has room again.
+     */
+    synchronized void check() {
+        if (pausedContainers.isEmpty()) {
+            limiters.stream().filter(AdaptiveConcurrencyLimiter::isSaturated).findFirst().ifPresent(this::pause);
+        } else if (limiters.stream().allMatch(limiter -> limiter.getUtilization() < resumeUtilization)) {
+            resume();
+        }
+    }
+
+    private void pause(AdaptiveConcurrencyLimiter saturated) {
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container.isRunning() && !container.isPauseRequested()) {
+                container.pause();
+                pausedContainers.add(container.getListenerId());
+            }
+        }
+        if (!pausedContainers.isEmpty()) {
+            log.info("Kafka consumption paused: {} API saturated ({} calls in flight)", saturated.getName(),
+                    saturated.getInFlight());
+        }
+    }
+
+    private void resume() {
+        for (String listenerId : pausedContainers) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container != null) {
+                container.resume();
+            }
+        }
+        pausedContainers.clear();
+        log.info("Kafka consumption resumed");
+    }
+
+    /**
+     * Returns whether the throttle currently holds consumption paused.
+     */
+    synchronized boolean isPaused() {
+        return !pausedContainers.isEmpty();
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
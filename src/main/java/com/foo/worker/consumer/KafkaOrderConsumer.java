@@ -1,64 +1,269 @@
 package com.foo.worker.consumer;
 
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
 import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.FailedOrderHandler;
+import com.foo.worker.service.KafkaRetryService;
 import com.foo.worker.service.OrderProcessorService;
-import com.foo.worker.service.RedisFailureService;
+import com.foo.worker.service.PartitionAffinityLockService;
+import com.foo.worker.service.PartitionAffinityRouter;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 /**
- * KafkaOrderConsumer: This class is responsible for consuming order messages 
- * from a Kafka topic. It processes the received messages, enriches them with additional 
- * customer and product data using external Go APIs, and stores the processed orders 
- * in MongoDB. If processing fails, it handles retries and stores failed messages 
- * in Redis for future attempts.
+ * KafkaOrderConsumer: This class is responsible for consuming order messages
+ * from a Kafka topic. It processes the received messages, enriches them with additional
+ * customer and product data using external Go APIs, and stores the processed orders
+ * in MongoDB. If processing fails, the message is handed to the FailedOrderHandler
+ * of "worker.retry.backend" (a Redis retry queue or Kafka retry topics).
+ *
+ * Consumption modes (property "worker.kafka.consumer.mode"):
+ * - record (default): one message per listener call, processed fire-and-forget.
+ * - batch: one poll per listener call, processed through a single bounded pipeline.
+ *   The enrichment of the records waiting in it is prefetched (EnrichmentPrefetcher).
+ * - reactive: both listeners stay stopped and {@link ReactiveKafkaOrderConsumer}
+ *   drives processRecord from a reactor-kafka receiver.
+ *
+ * Record values arrive already decoded by {@link OrderMessageDeserializer};
+ * records it rejected have a null value and are skipped.
+ *
+ * When a record's key is its orderId, the record's partition is passed to the
+ * order processing through the Reactor context, so the order lock can follow
+ * partition ownership (see PartitionAffinityLockService). In "partition" lock mode,
+ * records not keyed by their orderId and due retries are routed to the order's
+ * partition instead (see PartitionAffinityRouter). The orderId is always
+ * put in the context, so every log line of the order carries it (see OrderLogContext).
+ *
+ * The handling of each record is the root span of the order's trace, continuing the
+ * trace context of the record headers (see WorkerMetrics#timeRecord).
  */
 @Service
 public class KafkaOrderConsumer {
 
+    private static final Logger log = LoggerFactory.getLogger(KafkaOrderConsumer.class);
+
     private final OrderProcessorService orderProcessorService;
-    private final RedisFailureService redisFailureService;
-    private final ObjectMapper objectMapper = new ObjectMapper(); 
+    private final FailedOrderHandler failedOrderHandler;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int batchConcurrency;
+    private final WorkerMetrics metrics;
+    private final EnrichmentPrefetcher prefetcher;
+    private final PartitionAffinityRouter router;
 
     /**
      * KafkaOrderConsumer constructor.
      * @param orderProcessorService Service responsible for processing and saving orders.
-     * @param redisFailureService Service responsible for managing failed messages in Redis.
+     * @param failedOrderHandler Handler scheduling failed orders for another attempt.
+     * @param batchConcurrency Maximum number of orders in flight per batch (batch mode only).
+     * @param metrics Meters and traces of the record handling, and failed order counts.
+     * @param prefetcher Prefetcher of the enrichment of records waiting in a batch.
+     * @param router Router of orders to their partition ("partition" lock mode only).
      */
-    public KafkaOrderConsumer(OrderProcessorService orderProcessorService, RedisFailureService redisFailureService) {
+    @Autowired
+    public KafkaOrderConsumer(OrderProcessorService orderProcessorService, FailedOrderHandler failedOrderHandler,
+                              @Value("${worker.kafka.batch.concurrency:16}") int batchConcurrency,
+                              WorkerMetrics metrics, EnrichmentPrefetcher prefetcher,
+                              ObjectProvider<PartitionAffinityRouter> router) {
+        this(orderProcessorService, failedOrderHandler, batchConcurrency, metrics, prefetcher, router.getIfAvailable());
+    }
+
+    KafkaOrderConsumer(OrderProcessorService orderProcessorService, FailedOrderHandler failedOrderHandler,
+                       int batchConcurrency, WorkerMetrics metrics, EnrichmentPrefetcher prefetcher,
+                       PartitionAffinityRouter router) {
         this.orderProcessorService = orderProcessorService;
-        this.redisFailureService = redisFailureService;
+        this.failedOrderHandler = failedOrderHandler;
+        this.batchConcurrency = Math.max(1, batchConcurrency);
+        this.metrics = metrics;
+        this.prefetcher = prefetcher;
+        this.router = router;
     }
 
     /**
      * Listens to messages from the "orders" Kafka topic.
-     * @param message The incoming message in JSON format.
+     * @param record The incoming record, with the order decoded by OrderMessageDeserializer.
+     */
+    @KafkaListener(id = "orderRecordListener", topics = "orders", groupId = "order_group",
+            autoStartup = "#{'${worker.kafka.consumer.mode:record}' == 'record'}")
+    public void consume(ConsumerRecord<String, OrderMessage> record) {
+        log.debug(OrderLogContext.ORDER, "Order received from {}-{}@{}: {}",
+                record.topic(), record.partition(), record.offset(), record.value());
+        processRecord(record).subscribe();
+    }
+
+    /**
+     * Listens to the "orders" Kafka topic in batch mode. The whole poll is run through
+     * one reactive pipeline with at most {@code batchConcurrency} orders in flight.
+     * Records are split into keyed lanes by orderId, so orders with the same ID are
+     * processed one after another in offset order.
+     *
+     * The method blocks the container thread until the batch completes, so offsets are
+     * only committed (AckMode.BATCH) after every order of the poll has been handled.
+     *
+     * @param records The records returned by a single poll.
+     */
+    @KafkaListener(id = "orderBatchListener", topics = "orders", groupId = "order_group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${worker.kafka.consumer.mode:record}' == 'batch'}")
+    public void consumeBatch(List<ConsumerRecord<String, OrderMessage>> records) {
+        log.debug("Order batch received: {} records", records.size());
+        processBatch(records).block();
+    }
+
+    /**
+     * Processes a batch of records with bounded concurrency. Messages are split into
+     * keyed lanes by orderId, so orders with the same ID are processed one after
+     * another in offset order. Records rejected by the deserializer are skipped.
+     *
+     * The records beyond the first {@code batchConcurrency}, which wait for a free
+     * slot, are handed to the EnrichmentPrefetcher so their enrichment starts early.
+     *
+     * @param records The records to process.
+     * @return Mono<Void> that completes once every record has been handled.
+     */
+    Mono<Void> processBatch(List<ConsumerRecord<String, OrderMessage>> records) {
+        return Mono.fromRunnable(() -> prefetcher.prefetch(waiting(records)))
+                .thenMany(Flux.fromIterable(records))
+                .filter(record -> record.value() != null)
+                .groupBy(record -> Math.floorMod(Objects.hashCode(record.value().getOrderId()), batchConcurrency))
+                .flatMap(lane -> lane.concatMap(this::processRecord), batchConcurrency)
+                .then();
+    }
+
+    /**
+     * Processes a single Kafka record and passes the record's partition along when
+     * the record is keyed by its orderId. The failed attempts so far are taken from
+     * the attempt header of a routed retry (0 for a fresh order). Errors never
+     * propagate: records rejected by the deserializer are skipped and processing
+     * errors are handed to {@link #handleFailedOrder}.
+     *
+     * @param record The incoming record, with the order decoded by OrderMessageDeserializer.
+     * @return Mono<Void> that completes once the record has been handled.
      */
-    @KafkaListener(topics = "orders", groupId = "order_group")
-    public void consume(String message) {
-        System.out.println("Order received: " + message);
-        try {
-            OrderMessage orderMessage = objectMapper.readValue(message, OrderMessage.class);
-            orderProcessorService.processOrder(orderMessage)
-                    .subscribe(savedOrder -> {
-                        System.out.println("Order stored in MongoDB with ID: " + savedOrder.getId());
-                    }, error -> {
-                        System.err.println("Error processing the order: " + error.getMessage());
-                        // Handles failed orders and stores the message in Redis for retry
-                        handleFailedOrder(orderMessage, message);
-                    });
-        } catch (Exception e) {
-            System.err.println("Error processing the message: " + e.getMessage());
+    Mono<Void> processRecord(ConsumerRecord<String, OrderMessage> record) {
+        if (record.value() == null) {
+            return Mono.empty();
         }
+        int previousAttempts = (int) KafkaRetryService.headerValue(record.headers(), KafkaRetryService.ATTEMPT_HEADER, 0);
+        return processOrderMessage(record, pinnedPartition(record), previousAttempts);
+    }
+
+    /**
+     * Processes a record read from a retry topic. The failed attempts so far are
+     * taken from its attempt header, so a new failure moves the order to the next
+     * retry tier. In "partition" lock mode the order is routed to its partition
+     * instead, so it is processed under the same local lock as fresh deliveries.
+     *
+     * @param record The retry record, with the order decoded by OrderMessageDeserializer.
+     * @return Mono<Void> that completes once the record has been handled.
+     */
+    Mono<Void> processRetryRecord(ConsumerRecord<String, OrderMessage> record) {
+        if (record.value() == null) {
+            return Mono.empty();
+        }
+        int previousAttempts = (int) KafkaRetryService.headerValue(record.headers(), KafkaRetryService.ATTEMPT_HEADER, 0);
+        return processOrderMessage(record, null, previousAttempts);
+    }
+
+    private Mono<Void> processOrderMessage(ConsumerRecord<String, OrderMessage> record, TopicPartition pinnedPartition,
+                                           int previousAttempts) {
+        OrderMessage orderMessage = record.value();
+        if (router != null && pinnedPartition == null && orderMessage.getOrderId() != null) {
+            return routeToPartition(orderMessage, previousAttempts);
+        }
+        Mono<Void> handling = Mono.defer(() -> orderProcessorService.processOrder(orderMessage))
+                .doOnEach(OrderLogContext.onNext(savedOrder -> log.info(OrderLogContext.ORDER,
+                        "Order stored in MongoDB with ID: {}", savedOrder.getId())))
+                .doOnEach(OrderLogContext.onError(error -> log.warn(OrderLogContext.ORDER,
+                        "Error processing the order: {}", error.getMessage())))
+                .then()
+                // Handles failed orders and schedules the message for retry
+                .onErrorResume(error -> handleFailedOrder(orderMessage, previousAttempts, error));
+        return metrics.timeRecord(record, orderMessage.getOrderId(), handling)
+                .contextWrite(context -> orderContext(context, orderMessage, pinnedPartition));
+    }
+
+    /**
+     * Returns the orders of the batch that will wait for a free slot.
+     */
+    private List<OrderMessage> waiting(List<ConsumerRecord<String, OrderMessage>> records) {
+        if (records.size() <= batchConcurrency) {
+            return List.of();
+        }
+        return records.subList(batchConcurrency, records.size()).stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static Context orderContext(Context context, OrderMessage orderMessage, TopicPartition pinnedPartition) {
+        Context orderContext = OrderLogContext.withOrderId(context, orderMessage.getOrderId());
+        if (pinnedPartition == null) {
+            return orderContext;
+        }
+        return PartitionAffinityLockService.withPartition(orderContext, pinnedPartition);
+    }
+
+    /**
+     * Publishes the order again keyed by its orderId, so the owner of its partition
+     * processes it. A failed send is handed to {@link #handleFailedOrder}.
+     */
+    private Mono<Void> routeToPartition(OrderMessage orderMessage, int previousAttempts) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(orderMessage))
+                .flatMap(message -> router.route(orderMessage.getOrderId(), message, previousAttempts))
+                .onErrorResume(error -> handleFailedOrder(orderMessage, previousAttempts, error))
+                .contextWrite(context -> OrderLogContext.withOrderId(context, orderMessage.getOrderId()));
+    }
+
+    /**
+     * Returns the record's partition if the record is keyed by its orderId, so every
+     * message of the order goes to that partition; null otherwise.
+     */
+    private static TopicPartition pinnedPartition(ConsumerRecord<String, OrderMessage> record) {
+        if (record.key() == null || !record.key().equals(record.value().getOrderId())) {
+            return null;
+        }
+        return new TopicPartition(record.topic(), record.partition());
     }
 
     /**
      * handleFailedOrder: This method handles failed order processing attempts.
-     * It increments the attempt count in Redis, and if the max number of attempts is reached,
-     * it stops retrying the order.
-     * 
+     * The failure is handed to the FailedOrderHandler, which schedules a retry with
+     * backoff or, once the max number of attempts is reached, dead-letters the order.
+     * An order locked elsewhere is rescheduled without counting an attempt.
+     *
+     * The message is serialized back to JSON only here, on the failure path.
+     *
      * @param orderMessage The order that failed to process.
+     * @param previousAttempts Failed attempts carried by the message (retry topics only).
+     * @param error The error of the failed attempt.
+     * @return Mono<Void> that completes once the failure has been recorded.
+     */
+    private Mono<Void> handleFailedOrder(OrderMessage orderMessage, int previousAttempts, Throwable error) {
+        metrics.countFailedOrder(error);
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(orderMessage))
+                .flatMap(message -> error instanceof OrderProcessorService.OrderLockedException
+                        ? failedOrderHandler.reschedule(orderMessage.getOrderId(), message, previousAttempts)
+                        : failedOrderHandler.handleFailure(orderMessage.getOrderId(), message,
+                                previousAttempts, error.getMessage()))
+                .doOnEach(OrderLogContext.onError(storeError -> log.error(OrderLogContext.ORDER,
+                        "Error storing failed order: {}", storeError.getMessage())))
+                .onErrorResume(storeError -> Mono.empty());
+    }
+}
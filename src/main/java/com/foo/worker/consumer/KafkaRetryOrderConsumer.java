@@ -0,0 +1,103 @@
+package com.foo.worker.consumer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.KafkaRetryService;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * KafkaRetryOrderConsumer: Consumes the Kafka retry topics of failed orders.
+ * It is enabled with "worker.retry.backend=kafka".
+ *
+ * A record that is not due yet (x-retry-due-at header) pauses its own partition
+ * until it is due and is negatively acknowledged without a sleep, so it is
+ * redelivered once the partition resumes. Only that partition waits: the other
+ * partitions and tiers of the consumer keep being polled and processed (a nack with
+ * a sleep would pause every partition of the consumer, so a record of the 10m tier
+ * would hold back the 5s tier). Records in a tier topic share the same delay, so the
+ * first record of a partition is always the next one due there. Due records go
+ * through the same processing as the "orders" topic, and their offset is committed
+ * once the order has been handled.
+ *
+ * The listener has its own consumer group, so a rebalance of the retry topics does
+ * not rebalance the "orders" listener and the other way around.
+ */
+@Service
+@ConditionalOnProperty(name = "worker.retry.backend", havingValue = "kafka")
+public class KafkaRetryOrderConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaRetryOrderConsumer.class);
+
+    static final String LISTENER_ID = "orderRetryListener";
+
+    private final KafkaOrderConsumer kafkaOrderConsumer;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final Scheduler timer;
+
+    /**
+     * KafkaRetryOrderConsumer constructor.
+     * @param kafkaOrderConsumer Consumer providing order processing and failure handling.
+     * @param listenerRegistry Registry of the listener containers, used to pause and resume partitions.
+     */
+    @Autowired
+    public KafkaRetryOrderConsumer(KafkaOrderConsumer kafkaOrderConsumer, KafkaListenerEndpointRegistry listenerRegistry) {
+        this(kafkaOrderConsumer, listenerRegistry, Schedulers.parallel());
+    }
+
+    KafkaRetryOrderConsumer(KafkaOrderConsumer kafkaOrderConsumer, KafkaListenerEndpointRegistry listenerRegistry,
+                            Scheduler timer) {
+        this.kafkaOrderConsumer = kafkaOrderConsumer;
+        this.listenerRegistry = listenerRegistry;
+        this.timer = timer;
+    }
+
+    /**
+     * Listens to every retry topic of "worker.retry.kafka.topics".
+     * @param record The retry record.
+     * @param acknowledgment Manual acknowledgment of the record.
+     */
+    @KafkaListener(id = LISTENER_ID, groupId = "order_retry_group",
+            topics = "#{'${worker.retry.kafka.topics:orders-retry-5s,orders-retry-1m,orders-retry-10m}'.split(',')}",
+            containerFactory = "retryKafkaListenerContainerFactory")
+    public void consumeRetry(ConsumerRecord<String, OrderMessage> record, Acknowledgment acknowledgment) {
+        long wait = KafkaRetryService.headerValue(record.headers(), KafkaRetryService.DUE_AT_HEADER, 0)
+                - System.currentTimeMillis();
+        if (wait > 0) {
+            pauseUntilDue(new TopicPartition(record.topic(), record.partition()), wait);
+            acknowledgment.nack(Duration.ZERO);
+            return;
+        }
+        log.info(OrderLogContext.ORDER, "Retrying order {} from {}", record.key(), record.topic());
+        kafkaOrderConsumer.processRetryRecord(record).block();
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Pauses the partition (from the next poll on) and resumes it after the wait.
+     */
+    private void pauseUntilDue(TopicPartition partition, long waitMillis) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        container.pausePartition(partition);
+        timer.schedule(() -> container.resumePartition(partition), waitMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,134 @@
+package com.foo.worker.consumer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
+
+/**
+ * OrderMessageDeserializer: Kafka value deserializer that reads an OrderMessage
+ * straight from the record bytes with the Jackson streaming parser, without
+ * decoding the record to a String or building an intermediate tree.
+ *
+ * Malformed records are rejected here, before any Redis or HTTP work. These are
+ * records that are not a JSON object, have a trailing token, or have no orderId or
+ * customerId. They are logged and deserialized to null, and the consumers skip
+ * null values. Unknown fields are skipped.
+ *
+ * It is configured with "spring.kafka.consumer.value-deserializer".
+ */
+public class OrderMessageDeserializer implements Deserializer<OrderMessage> {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderMessageDeserializer.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public OrderMessage deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return parse(data);
+        } catch (IOException | RuntimeException e) {
+            log.warn(OrderLogContext.ORDER, "Rejected malformed order record from {}: {}", topic, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Parses and validates an order message.
+     *
+     * @throws IOException If the bytes are not a valid order message.
+     */
+    static OrderMessage parse(byte[] data) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            OrderMessage orderMessage = new OrderMessage();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "orderId" -> orderMessage.setOrderId(text(parser));
+                    case "customerId" -> orderMessage.setCustomerId(text(parser));
+                    case "products" -> orderMessage.setProducts(products(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the order");
+            }
+            if (orderMessage.getOrderId() == null || orderMessage.getCustomerId() == null) {
+                throw new JsonParseException(parser, "Order without orderId or customerId");
+            }
+            return orderMessage;
+        }
+    }
+
+    private static List<Product> products(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        List<Product> products = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Product product = new Product();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "productId" -> product.setProductId(text(parser));
+                    case "name" -> product.setName(text(parser));
+                    case "price" -> product.setPrice(number(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            products.add(product);
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+        return products;
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a text value");
+        }
+        return parser.getText();
+    }
+
+    private static Double number(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return Double.valueOf(parser.getText()); // numeric strings were accepted by ObjectMapper too
+        }
+        if (!token.isNumeric()) {
+            throw new JsonParseException(parser, "Expected a numeric value");
+        }
+        return parser.getDoubleValue();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.foo.worker.consumer;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.models.OrderMessage;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+/**
+ * ReactiveKafkaOrderConsumer: Alternative ingestion engine built on reactor-kafka.
+ * It is enabled with "worker.kafka.consumer.mode=reactive" and replaces the
+ * {@code @KafkaListener} containers of {@link KafkaOrderConsumer}.
+ *
+ * Main functionality:
+ * - Polls the "orders" topic only as fast as downstream demand allows (backpressure).
+ * - Keeps at most "worker.kafka.reactive.concurrency" orders in flight.
+ * - Preserves ordering per record key (or per partition for unkeyed records).
+ * - Acknowledges each offset only after the order has been saved or handed to
+ *   the failure handling; the receiver commits contiguous acknowledged offsets.
+ */
+@Service
+@ConditionalOnProperty(name = "worker.kafka.consumer.mode", havingValue = "reactive")
+public class ReactiveKafkaOrderConsumer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveKafkaOrderConsumer.class);
+
+    private final KafkaReceiver<String, OrderMessage> kafkaReceiver;
+    private final KafkaOrderConsumer kafkaOrderConsumer;
+    private final int concurrency;
+
+    private Disposable subscription;
+
+    /**
+     * ReactiveKafkaOrderConsumer constructor.
+     * @param kafkaReceiver Reactive receiver subscribed to the "orders" topic.
+     * @param kafkaOrderConsumer Consumer providing message parsing, processing and failure handling.
+     * @param concurrency Maximum number of orders in flight.
+     */
+    public ReactiveKafkaOrderConsumer(KafkaReceiver<String, OrderMessage> kafkaReceiver,
+                                      KafkaOrderConsumer kafkaOrderConsumer,
+                                      @Value("${worker.kafka.reactive.concurrency:64}") int concurrency) {
+        this.kafkaReceiver = kafkaReceiver;
+        this.kafkaOrderConsumer = kafkaOrderConsumer;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Starts consuming once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = consume()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.error("Kafka receiver failed, restarting: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+        log.info("Reactive Kafka order consumer started.");
+    }
+
+    /**
+     * Builds the receive pipeline: records are split into keyed lanes, each lane is
+     * processed sequentially and offsets are acknowledged after processing.
+     *
+     * @return Flux<Void> that runs until it is cancelled or the receiver fails.
+     */
+    Flux<Void> consume() {
+        return kafkaReceiver.receive()
+                .groupBy(this::lane)
+                .flatMap(lane -> lane.concatMap(this::processRecord), concurrency);
+    }
+
+    private Mono<Void> processRecord(ReceiverRecord<String, OrderMessage> record) {
+        return kafkaOrderConsumer.processRecord(record)
+                .then(Mono.fromRunnable(() -> record.receiverOffset().acknowledge()));
+    }
+
+    /**
+     * Returns the lane of a record. Records with the same key always share a lane;
+     * unkeyed records share the lane of their partition.
+     */
+    private int lane(ReceiverRecord<String, OrderMessage> record) {
+        int hash = record.key() != null ? record.key().hashCode() : record.partition();
+        return Math.floorMod(hash, concurrency);
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.foo.worker.logging;
+
+import java.util.function.Consumer;
+
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import reactor.core.publisher.Signal;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * OrderLogContext: Carries the order and trace IDs of an order through the Reactor
+ * context and exposes them to log statements through the SLF4J MDC.
+ *
+ * The IDs are written once, where an order enters the pipeline (see
+ * KafkaOrderConsumer), and read back only when something is actually logged: the
+ * MDC is set around the log statement and restored right after, so no thread local
+ * leaks between orders sharing an event loop and no per-operator context
+ * propagation is needed.
+ *
+ * Usage:
+ * <pre>
+ * mono.doOnEach(OrderLogContext.onNext(order -> log.info(ORDER, "Order stored {}", order.getId())))
+ *     .contextWrite(context -> OrderLogContext.withOrderId(context, orderId));
+ * </pre>
+ *
+ * Per-order statements are tagged with the {@link #ORDER} marker, which
+ * OrderLogRateFilter uses to rate-limit them by level.
+ */
+public final class OrderLogContext {
+
+    public static final String ORDER_ID = "orderId";
+    public static final String TRACE_ID = "traceId";
+
+    /**
+     * Marker of log statements emitted once (or more) per order.
+     */
+    public static final Marker ORDER = MarkerFactory.getMarker("ORDER");
+
+    private OrderLogContext() {
+    }
+
+    /**
+     * Returns the context with the given order ID.
+     */
+    public static Context withOrderId(Context context, String orderId) {
+        return orderId == null ? context : context.put(ORDER_ID, orderId);
+    }
+
+    /**
+     * Returns a doOnEach callback running the statement for the emitted value, with
+     * the IDs of the subscriber context in the MDC.
+     */
+    public static <T> Consumer<Signal<T>> onNext(Consumer<? super T> statement) {
+        return signal -> {
+            if (signal.isOnNext()) {
+                run(signal.getContextView(), () -> statement.accept(signal.get()));
+            }
+        };
+    }
+
+    /**
+     * Returns a doOnEach callback running the statement for an error, with the IDs
+     * of the subscriber context in the MDC.
+     */
+    public static <T> Consumer<Signal<T>> onError(Consumer<Throwable> statement) {
+        return signal -> {
+            if (signal.isOnError()) {
+                run(signal.getContextView(), () -> statement.accept(signal.getThrowable()));
+            }
+        };
+    }
+
+    /**
+     * Runs the statement with the order and trace IDs of the context in the MDC. The
+     * previous MDC values are restored afterwards, so IDs set by an open tracing scope
+     * of the thread are left untouched.
+     */
+    public static void run(ContextView context, Runnable statement) {
+        String previousOrderId = put(context, ORDER_ID);
+        String previousTraceId = put(context, TRACE_ID);
+        try {
+            statement.run();
+        } finally {
+            restore(ORDER_ID, previousOrderId);
+            restore(TRACE_ID, previousTraceId);
+        }
+    }
+
+    private static String put(ContextView context, String key) {
+        String previous = MDC.get(key);
+        Object value = context.getOrDefault(key, null);
+        if (value != null) {
+            MDC.put(key, value.toString());
+        }
+        return previous;
+    }
+
+    private static void restore(String key, String previous) {
+        if (previous == null) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, previous);
+        }
+    }
+}
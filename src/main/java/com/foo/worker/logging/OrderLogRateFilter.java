@@ -0,0 +1,102 @@
+package com.foo.worker.logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * OrderLogRateFilter: Logback turbo filter that rate-limits per-order log statements
+ * (those with the {@link OrderLogContext#ORDER} marker) by level.
+ *
+ * Each level gets a budget of events per second: "debugPerSecond" (also used for
+ * TRACE), "infoPerSecond" and "warnPerSecond". Events over the budget are denied
+ * before their message is formatted or queued. ERROR events, and events without
+ * the marker, are never limited. A negative budget means unlimited.
+ *
+ * It is configured in logback-spring.xml from the "worker.logging.order.*" properties.
+ */
+public class OrderLogRateFilter extends TurboFilter {
+
+    private final Budget debug = new Budget(-1);
+    private final Budget info = new Budget(-1);
+    private final Budget warn = new Budget(-1);
+    private final AtomicLong suppressed = new AtomicLong();
+    private final LongSupplier clock;
+
+    public OrderLogRateFilter() {
+        this(System::currentTimeMillis);
+    }
+
+    OrderLogRateFilter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || level == null || level.isGreaterOrEqual(Level.ERROR) || !isStarted()
+                || !(marker == OrderLogContext.ORDER || marker.contains(OrderLogContext.ORDER))
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Budget budget = level.isGreaterOrEqual(Level.WARN) ? warn : level.isGreaterOrEqual(Level.INFO) ? info : debug;
+        if (budget.tryAcquire(clock.getAsLong())) {
+            return FilterReply.NEUTRAL;
+        }
+        suppressed.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    public void setDebugPerSecond(int permits) {
+        debug.permits = permits;
+    }
+
+    public void setInfoPerSecond(int permits) {
+        info.permits = permits;
+    }
+
+    public void setWarnPerSecond(int permits) {
+        warn.permits = permits;
+    }
+
+    /**
+     * Returns the number of events denied so far.
+     */
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+
+    /**
+     * Events allowed in the current one-second window. Windows are reset by the first
+     * event of a new second, so the limit is approximate under contention.
+     */
+    private static final class Budget {
+
+        private volatile int permits;
+        private final AtomicLong window = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicInteger used = new AtomicInteger();
+
+        private Budget(int permits) {
+            this.permits = permits;
+        }
+
+        boolean tryAcquire(long nowMillis) {
+            int limit = permits;
+            if (limit < 0) {
+                return true;
+            }
+            long second = nowMillis / 1000;
+            long current = window.get();
+            if (second != current && window.compareAndSet(current, second)) {
+                used.set(0);
+            }
+            return used.incrementAndGet() <= limit;
+        }
+    }
+}
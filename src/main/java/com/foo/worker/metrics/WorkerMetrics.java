@@ -0,0 +1,374 @@
+package com.foo.worker.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.service.AdaptiveConcurrencyLimiter;
+import com.foo.worker.service.HedgedRequests;
+import com.foo.worker.service.ResiliencePolicy;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter.MeterProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler.IgnoredMeters;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.observation.transport.ReceiverContext;
+import io.micrometer.tracing.handler.TracingObservationHandler.TracingContext;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * WorkerMetrics: Micrometer meters and traces of the order processing path, exposed
+ * through Actuator ("/actuator/metrics" and "/actuator/prometheus").
+ *
+ * Timers are recorded through Micrometer observations, so each timed stage is also
+ * a span of the order's trace (see "Tracing" in the README). The current observation
+ * travels in the Reactor context under ObservationThreadLocalAccessor.KEY: each stage
+ * is a child of the stage that subscribed to it, and the WebClient calls to the Go
+ * APIs are children of their upstream stage and propagate the trace to the APIs.
+ *
+ * Timers (percentile histograms are enabled for every "worker.*" timer in
+ * application.properties):
+ * - worker.order.receive: handling of a Kafka record, failure handling included. Its
+ *   span continues the trace of the record headers (W3C traceparent).
+ * - worker.order.processing: whole processing of an order, lock to save.
+ * - worker.lock.acquire / worker.lock.release: Redis order lock round trips.
+ * - worker.enrichment: customer or product enrichment, whichever cache tier answered.
+ * - worker.cache.redis: Redis cache reads (GET/MGET).
+ * - worker.enrichment.upstream: calls to the Go customer and product APIs.
+ * - worker.order.save / worker.order.bulk-write: Mongo upserts.
+ * Every timer carries an "outcome" tag; errors, empty results and cancellations
+ * are recorded as "error", "empty" and "cancelled". The observation handler also adds
+ * an "error" tag with the exception type ("none" on success). It records no long task
+ * timers ("*.active"): stopping one is linear in the observations in flight, which
+ * made every stage slower as orders queued up.
+ *
+ * Counters:
+ * - worker.cache.requests{cache=local|redis, type, result=hit|miss|stale|negative}.
+ * - worker.lock.contention: lock attempts that found the order locked.
+ * - worker.orders.failed{exception}: orders handed to the retry backend.
+ * - worker.retry.scheduled{backend} / worker.retry.dead-lettered{backend}.
+ * - worker.enrichment.rejected{api}: Go API calls shed by the concurrency limiter.
+ * - worker.enrichment.hedges{api, result=sent|won}: hedged Go API requests, and those
+ *   that answered first.
+ * - worker.enrichment.retries{api}: Go API calls retried after a transient failure.
+ * - worker.enrichment.circuit.rejected{api}: Go API calls rejected by an open circuit.
+ * - worker.enrichment.preloads{source=warm-up|lookahead}: customer and product IDs
+ *   preloaded into the caches ahead of their orders.
+ *
+ * Distribution summaries:
+ * - worker.enrichment.batch.size{api}: IDs per batch request to a Go API.
+ *
+ * Gauges:
+ * - worker.orders.inflight: orders currently being processed.
+ * - worker.enrichment.limit{api} / worker.enrichment.concurrency{api}: adaptive
+ *   concurrency limit of each Go API and its calls in flight.
+ * - worker.enrichment.hedge.delay{api}: current hedge delay of each Go API (seconds,
+ *   negative until it is measured).
+ * - worker.enrichment.circuit.state{api, state}: 1 for the current circuit breaker state
+ *   of each Go API (closed, open, half_open...), 0 for the others.
+ * - worker.enrichment.circuit.failure.rate{api}: failure rate (percent) of the circuit
+ *   breaker window, -1 until it holds enough calls.
+ */
+@Component
+public class WorkerMetrics {
+
+    public static final String OUTCOME = "outcome";
+
+    private final MeterRegistry registry;
+    private final ObservationRegistry observationRegistry;
+    private final AtomicInteger inFlightOrders = new AtomicInteger();
+    private final MeterProvider<Counter> cacheRequests;
+    private final MeterProvider<Counter> failedOrders;
+    private final MeterProvider<Counter> scheduledRetries;
+    private final MeterProvider<Counter> deadLetteredOrders;
+    private final MeterProvider<DistributionSummary> batchSizes;
+    private final MeterProvider<Counter> preloads;
+    private final Counter lockContention;
+
+    /**
+     * Creates meters without tracing: observations only record timers in the registry.
+     */
+    public WorkerMetrics(MeterRegistry registry) {
+        this(registry, meterObservations(registry));
+    }
+
+    /**
+     * WorkerMetrics constructor.
+     * @param registry Registry of the counters and gauges.
+     * @param observationRegistry Registry of the timed stages, recording their timers and spans.
+     */
+    @Autowired
+    public WorkerMetrics(MeterRegistry registry, ObservationRegistry observationRegistry) {
+        this.registry = registry;
+        this.observationRegistry = observationRegistry;
+        Gauge.builder("worker.orders.inflight", inFlightOrders, AtomicInteger::get)
+                .description("Orders currently being processed")
+                .register(registry);
+        this.cacheRequests = Counter.builder("worker.cache.requests")
+                .description("Enrichment cache lookups by tier and result")
+                .withRegistry(registry);
+        this.failedOrders = Counter.builder("worker.orders.failed")
+                .description("Orders whose processing failed")
+                .withRegistry(registry);
+        this.scheduledRetries = Counter.builder("worker.retry.scheduled")
+                .description("Failed orders scheduled for another attempt")
+                .withRegistry(registry);
+        this.deadLetteredOrders = Counter.builder("worker.retry.dead-lettered")
+                .description("Failed orders that used up their attempts")
+                .withRegistry(registry);
+        this.batchSizes = DistributionSummary.builder("worker.enrichment.batch.size")
+                .description("IDs per batch request to the Go API")
+                .withRegistry(registry);
+        this.preloads = Counter.builder("worker.enrichment.preloads")
+                .description("Customer and product IDs preloaded into the enrichment caches")
+                .withRegistry(registry);
+        this.lockContention = Counter.builder("worker.lock.contention")
+                .description("Order lock attempts that found the order already locked")
+                .register(registry);
+    }
+
+    /**
+     * Times the processing of one order and counts it as in flight until it terminates.
+     */
+    public <T> Mono<T> timeOrder(Mono<T> processing) {
+        return Mono.defer(() -> {
+            inFlightOrders.incrementAndGet();
+            return timed("worker.order.processing", Tags.empty(), value -> "success", processing)
+                    .doFinally(signal -> inFlightOrders.decrementAndGet());
+        });
+    }
+
+    /**
+     * Times the handling of a Kafka record as the root stage of the order's trace. The
+     * trace context is extracted from the record headers, and the trace ID is put in
+     * the Reactor context for the log lines of the order (see OrderLogContext).
+     * Failures are expected to be handled by {@code handling}: the outcome is "handled".
+     */
+    public Mono<Void> timeRecord(ConsumerRecord<?, ?> record, String orderId, Mono<Void> handling) {
+        return Mono.defer(() -> {
+            ReceiverContext<ConsumerRecord<?, ?>> context = new ReceiverContext<>(WorkerMetrics::header);
+            context.setCarrier(record);
+            context.setRemoteServiceName("kafka");
+            Observation observation = Observation.createNotStarted("worker.order.receive", () -> context,
+                            observationRegistry)
+                    .lowCardinalityKeyValue("topic", record.topic())
+                    .highCardinalityKeyValue("order.id", String.valueOf(orderId));
+            return observed(observation, Function.identity(), handling.thenReturn("handled")
+                    .contextWrite(handlingContext -> withTraceId(handlingContext, observation))).then();
+        });
+    }
+
+    /**
+     * Times each subscription to {@code source} with the timer {@code name}. The
+     * outcome tag is computed from the emitted value, or set to "empty", "error" or
+     * "cancelled". Each subscription is also a span, child of the observation of the
+     * subscriber context.
+     *
+     * @param name    Timer name.
+     * @param tags    Tags of the timer, besides the outcome.
+     * @param outcome Outcome of an emitted value, e.g. "hit" or "acquired".
+     * @param source  Mono to time.
+     * @return Mono<T> that records one sample per subscription.
+     */
+    public <T> Mono<T> timed(String name, Tags tags, Function<? super T, String> outcome, Mono<T> source) {
+        return Mono.defer(() -> observed(Observation.createNotStarted(name, observationRegistry)
+                .lowCardinalityKeyValues(keyValues(tags)), outcome, source));
+    }
+
+    private <T> Mono<T> observed(Observation observation, Function<? super T, String> outcome, Mono<T> source) {
+        return Mono.deferContextual(subscriberContext -> {
+            observation.parentObservation(subscriberContext.getOrDefault(ObservationThreadLocalAccessor.KEY, null));
+            observation.start();
+            AtomicBoolean stopped = new AtomicBoolean();
+            BiConsumer<String, Throwable> stop = (result, error) -> {
+                if (stopped.compareAndSet(false, true)) {
+                    if (error != null) {
+                        observation.error(error);
+                    }
+                    observation.lowCardinalityKeyValue(OUTCOME, result).stop();
+                }
+            };
+            return source
+                    .doOnSuccess(value -> stop.accept(value == null ? "empty" : outcome.apply(value), null))
+                    .doOnError(error -> stop.accept("error", error))
+                    .doOnCancel(() -> stop.accept("cancelled", null))
+                    .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    /**
+     * Counts an enrichment cache lookup.
+     *
+     * @param cache  Cache tier, "local" or "redis".
+     * @param type   Cached entity, "customer" or "product".
+     * @param result "hit", "miss", "stale" or "negative".
+     */
+    public void countCache(String cache, String type, String result) {
+        cacheRequests.withTags("cache", cache, "type", type, "result", result).increment();
+    }
+
+    /**
+     * Counts a lock attempt that found the order already locked.
+     */
+    public void countLockContention() {
+        lockContention.increment();
+    }
+
+    /**
+     * Counts an order whose processing failed, tagged with the exception type.
+     */
+    public void countFailedOrder(Throwable error) {
+        failedOrders.withTags("exception", error.getClass().getSimpleName()).increment();
+    }
+
+    /**
+     * Counts a failed order handed to a retry backend.
+     *
+     * @param backend      Retry backend, "redis" or "kafka".
+     * @param deadLettered Whether the order used up its attempts and was dead-lettered.
+     */
+    public void countRetry(String backend, boolean deadLettered) {
+        (deadLettered ? deadLetteredOrders : scheduledRetries).withTags("backend", backend).increment();
+    }
+
+    /**
+     * Records the number of IDs of a batch request to a Go API.
+     */
+    public void recordBatch(String api, int size) {
+        batchSizes.withTags("api", api).record(size);
+    }
+
+    /**
+     * Counts the IDs handed to a cache preload.
+     *
+     * @param source "warm-up" (startup) or "lookahead" (records fetched ahead).
+     * @param ids    Number of customer and product IDs.
+     */
+    public void countPreload(String source, int ids) {
+        preloads.withTags("source", source).increment(ids);
+    }
+
+    /**
+     * Registers the limit, calls in flight, waiting calls and rejected calls of an upstream
+     * concurrency limiter, tagged with its name.
+     */
+    public void registerLimiter(AdaptiveConcurrencyLimiter limiter) {
+        Tags tags = Tags.of("api", limiter.getName());
+        Gauge.builder("worker.enrichment.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Adaptive concurrency limit of the Go API")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("worker.enrichment.concurrency", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Go API calls in flight")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("worker.enrichment.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Go API calls waiting for a slot of the concurrency limit")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("worker.enrichment.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .description("Go API calls rejected by the concurrency limit")
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * Registers the hedged and winning requests and the hedge delay of an upstream,
+     * tagged with its name.
+     */
+    public void registerHedging(HedgedRequests hedging) {
+        Tags tags = Tags.of("api", hedging.getName());
+        FunctionCounter.builder("worker.enrichment.hedges", hedging, HedgedRequests::getHedges)
+                .description("Hedged Go API requests")
+                .tags(tags.and("result", "sent"))
+                .register(registry);
+        FunctionCounter.builder("worker.enrichment.hedges", hedging, HedgedRequests::getHedgeWins)
+                .description("Hedged Go API requests")
+                .tags(tags.and("result", "won"))
+                .register(registry);
+        Gauge.builder("worker.enrichment.hedge.delay", hedging,
+                        requests -> requests.getDelay().toNanos() / 1e9)
+                .description("Delay after which a Go API request is hedged")
+                .baseUnit("seconds")
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * Registers the retry counter and circuit breaker gauges of a Go API's resilience policy.
+     */
+    public void registerResilience(ResiliencePolicy policy) {
+        Tags tags = Tags.of("api", policy.getName());
+        FunctionCounter.builder("worker.enrichment.retries", policy, ResiliencePolicy::getRetries)
+                .description("Go API calls retried after a transient failure")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("worker.enrichment.circuit.rejected", policy, ResiliencePolicy::getRejectedCalls)
+                .description("Go API calls rejected by an open circuit breaker")
+                .tags(tags)
+                .register(registry);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("worker.enrichment.circuit.state", policy,
+                            resilience -> resilience.getCircuitBreakerState() == state ? 1 : 0)
+                    .description("Current state of the Go API circuit breaker")
+                    .tags(tags.and("state", state.name().toLowerCase()))
+                    .register(registry);
+        }
+        Gauge.builder("worker.enrichment.circuit.failure.rate", policy, ResiliencePolicy::getFailureRate)
+                .description("Failure rate of the Go API circuit breaker window")
+                .baseUnit("percent")
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * Returns the number of orders currently being processed.
+     */
+    public int getInFlightOrders() {
+        return inFlightOrders.get();
+    }
+
+    private static Context withTraceId(Context context, Observation observation) {
+        TracingContext tracing = observation.getContextView().get(TracingContext.class);
+        if (tracing == null || tracing.getSpan() == null) {
+            return context;
+        }
+        return context.put(OrderLogContext.TRACE_ID, tracing.getSpan().context().traceId());
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static KeyValues keyValues(Tags tags) {
+        return KeyValues.of(tags, Tag::getKey, Tag::getValue);
+    }
+
+    private static ObservationRegistry meterObservations(MeterRegistry registry) {
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(registry,
+                IgnoredMeters.LONG_TASK_TIMER));
+        return observationRegistry;
+    }
+}
@@ -0,0 +1,317 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * AdaptiveConcurrencyLimiter: Limits the calls in flight to an upstream API to a
+ * limit that adapts to the latency the upstream actually delivers (Vegas-style, with
+ * an AIMD decrease on failures).
+ *
+ * Each call is a latency sample. The lowest latency seen is the no-load latency, and
+ * {@code limit * (1 - minLatency / latency)} estimates how many calls are queued
+ * in the upstream:
+ * - fewer than {@code alpha}: the upstream keeps up and the limit grows by one, as
+ *   long as the current limit is actually in use (at least half of it in flight);
+ * - more than {@code beta}: calls are queuing and the limit shrinks by one;
+ * - a failed or overloaded call (timeout, connection error, 5xx, 429) multiplies
+ *   the limit by {@code backoffRatio}, once per round trip: failures of calls sent
+ *   before the last decrease do not decrease it again.
+ * The no-load latency is measured again every {@code 30 * limit} samples, so a lasting
+ * change of the upstream latency does not pin the limit.
+ *
+ * Calls over the limit wait in FIFO order for a free slot, for at most
+ * {@code maxWait} (a cancelled call, e.g. past its order deadline, leaves the
+ * queue). Only a call still waiting after {@code maxWait} fails, with
+ * {@link LimitExceededException}, which ResiliencePolicy retries within the order
+ * deadline. While calls wait, the limiter reports itself saturated, so
+ * KafkaConsumptionThrottle pauses Kafka consumption before the wait runs out:
+ * excess orders wait in Kafka rather than being shed into the retry backend.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int alpha;
+    private final int beta;
+    private final double backoffRatio;
+    private final Duration maxWait;
+    private final LongSupplier nanoClock;
+    private final Scheduler timer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger handOffs = new AtomicInteger();
+
+    private volatile double limit;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private long samplesSinceProbe;
+    private long lastDecreaseNanos;
+
+    /**
+     * AdaptiveConcurrencyLimiter constructor.
+     * @param name Name of the upstream, used in errors and metrics.
+     * @param initialLimit Limit before any sample.
+     * @param minLimit Lowest limit, kept even under failures.
+     * @param maxLimit Highest limit, e.g. the connections of the upstream pool.
+     * @param alpha Estimated upstream queue below which the limit grows.
+     * @param beta Estimated upstream queue above which the limit shrinks.
+     * @param backoffRatio Factor applied to the limit on a failed call.
+     * @param maxWait Longest time a call over the limit waits for a slot (0 rejects it right away).
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int alpha, int beta,
+                                      double backoffRatio, Duration maxWait) {
+        this(name, initialLimit, minLimit, maxLimit, alpha, beta, backoffRatio, maxWait, System::nanoTime,
+                Schedulers.parallel());
+    }
+
+    AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int alpha, int beta,
+                               double backoffRatio, Duration maxWait, LongSupplier nanoClock, Scheduler timer) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.alpha = alpha;
+        this.beta = Math.max(alpha, beta);
+        this.backoffRatio = backoffRatio;
+        this.maxWait = maxWait;
+        this.nanoClock = nanoClock;
+        this.timer = timer;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Runs {@code call} within the limit, once per subscription.
+     *
+     * @param call       Call to the upstream.
+     * @param overloaded Whether a value reports an overloaded upstream (e.g. a 503 response).
+     * @return Mono<T> of the call, or an error with LimitExceededException if no slot
+     *         was free within {@code maxWait}.
+     */
+    public <T> Mono<T> limit(Mono<T> call, Predicate<? super T> overloaded) {
+        return Mono.defer(() -> {
+            if (waiters.isEmpty() && tryAcquire()) {
+                return run(call, overloaded);
+            }
+            if (maxWait.isZero() || maxWait.isNegative()) {
+                rejected.incrementAndGet();
+                return Mono.error(new LimitExceededException(name, getLimit()));
+            }
+            return awaitSlot().then(Mono.defer(() -> run(call, overloaded)));
+        });
+    }
+
+    /**
+     * Runs the call in a slot already taken, and releases the slot with its outcome.
+     */
+    private <T> Mono<T> run(Mono<T> call, Predicate<? super T> overloaded) {
+        return Mono.defer(() -> {
+            long start = nanoClock.getAsLong();
+            AtomicBoolean released = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (released.compareAndSet(false, true)) {
+                            if (value != null && overloaded.test(value)) {
+                                onDropped(start);
+                            } else {
+                                onSample(nanoClock.getAsLong() - start);
+                            }
+                            handOff();
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (released.compareAndSet(false, true)) {
+                            onDropped(start);
+                            handOff();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (released.compareAndSet(false, true)) {
+                            inFlight.decrementAndGet();
+                            handOff();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Waits in the queue until a slot is handed over, or fails after {@code maxWait}.
+     */
+    private Mono<Void> awaitSlot() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            queued.incrementAndGet();
+            waiters.add(waiter);
+            Disposable timeout = timer.schedule(() -> {
+                if (waiter.leave()) {
+                    rejected.incrementAndGet();
+                    sink.error(new LimitExceededException(name, getLimit()));
+                }
+            }, maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            sink.onDispose(() -> {
+                timeout.dispose();
+                waiter.leave();
+            });
+            handOff(); // a slot may have been released while this call was queuing
+        });
+    }
+
+    /**
+     * Hands the free slots over to the waiting calls, oldest first. A call that
+     * completes while it is handed a slot does not recurse in here: the running
+     * hand-off loops once more instead.
+     */
+    private void handOff() {
+        if (handOffs.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!waiters.isEmpty() && tryAcquire()) {
+                Waiter waiter = waiters.poll();
+                if (waiter != null && waiter.take()) {
+                    waiter.sink.success();
+                } else {
+                    inFlight.decrementAndGet(); // nobody left to take it
+                }
+            }
+            missed = handOffs.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void onSample(long latencyNanos) {
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        long latency = Math.max(1, latencyNanos);
+        if (++samplesSinceProbe >= PROBE_MULTIPLIER * (long) limit) {
+            samplesSinceProbe = 0;
+            minLatencyNanos = latency;
+        }
+        minLatencyNanos = Math.min(minLatencyNanos, latency);
+        double queued = limit * (1 - (double) minLatencyNanos / latency);
+        if (queued > beta) {
+            limit = Math.max(minLimit, limit - 1);
+        } else if (queued < alpha && inFlightAtEnd * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    private synchronized void onDropped(long start) {
+        inFlight.decrementAndGet();
+        // Calls sent before the last decrease saw the old limit: one decrease per round trip
+        if (start - lastDecreaseNanos >= 0) {
+            lastDecreaseNanos = nanoClock.getAsLong();
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+    }
+
+    /**
+     * Returns whether new calls would be rejected.
+     */
+    public boolean isSaturated() {
+        return queued.get() > 0 || inFlight.get() >= getLimit();
+    }
+
+    /**
+     * Returns the calls in flight and waiting as a share of the limit (1.0 or more when saturated).
+     */
+    public double getUtilization() {
+        return (double) (inFlight.get() + queued.get()) / getLimit();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of calls waiting for a slot.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the number of calls rejected so far, after waiting {@code maxWait} for a slot.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * A call waiting for a slot. It either takes a handed-over slot or leaves the
+     * queue (timeout, cancellation), whichever comes first.
+     */
+    private final class Waiter {
+
+        private final MonoSink<Void> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Waiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+
+        private boolean take() {
+            if (done.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean leave() {
+            if (done.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                waiters.remove(this);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Error of a call rejected because the upstream's concurrency limit is reached.
+     */
+    public static class LimitExceededException extends RuntimeException {
+
+        public LimitExceededException(String name, int limit) {
+            // no stack trace: rejections are frequent while shedding load
+            super("Concurrency limit of " + name + " reached (" + limit + " calls in flight)", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * BatchLoader: Collects the keys loaded by concurrent callers over a short window
+ * and loads them with one batch call (DataLoader-style).
+ *
+ * The first key of a batch opens a window of {@code window}; every key loaded
+ * before it closes joins the batch, and the batch is sent when the window closes
+ * or as soon as it holds {@code maxBatchSize} keys. A key loaded twice in the same
+ * window is requested once. Each caller gets the value of its key, nothing if the
+ * batch answer does not have it, or the error of the batch call.
+ *
+ * The batch call is shared by several orders, so it runs outside of their Reactor
+ * context (no order ID, trace or deadline), and cancelling one load does not cancel it.
+ *
+ * @param <V> Type of the loaded values.
+ */
+public class BatchLoader<V> {
+
+    private final Function<List<String>, Mono<Map<String, V>>> batchCall;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Scheduler timer;
+    private final IntConsumer onBatch;
+
+    private Batch<V> current;
+
+    /**
+     * BatchLoader constructor.
+     * @param batchCall Loads the values of a list of keys, answering a map by key.
+     * @param window How long a batch collects keys after its first one.
+     * @param maxBatchSize Number of keys that sends a batch right away.
+     * @param onBatch Called with the size of every batch sent, e.g. for metrics.
+     */
+    public BatchLoader(Function<List<String>, Mono<Map<String, V>>> batchCall, Duration window, int maxBatchSize,
+                       IntConsumer onBatch) {
+        this(batchCall, window, maxBatchSize, onBatch, Schedulers.parallel());
+    }
+
+    BatchLoader(Function<List<String>, Mono<Map<String, V>>> batchCall, Duration window, int maxBatchSize,
+                IntConsumer onBatch, Scheduler timer) {
+        this.batchCall = batchCall;
+        this.window = window;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.onBatch = onBatch;
+        this.timer = timer;
+    }
+
+    /**
+     * Loads the key with the next batch.
+     *
+     * @param key Key to load.
+     * @return Mono<V> with the value of the key, empty if the batch answer does not have it.
+     */
+    public Mono<V> load(String key) {
+        return Mono.defer(() -> {
+            Sinks.One<V> load;
+            Batch<V> full = null;
+            synchronized (this) {
+                if (current == null) {
+                    Batch<V> batch = new Batch<>();
+                    current = batch;
+                    batch.timer = timer.schedule(() -> windowClosed(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                load = current.loads.computeIfAbsent(key, k -> Sinks.one());
+                if (current.loads.size() >= maxBatchSize) {
+                    full = current;
+                    current = null;
+                }
+            }
+            if (full != null) {
+                full.timer.dispose();
+                send(full);
+            }
+            return load.asMono();
+        });
+    }
+
+    private void windowClosed(Batch<V> batch) {
+        synchronized (this) {
+            if (current != batch) {
+                return; // already sent full
+            }
+            current = null;
+        }
+        send(batch);
+    }
+
+    private void send(Batch<V> batch) {
+        List<String> keys = new ArrayList<>(batch.loads.keySet());
+        onBatch.accept(keys.size());
+        Mono.defer(() -> batchCall.apply(keys))
+                .defaultIfEmpty(Map.of())
+                .subscribe(values -> batch.loads.forEach((key, load) -> {
+                    V value = values.get(key);
+                    if (value != null) {
+                        load.tryEmitValue(value);
+                    } else {
+                        load.tryEmitEmpty();
+                    }
+                }), error -> batch.loads.values().forEach(load -> load.tryEmitError(error)));
+    }
+
+    private static final class Batch<V> {
+        private final Map<String, Sinks.One<V>> loads = new LinkedHashMap<>();
+        private Disposable timer;
+    }
+}
@@ -0,0 +1,158 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.Order;
+import com.foo.worker.models.Product;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * CacheWarmUp: Warms up the enrichment caches at startup, before the Kafka listeners
+ * start consuming, so the first orders after a deploy or a Redis flush do not all go
+ * to the Go APIs.
+ *
+ * The customers and products that appear most often in the last
+ * "worker.cache.warm-up.recent-orders" stored orders (top "top-customers" and
+ * "top-products") are preloaded through EnrichmentService#preload: from Redis into
+ * the local cache, or from the Go APIs into both.
+ *
+ * It is a SmartLifecycle started in the phase right before the listener containers
+ * (the reactive consumer starts later still, on ApplicationReadyEvent), and the
+ * containers wait for it. It gives up after "worker.cache.warm-up.timeout": a slow or
+ * missing Mongo delays startup by that much at most, and the orders load whatever
+ * was not preloaded.
+ */
+@Service
+public class CacheWarmUp implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmUp.class);
+
+    private final OrderStorageService orderStorageService;
+    private final EnrichmentService enrichmentService;
+    private final WorkerMetrics metrics;
+    private final boolean enabled;
+    private final int recentOrders;
+    private final int topCustomers;
+    private final int topProducts;
+    private final Duration timeout;
+
+    private volatile boolean running;
+
+    /**
+     * CacheWarmUp constructor.
+     * @param orderStorageService Storage the recent orders are read from.
+     * @param enrichmentService Service preloading the customers and products.
+     * @param metrics Counts the preloaded IDs.
+     * @param enabled Whether the caches are warmed up at startup.
+     * @param recentOrders Number of recent orders the top IDs are taken from.
+     * @param topCustomers Number of customers preloaded.
+     * @param topProducts Number of products preloaded.
+     * @param timeout Longest time startup waits for the warm-up.
+     */
+    public CacheWarmUp(OrderStorageService orderStorageService, EnrichmentService enrichmentService,
+                       WorkerMetrics metrics,
+                       @Value("${worker.cache.warm-up.enabled:true}") boolean enabled,
+                       @Value("${worker.cache.warm-up.recent-orders:5000}") int recentOrders,
+                       @Value("${worker.cache.warm-up.top-customers:500}") int topCustomers,
+                       @Value("${worker.cache.warm-up.top-products:500}") int topProducts,
+                       @Value("${worker.cache.warm-up.timeout:10s}") Duration timeout) {
+        this.orderStorageService = orderStorageService;
+        this.enrichmentService = enrichmentService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.recentOrders = recentOrders;
+        this.topCustomers = topCustomers;
+        this.topProducts = topProducts;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Runs the warm-up and blocks until it completes, fails or times out.
+     */
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        warmUp()
+                .timeout(timeout)
+                .onErrorResume(error -> {
+                    log.warn("Cache warm-up stopped: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .block();
+    }
+
+    /**
+     * Preloads the most frequent customers and products of the recent orders.
+     *
+     * @return Mono<Void> that completes once they have been preloaded.
+     */
+    Mono<Void> warmUp() {
+        long start = System.nanoTime();
+        return orderStorageService.findRecentOrders(recentOrders)
+                .collectList()
+                .flatMap(orders -> {
+                    List<String> customerIds = mostFrequent(orders.stream().map(Order::getCustomerId), topCustomers);
+                    List<String> productIds = mostFrequent(orders.stream()
+                            .filter(order -> order.getProducts() != null)
+                            .flatMap(order -> order.getProducts().stream())
+                            .map(Product::getProductId), topProducts);
+                    metrics.countPreload("warm-up", customerIds.size() + productIds.size());
+                    return enrichmentService.preload(customerIds, productIds)
+                            .doOnSuccess(ignored -> log.info(
+                                    "Caches warmed up with {} customers and {} products of the last {} orders in {}ms",
+                                    customerIds.size(), productIds.size(), orders.size(),
+                                    Duration.ofNanos(System.nanoTime() - start).toMillis()));
+                });
+    }
+
+    /**
+     * Returns the {@code limit} most frequent IDs, most frequent first.
+     */
+    static List<String> mostFrequent(Stream<String> ids, int limit) {
+        Map<String, Long> counts = ids.filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(0, limit))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts right before the Kafka listener containers.
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+}
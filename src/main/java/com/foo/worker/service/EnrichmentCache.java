@@ -0,0 +1,179 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * EnrichmentCache: Bounded in-process (L1) cache that sits in front of the Redis
+ * cache used by {@link EnrichmentServiceImpl}.
+ *
+ * Main functionality:
+ * - Stores already deserialized CustomerDetails/ProductDetails under the same keys
+ *   used in Redis ("customer:<id>", "product:<id>").
+ * - Evicts entries by size ("worker.cache.local.max-size") and by age
+ *   ("worker.cache.local.ttl").
+ * - Publishes invalidations on a Redis channel so every worker instance drops
+ *   its stale copy when an entry is written to Redis again: after a refresh that
+ *   found a changed value, or after the Redis entry expired. Local fills from a
+ *   Redis hit are only stored locally: publishing them would evict the warm
+ *   copies of every other instance on each local miss (or each startup warm-up).
+ * - Counts local hits and misses per entity type (worker.cache.requests).
+ */
+@Component
+public class EnrichmentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentCache.class);
+
+    static final String INVALIDATION_CHANNEL = "enrichment-cache-invalidation";
+    private static final String SEPARATOR = "|";
+    private static final String KEY_SEPARATOR = ",";
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final Cache<String, Object> cache;
+    private final WorkerMetrics metrics;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public EnrichmentCache(@Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, String> redisTemplate,
+                           @Value("${worker.cache.local.enabled:true}") boolean enabled,
+                           @Value("${worker.cache.local.max-size:10000}") long maxSize,
+                           @Value("${worker.cache.local.ttl:5m}") Duration ttl,
+                           WorkerMetrics metrics) {
+        this.redisTemplate = redisTemplate;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Returns the locally cached value for the given key.
+     *
+     * @param key  Cache key, e.g. "customer:<id>".
+     * @param type Expected type of the value.
+     * @return Mono emitting the cached value, or empty if it is not cached locally.
+     */
+    public <T> Mono<T> get(String key, Class<T> type) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromSupplier(() -> getIfPresent(key, type));
+    }
+
+    /**
+     * Returns the locally cached value for the given key, or null if it is not cached.
+     */
+    public <T> T getIfPresent(String key, Class<T> type) {
+        if (!enabled) {
+            return null;
+        }
+        Object value = cache.getIfPresent(key);
+        boolean hit = type.isInstance(value);
+        metrics.countCache("local", key.substring(0, Math.max(key.indexOf(':'), 0)), hit ? "hit" : "miss");
+        return hit ? type.cast(value) : null;
+    }
+
+    /**
+     * Returns whether the key is cached locally, without counting a cache request.
+     */
+    public boolean contains(String key) {
+        return enabled && cache.getIfPresent(key) != null;
+    }
+
+    /**
+     * Stores a deserialized value in the local cache.
+     */
+    public void put(String key, Object value) {
+        if (enabled && value != null) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Stores a changed value locally and tells the other worker instances to drop
+     * their copy, so they load the new value on their next request.
+     *
+     * @param key Cache key whose value has changed.
+     * @param value The new value.
+     * @return Mono<Void> that completes once the invalidation has been published.
+     */
+    public Mono<Void> update(String key, Object value) {
+        return invalidate(key).doOnSuccess(ignored -> put(key, value));
+    }
+
+    /**
+     * Drops the key locally and tells the other worker instances to drop it too.
+     *
+     * @param key Cache key whose value has changed.
+     * @return Mono<Void> that completes once the invalidation has been published.
+     */
+    public Mono<Void> invalidate(String key) {
+        return invalidateAll(List.of(key));
+    }
+
+    /**
+     * Drops the keys locally and tells the other worker instances to drop them too,
+     * using a single published message.
+     *
+     * @param keys Cache keys whose values have changed.
+     * @return Mono<Void> that completes once the invalidation has been published.
+     */
+    public Mono<Void> invalidateAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> cache.invalidateAll(keys))
+                .then(redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                        instanceId + SEPARATOR + String.join(KEY_SEPARATOR, keys)))
+                .doOnError(error -> log.warn("Error publishing cache invalidation: {}", error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Subscribes to invalidations published by other instances once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void listenForInvalidations() {
+        if (!enabled) {
+            return;
+        }
+        Flux.defer(() -> redisTemplate.listenToChannel(INVALIDATION_CHANNEL))
+                .doOnNext(message -> onInvalidation(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Cache invalidation listener failed, retrying: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    void onInvalidation(String message) {
+        int separator = message.indexOf(SEPARATOR);
+        if (separator < 0) {
+            cache.invalidateAll(List.of(message.split(KEY_SEPARATOR)));
+        } else if (!instanceId.equals(message.substring(0, separator))) {
+            cache.invalidateAll(List.of(message.substring(separator + 1).split(KEY_SEPARATOR)));
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.foo.worker.service;
 
+import java.util.Collection;
+import java.util.List;
+
 import com.foo.worker.models.CustomerDetails;
 import com.foo.worker.models.OrderMessage;
 import com.foo.worker.models.ProductDetails;
@@ -10,8 +13,8 @@ import reactor.core.publisher.Mono;
  * EnrichmentService: Interface that defines methods to enrich order data,
  * including both customer and product information.
  * 
- * It is worth mentioning that Resilience4j is used for retries, and Reactor is
- * used when finer-grained reactive control is needed.
+ * It is worth mentioning that the API calls are retried and circuit-broken with
+ * Reactor operators (see ResiliencePolicy), backed by a Resilience4j circuit breaker.
  * 
  * @author Freyder Otalvaro
  * @version 1.0
@@ -24,4 +27,14 @@ public interface EnrichmentService {
     Mono<CustomerDetails> enrichCustomerWithReactor(OrderMessage orderMessage);
     
     Mono<ProductDetails> enrichProductWithResilience(OrderMessage orderMessage);
+
+    Mono<List<ProductDetails>> enrichProductsWithResilience(OrderMessage orderMessage);
+
+    /**
+     * Loads the given customers and products into the caches ahead of the orders that
+     * need them. Failures are ignored: the orders load what is still missing.
+     *
+     * @return Mono<Void> that completes once every ID has been loaded or has failed.
+     */
+    Mono<Void> preload(Collection<String> customerIds, Collection<String> productIds);
 }
@@ -1,32 +1,70 @@
 package com.foo.worker.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
 import com.foo.worker.models.CustomerDetails;
 import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
 import com.foo.worker.models.ProductDetails;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Tags;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * EnrichmentServiceImpl: Implementation of the EnrichmentService interface responsible for making HTTP calls
  * to external APIs (developed in Go) in order to enrich orders with detailed customer and product data.
  * 
  * Responsibilities:
- * - Perform HTTP requests to Go APIs to retrieve customer and product information.
- * - Handle automatic retries using Resilience4j in case of request failures.
- * - Provide fallback methods when retry attempts are exhausted.
+ * - Perform HTTP requests to Go APIs to retrieve customer and product information, through
+ *   the pooled clients of WebClientConfig (per-API base URL and response timeout).
+ * - Hedge API calls slower than a latency percentile of their API with a second
+ *   request, keeping the first answer (HedgedRequests).
+ * - Batch the API lookups of concurrent orders over a short window into one request
+ *   to the "/customers?ids=" and "/products?ids=" endpoints (BatchLoader).
+ * - Retry API lookups that failed with a transient error and stop calling an API
+ *   that keeps failing (ResiliencePolicy, applied as Reactor operators).
  * - Cache enriched responses in Redis to improve performance.
+ * - Keep deserialized responses in a local L1 cache (EnrichmentCache) in front of Redis.
+ * - Coalesce concurrent cache misses for the same key into one load (SingleFlight).
+ * - Preload customers and products ahead of the orders that need them (cache warm-up
+ *   at startup and lookahead of fetched records, see CacheWarmUp and EnrichmentPrefetcher).
+ * - Expire Redis entries, cache unknown IDs briefly and optionally serve stale
+ *   entries while they are refreshed in the background (RedisCachePolicy).
+ * - Store Redis entries as raw bytes so they can use a compact binary format.
+ * - Time every enrichment, Redis read and API call, and count cache hits and misses
+ *   per tier (WorkerMetrics).
  * 
  * @author Freyder Otalvaro
  * @version 1.0
@@ -35,111 +73,645 @@ import reactor.core.publisher.Mono;
 @Service
 public class EnrichmentServiceImpl implements EnrichmentService {
 
-    private final WebClient webClient;
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Logger log = LoggerFactory.getLogger(EnrichmentServiceImpl.class);
 
-    public EnrichmentServiceImpl(WebClient.Builder webClientBuilder,
-                                 @Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, String> redisTemplate) {
-        this.webClient = webClientBuilder.baseUrl("http://localhost:8081").build();
+    // IDs loaded in parallel by preload(), which runs ahead of the orders
+    private static final int PRELOAD_CONCURRENCY = 32;
+
+    // SET ... PX of every key with its value (ARGV[i]) and the TTL in ms (last ARGV), in one atomic call
+    private static final RedisScript<Long> SET_WITH_TTL_SCRIPT = RedisScript.of(
+            "local ttl = ARGV[#ARGV] "
+                    + "for i = 1, #KEYS do redis.call('set', KEYS[i], ARGV[i], 'px', ttl) end "
+                    + "return #KEYS",
+            Long.class);
+
+    // PEXPIRE of every key that has no TTL (PTTL -1) with the TTL in ms (ARGV[1]); Redis < 7 has no EXPIRE NX
+    private static final RedisScript<Long> EXPIRE_IF_PERSISTENT_SCRIPT = RedisScript.of(
+            "local expired = 0 "
+                    + "for i = 1, #KEYS do "
+                    + "if redis.call('pttl', KEYS[i]) == -1 then "
+                    + "redis.call('pexpire', KEYS[i], ARGV[1]) expired = expired + 1 end end "
+                    + "return expired",
+            Long.class);
+
+    private static final ParameterizedTypeReference<Map<String, CustomerDetails>> CUSTOMERS_BY_ID =
+            new ParameterizedTypeReference<>() { };
+    private static final ParameterizedTypeReference<Map<String, ProductDetails>> PRODUCTS_BY_ID =
+            new ParameterizedTypeReference<>() { };
+
+    private final WebClient customerWebClient;
+    private final WebClient productWebClient;
+    private final HedgedRequests customerHedging;
+    private final HedgedRequests productHedging;
+    private final ResiliencePolicy customerResilience;
+    private final ResiliencePolicy productResilience;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final EnrichmentCache enrichmentCache;
+    private final SingleFlight<CustomerDetails> customerLoads;
+    private final SingleFlight<ProductDetails> productLoads;
+    private final int productFetchConcurrency;
+    private final RedisCachePolicy cachePolicy;
+    private final WorkerMetrics metrics;
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private final BatchLoader<CustomerDetails> customerBatches;
+    private final BatchLoader<ProductDetails> productBatches;
+
+    public EnrichmentServiceImpl(@Qualifier("customerWebClient") WebClient customerWebClient,
+                                 @Qualifier("productWebClient") WebClient productWebClient,
+                                 @Qualifier("customerHedging") HedgedRequests customerHedging,
+                                 @Qualifier("productHedging") HedgedRequests productHedging,
+                                 @Qualifier("customerResilience") ResiliencePolicy customerResilience,
+                                 @Qualifier("productResilience") ResiliencePolicy productResilience,
+                                 @Qualifier("reactiveBytesRedisTemplate") ReactiveRedisTemplate<String, byte[]> redisTemplate,
+                                 EnrichmentCache enrichmentCache,
+                                 @Value("${worker.enrichment.single-flight.error-ttl:500ms}") Duration singleFlightErrorTtl,
+                                 @Value("${worker.enrichment.product.fetch-concurrency:8}") int productFetchConcurrency,
+                                 RedisCachePolicy cachePolicy,
+                                 WorkerMetrics metrics,
+                                 @Value("${worker.enrichment.batch.enabled:true}") boolean batchEnabled,
+                                 @Value("${worker.enrichment.batch.window:2ms}") Duration batchWindow,
+                                 @Value("${worker.enrichment.batch.max-size:50}") int batchMaxSize) {
+        this.customerWebClient = customerWebClient;
+        this.productWebClient = productWebClient;
+        this.customerHedging = customerHedging;
+        this.productHedging = productHedging;
+        this.customerResilience = customerResilience;
+        this.productResilience = productResilience;
         this.redisTemplate = redisTemplate;
+        this.enrichmentCache = enrichmentCache;
+        this.customerLoads = new SingleFlight<>(singleFlightErrorTtl);
+        this.productLoads = new SingleFlight<>(singleFlightErrorTtl);
+        this.productFetchConcurrency = Math.max(1, productFetchConcurrency);
+        this.cachePolicy = cachePolicy;
+        this.metrics = metrics;
+        this.customerBatches = batchEnabled ? new BatchLoader<>(this::fetchCustomerBatch, batchWindow, batchMaxSize,
+                size -> metrics.recordBatch("customer", size)) : null;
+        this.productBatches = batchEnabled ? new BatchLoader<>(this::fetchProductBatch, batchWindow, batchMaxSize,
+                size -> metrics.recordBatch("product", size)) : null;
     }
 
     /**
-     * Enriches customer data by calling the Go-based API and applying retry mechanisms.
-     * If the data is found in Redis, it is returned from the cache.
+     * Enriches customer data from the local cache, Redis or, on a miss, the Go-based API
+     * (retried and circuit-broken, see fetchCustomer).
      *
      * @param orderMessage The order message containing the customer ID.
      * @return Mono<CustomerDetails> with enriched customer data.
      */
     @Override
-    @Retry(name = "customerRetry", fallbackMethod = "fallbackCustomer")
-    @CircuitBreaker(name = "customerService", fallbackMethod = "fallbackCustomer")
     public Mono<CustomerDetails> enrichCustomerWithResilience(OrderMessage orderMessage) {
         String customerCacheKey = "customer:" + orderMessage.getCustomerId();
-        return redisTemplate.opsForValue().get(customerCacheKey)
+        Mono<CustomerDetails> customer = enrichmentCache.get(customerCacheKey, CustomerDetails.class)
+                .switchIfEmpty(customerLoads.execute(customerCacheKey, () -> loadCustomer(orderMessage.getCustomerId(), customerCacheKey))
+                        .doOnNext(loaded -> enrichmentCache.put(customerCacheKey, loaded)));
+        return metrics.timed("worker.enrichment", Tags.of("type", "customer"), loaded -> "success", customer)
+                .doOnEach(OrderLogContext.onError(error -> log.warn(OrderLogContext.ORDER,
+                        "Error enriching customer data: {}", error.getMessage())));
+    }
+
+    /**
+     * Loads customer data from Redis, or from the Go-based API on a Redis miss.
+     * Stale entries are served while a background refresh updates them, and
+     * negative entries fail fast without calling the API.
+     */
+    private Mono<CustomerDetails> loadCustomer(String customerId, String customerCacheKey) {
+        return readCached(customerCacheKey, "customer")
                 .flatMap(cachedCustomer -> {
+                    RedisCachePolicy.Entry<CustomerDetails> entry;
                     try {
-                        CustomerDetails customer = objectMapper.readValue(cachedCustomer, CustomerDetails.class);
-                        return Mono.just(customer); // Return cached customer
-                    } catch (Exception e) {
+                        entry = cachePolicy.decode(cachedCustomer, CustomerDetails.class);
+                    } catch (IOException e) {
                         return Mono.error(new RuntimeException("Error deserializing cached customer"));
                     }
+                    if (entry.isNegative()) {
+                        if (entry.stale()) {
+                            return Mono.empty();
+                        }
+                        metrics.countCache("redis", "customer", "negative");
+                        return Mono.error(new RuntimeException("Customer not found"));
+                    }
+                    if (entry.stale()) {
+                        metrics.countCache("redis", "customer", "stale");
+                        CustomerDetails staleCustomer = entry.value();
+                        refreshInBackground(customerCacheKey,
+                                () -> fetchAndCacheCustomer(customerId, customerCacheKey, staleCustomer));
+                    } else {
+                        metrics.countCache("redis", "customer", "hit");
+                    }
+                    if (entry.plain()) {
+                        expireIfPersistent(List.of(customerCacheKey), cachePolicy.getCustomerTtl());
+                    }
+                    return Mono.just(entry.value()); // Return cached customer
                 })
-                .switchIfEmpty(
-                        webClient.get()
-                                .uri(uriBuilder -> uriBuilder
-                                        .path("/customer")
-                                        .queryParam("customerId", orderMessage.getCustomerId())
-                                        .build())
-                                .retrieve()
-                                .bodyToMono(CustomerDetails.class)
-                                .flatMap(customer -> Mono.fromCallable(() -> objectMapper.writeValueAsString(customer)) 
-                                        .flatMap(serializedCustomer -> redisTemplate.opsForValue()
-                                                .set(customerCacheKey, serializedCustomer)
-                                                .thenReturn(customer))))
-                .doOnError(error -> System.err
-                        .println("Error enriching customer data: " + error.getMessage()));
-    }
-
-    /**
-     * Enriches customer data using Reactor's retry strategy (without Resilience4j).
+                .switchIfEmpty(Mono.defer(() -> {
+                    metrics.countCache("redis", "customer", "miss");
+                    return fetchAndCacheCustomer(customerId, customerCacheKey, null);
+                }));
+    }
+
+    /**
+     * Fetches a customer from the Go-based API and writes it to Redis with its TTL.
+     * Unknown customers are cached as negative entries.
+     *
+     * @param previous The stale value being refreshed, or null after a Redis miss;
+     *                 see updateIfChanged.
+     */
+    private Mono<CustomerDetails> fetchAndCacheCustomer(String customerId, String customerCacheKey,
+                                                        CustomerDetails previous) {
+        Duration customerTtl = cachePolicy.getCustomerTtl();
+        return fetchCustomer(customerId)
+                .flatMap(customer -> Mono.fromCallable(() -> cachePolicy.encode(customer, customerTtl))
+                        .flatMap(serializedCustomer -> redisTemplate.opsForValue()
+                                .set(customerCacheKey, serializedCustomer, cachePolicy.redisTtl(customerTtl)))
+                        .then(updateIfChanged(Map.of(customerCacheKey, customer),
+                                previous == null ? Map.of() : Map.of(customerCacheKey, previous)))
+                        .thenReturn(customer))
+                .onErrorResume(WebClientResponseException.NotFound.class, error -> cacheNegative(customerCacheKey)
+                        .then(Mono.error(new RuntimeException("Customer not found"))));
+    }
+
+    /**
+     * Calls the Go-based customer API for a single customer, hedged if it is slow:
+     * with the next batch request if batching is enabled, or on its own. Each request
+     * (hedge included) is timed as worker.enrichment.upstream. A transient failure is
+     * retried (with the next batch), and each request goes through the circuit breaker.
+     */
+    private Mono<CustomerDetails> fetchCustomer(String customerId) {
+        Mono<CustomerDetails> customer = customerBatches != null
+                ? customerBatches.load(customerId).switchIfEmpty(Mono.error(EnrichmentServiceImpl::notFound))
+                : fetchSingleCustomer(customerId);
+        return customer.transform(customerResilience::retry);
+    }
+
+    private Mono<CustomerDetails> fetchSingleCustomer(String customerId) {
+        return customerHedging.execute(() -> {
+            Mono<CustomerDetails> customer = customerWebClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/customer")
+                            .queryParam("customerId", customerId)
+                            .build())
+                    .retrieve()
+                    .bodyToMono(CustomerDetails.class);
+            return metrics.timed("worker.enrichment.upstream", Tags.of("api", "customer"), fetched -> "success", customer);
+        }).transform(customerResilience::circuitBreaker);
+    }
+
+    /**
+     * Calls the Go-based customer API for a batch of customers, answered by ID.
+     * Unknown customers are missing from the answer.
+     */
+    private Mono<Map<String, CustomerDetails>> fetchCustomerBatch(List<String> customerIds) {
+        return customerHedging.execute(() -> {
+            Mono<Map<String, CustomerDetails>> customers = customerWebClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/customers")
+                            .queryParam("ids", String.join(",", customerIds))
+                            .build())
+                    .retrieve()
+                    .bodyToMono(CUSTOMERS_BY_ID);
+            return metrics.timed("worker.enrichment.upstream", Tags.of("api", "customer"), fetched -> "success", customers);
+        }).transform(customerResilience::circuitBreaker);
+    }
+
+    /**
+     * Enriches customer data straight from the Go-based API, without the caches. The call
+     * is retried and circuit-broken like every API lookup (see fetchCustomer).
      *
      * @param orderMessage The order message containing the customer ID.
      * @return Mono<CustomerDetails> with enriched data.
      */
     @Override
     public Mono<CustomerDetails> enrichCustomerWithReactor(OrderMessage orderMessage) {
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/customer")
-                        .queryParam("customerId", orderMessage.getCustomerId())
-                        .build())
-                .retrieve()
-                .bodyToMono(CustomerDetails.class)
-                .retryWhen(reactor.util.retry.Retry.backoff(3, Duration.ofSeconds(2))
-                        .maxBackoff(Duration.ofSeconds(10))
-                        .jitter(0.5))
-                .doOnError(error -> System.err
-                        .println("Error enriching customer data with Reactor: " + error.getMessage()));
-    }
-
-    /**
-     * Enriches product data from the Go-based API and caches it in Redis.
+        return fetchCustomer(orderMessage.getCustomerId())
+                .doOnEach(OrderLogContext.onError(error -> log.warn(OrderLogContext.ORDER,
+                        "Error enriching customer data with Reactor: {}", error.getMessage())));
+    }
+
+    /**
+     * Enriches product data from the Go-based API and caches it in Redis and locally.
+     * Only the first product of the order is enriched; see enrichProductsWithResilience.
      * 
      * @param orderMessage The order message containing the product ID.
      * @return Mono<ProductDetails> with enriched product data.
      */
     @Override
-    @Retry(name = "productRetry", fallbackMethod = "fallbackProduct")
-    @CircuitBreaker(name = "productService", fallbackMethod = "fallbackProduct")
     public Mono<ProductDetails> enrichProductWithResilience(OrderMessage orderMessage) {
-        String productCacheKey = "product:" + orderMessage.getProducts().get(0).getProductId();
+        String productId = orderMessage.getProducts().get(0).getProductId();
+        String productCacheKey = productCacheKey(productId);
+
+        Mono<ProductDetails> product = enrichmentCache.get(productCacheKey, ProductDetails.class)
+                .switchIfEmpty(productLoads.execute(productCacheKey, () -> loadProduct(productId, productCacheKey))
+                        .doOnNext(loaded -> enrichmentCache.put(productCacheKey, loaded)));
+        return metrics.timed("worker.enrichment", Tags.of("type", "product"), loaded -> "success", product);
+    }
+
+    /**
+     * Enriches every distinct product of the order with a fixed number of round trips:
+     * local cache lookups, one Redis MGET for the rest, parallel API calls (bounded by
+     * "worker.enrichment.product.fetch-concurrency") for the Redis misses, and one
+     * script writing the fetched products back with their TTL.
+     *
+     * @param orderMessage The order message containing the products.
+     * @return Mono<List<ProductDetails>> with one entry per distinct productId, in order.
+     */
+    @Override
+    public Mono<List<ProductDetails>> enrichProductsWithResilience(OrderMessage orderMessage) {
+        Mono<List<ProductDetails>> enrichedProducts = Mono.defer(() -> {
+            List<String> productIds = distinctProductIds(orderMessage);
+            Map<String, ProductDetails> products = new HashMap<>();
+            List<String> localMisses = new ArrayList<>();
+            for (String productId : productIds) {
+                ProductDetails product = enrichmentCache.getIfPresent(productCacheKey(productId), ProductDetails.class);
+                if (product != null) {
+                    products.put(productId, product);
+                } else {
+                    localMisses.add(productId);
+                }
+            }
+
+            return readProducts(localMisses)
+                    .flatMap(cachedProducts -> {
+                        if (!cachedProducts.unknown().isEmpty()) {
+                            return Mono.error(new RuntimeException("Product not found"));
+                        }
+                        products.putAll(cachedProducts.found());
+                        List<String> redisMisses = localMisses.stream()
+                                .filter(productId -> !cachedProducts.found().containsKey(productId))
+                                .toList();
+                        return fetchProducts(redisMisses);
+                    })
+                    .flatMap(fetchedProducts -> {
+                        products.putAll(fetchedProducts);
+                        List<String> notFound = productIds.stream()
+                                .filter(productId -> !products.containsKey(productId))
+                                .toList();
+                        if (!notFound.isEmpty()) {
+                            return Mono.error(new RuntimeException("Product not found"));
+                        }
+                        return Mono.just(productIds.stream().map(products::get).toList());
+                    });
+        });
+        return metrics.timed("worker.enrichment", Tags.of("type", "products"), loaded -> "success", enrichedProducts)
+                .doOnEach(OrderLogContext.onError(error -> log.warn(OrderLogContext.ORDER,
+                        "Error enriching product data: {}", error.getMessage())));
+    }
+
+    /**
+     * Loads the customers and products that are not cached locally: customers one by
+     * one, products with one MGET and a fetch of the Redis misses, like an order would,
+     * and through the same single-flight keys, so an order that needs an ID still being
+     * preloaded waits for that load instead of starting its own. Unknown IDs (negative
+     * entries included) and failures are skipped one by one.
+     */
+    @Override
+    public Mono<Void> preload(Collection<String> customerIds, Collection<String> productIds) {
+        Mono<Void> customers = Flux.fromIterable(new LinkedHashSet<>(customerIds))
+                .filter(customerId -> !enrichmentCache.contains("customer:" + customerId))
+                .flatMap(customerId -> {
+                    String customerCacheKey = "customer:" + customerId;
+                    return customerLoads.execute(customerCacheKey, () -> loadCustomer(customerId, customerCacheKey))
+                            .doOnNext(loaded -> enrichmentCache.put(customerCacheKey, loaded))
+                            .onErrorResume(error -> Mono.empty());
+                }, PRELOAD_CONCURRENCY)
+                .then();
+        Mono<Void> products = Mono.defer(() -> {
+            List<String> localMisses = productIds.stream()
+                    .distinct()
+                    .filter(productId -> !enrichmentCache.contains(productCacheKey(productId)))
+                    .toList();
+            return readProducts(localMisses)
+                    .flatMapMany(cachedProducts -> Flux.fromIterable(localMisses)
+                            .filter(productId -> !cachedProducts.found().containsKey(productId)
+                                    && !cachedProducts.unknown().contains(productId)))
+                    .flatMap(productId -> productLoads.execute(productCacheKey(productId), () -> fetchKnownProduct(productId))
+                            .map(product -> Tuples.of(productId, product))
+                            .onErrorResume(error -> Mono.empty()), PRELOAD_CONCURRENCY)
+                    .collectMap(Tuple2::getT1, Tuple2::getT2)
+                    .flatMap(fetchedProducts -> writeProducts(fetchedProducts, Map.of()));
+        }).onErrorResume(error -> Mono.empty()); // e.g. Redis unavailable
+        return Mono.when(customers, products);
+    }
+
+    /**
+     * Products read from Redis: the cached ones by ID, and the IDs cached as unknown
+     * (fresh negative entries).
+     */
+    private record CachedProducts(Map<String, ProductDetails> found, Set<String> unknown) { }
+
+    /**
+     * Reads the given products from Redis with a single MGET. Entries that cannot be
+     * deserialized are treated as misses, fresh negative entries are returned as
+     * unknown IDs and stale entries are returned while they are refreshed in the
+     * background. Fresh hits are also stored in the local cache.
+     */
+    private Mono<CachedProducts> readProducts(List<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Mono.just(new CachedProducts(Map.of(), Set.of()));
+        }
+        List<String> keys = productIds.stream().map(EnrichmentServiceImpl::productCacheKey).toList();
+        Mono<List<byte[]>> multiGet = redisTemplate.opsForValue().multiGet(keys);
+        return metrics.timed("worker.cache.redis", Tags.of("type", "product", "operation", "mget"),
+                        values -> "found", multiGet)
+                .map(values -> {
+                    Map<String, ProductDetails> cachedProducts = new HashMap<>();
+                    Set<String> unknownProducts = new HashSet<>();
+                    List<String> plainKeys = new ArrayList<>();
+                    for (int i = 0; i < productIds.size(); i++) {
+                        byte[] value = i < values.size() ? values.get(i) : null;
+                        if (value == null) {
+                            metrics.countCache("redis", "product", "miss");
+                            continue;
+                        }
+                        RedisCachePolicy.Entry<ProductDetails> entry;
+                        try {
+                            entry = cachePolicy.decode(value, ProductDetails.class);
+                        } catch (IOException e) {
+                            log.warn("Error deserializing cached product {}", keys.get(i));
+                            metrics.countCache("redis", "product", "miss");
+                            continue;
+                        }
+                        if (entry.isNegative()) {
+                            if (entry.stale()) {
+                                metrics.countCache("redis", "product", "miss");
+                                continue;
+                            }
+                            metrics.countCache("redis", "product", "negative");
+                            unknownProducts.add(productIds.get(i));
+                            continue;
+                        }
+                        ProductDetails product = entry.value();
+                        cachedProducts.put(productIds.get(i), product);
+                        if (entry.plain()) {
+                            plainKeys.add(keys.get(i));
+                        }
+                        if (entry.stale()) {
+                            metrics.countCache("redis", "product", "stale");
+                            String productId = productIds.get(i);
+                            String productCacheKey = keys.get(i);
+                            refreshInBackground(productCacheKey, () -> fetchAndCacheProduct(productId, product));
+                        } else {
+                            metrics.countCache("redis", "product", "hit");
+                            enrichmentCache.put(keys.get(i), product);
+                        }
+                    }
+                    expireIfPersistent(plainKeys, cachePolicy.getProductTtl());
+                    return new CachedProducts(cachedProducts, unknownProducts);
+                });
+    }
+
+    /**
+     * Fetches the given products from the Go-based API in parallel and writes them
+     * back to Redis with their TTL in one script call.
+     */
+    private Mono<Map<String, ProductDetails>> fetchProducts(List<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return Flux.fromIterable(productIds)
+                .flatMap(productId -> productLoads.execute(productCacheKey(productId), () -> fetchKnownProduct(productId))
+                        .map(product -> Tuples.of(productId, product)), productFetchConcurrency)
+                .collectMap(Tuple2::getT1, Tuple2::getT2)
+                .flatMap(fetchedProducts -> writeProducts(fetchedProducts, Map.of()).thenReturn(fetchedProducts));
+    }
+
+    /**
+     * Writes fetched products to Redis with their TTL and to the local cache.
+     *
+     * @param previous The stale values being refreshed, by productId (empty after a
+     *                 Redis miss); see updateIfChanged.
+     */
+    private Mono<Void> writeProducts(Map<String, ProductDetails> products, Map<String, ProductDetails> previous) {
+        if (products.isEmpty()) {
+            return Mono.empty();
+        }
+        Duration productTtl = cachePolicy.getProductTtl();
+        return Mono.fromCallable(() -> {
+                    Map<String, byte[]> serializedProducts = new HashMap<>();
+                    for (Map.Entry<String, ProductDetails> entry : products.entrySet()) {
+                        serializedProducts.put(productCacheKey(entry.getKey()),
+                                cachePolicy.encode(entry.getValue(), productTtl));
+                    }
+                    return serializedProducts;
+                })
+                .flatMap(serializedProducts -> setWithTtl(serializedProducts, cachePolicy.redisTtl(productTtl)))
+                .then(Mono.defer(() -> {
+                    Map<String, Object> values = new HashMap<>();
+                    Map<String, Object> previousValues = new HashMap<>();
+                    products.forEach((productId, product) -> values.put(productCacheKey(productId), product));
+                    previous.forEach((productId, product) -> previousValues.put(productCacheKey(productId), product));
+                    return updateIfChanged(values, previousValues);
+                }));
+    }
 
-        return redisTemplate.opsForValue().get(productCacheKey)
+    /**
+     * Writes the entries with their TTL in one atomic script call (one round trip),
+     * so no key can be left in Redis without a TTL, unlike an MSET followed by
+     * EXPIREs that is cancelled or interrupted in between.
+     */
+    private Mono<Void> setWithTtl(Map<String, byte[]> entries, Duration ttl) {
+        List<String> keys = new ArrayList<>(entries.size());
+        List<byte[]> args = new ArrayList<>(entries.size() + 1);
+        entries.forEach((key, value) -> {
+            keys.add(key);
+            args.add(value);
+        });
+        args.add(String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8));
+        return redisTemplate.execute(SET_WITH_TTL_SCRIPT, keys, args).then();
+    }
+
+    /**
+     * Loads product data from Redis, or from the Go-based API on a Redis miss.
+     * Stale entries are served while a background refresh updates them, and
+     * negative entries fail fast without calling the API.
+     */
+    private Mono<ProductDetails> loadProduct(String productId, String productCacheKey) {
+        return readCached(productCacheKey, "product")
                 .flatMap(cachedProduct -> {
+                    RedisCachePolicy.Entry<ProductDetails> entry;
                     try {
-                        return Mono.just(objectMapper.readValue(cachedProduct, ProductDetails.class));
-                    } catch (JsonProcessingException e) {
+                        entry = cachePolicy.decode(cachedProduct, ProductDetails.class);
+                    } catch (IOException e) {
                         return Mono.error(new RuntimeException("Error deserializing cached product"));
                     }
+                    if (entry.isNegative()) {
+                        if (entry.stale()) {
+                            return Mono.empty();
+                        }
+                        metrics.countCache("redis", "product", "negative");
+                        return Mono.error(new RuntimeException("Product not found"));
+                    }
+                    if (entry.stale()) {
+                        metrics.countCache("redis", "product", "stale");
+                        ProductDetails staleProduct = entry.value();
+                        refreshInBackground(productCacheKey, () -> fetchAndCacheProduct(productId, staleProduct));
+                    } else {
+                        metrics.countCache("redis", "product", "hit");
+                    }
+                    if (entry.plain()) {
+                        expireIfPersistent(List.of(productCacheKey), cachePolicy.getProductTtl());
+                    }
+                    return Mono.just(entry.value());
                 })
-                .switchIfEmpty(
-                        webClient.get()
-                                .uri("/product")
-                                .retrieve()
-                                .bodyToMono(ProductDetails.class)
-                                .flatMap(product ->
-                                        Mono.fromCallable(() -> objectMapper.writeValueAsString(product))
-                                                .flatMap(serializedProduct -> redisTemplate.opsForValue()
-                                                        .set(productCacheKey, serializedProduct))
-                                                .thenReturn(product))
-                                .doOnError(error -> {
-                                    System.err.println("Error enriching product data: " + error.getMessage());
-                                }));
+                .switchIfEmpty(Mono.defer(() -> {
+                            metrics.countCache("redis", "product", "miss");
+                            return fetchAndCacheProduct(productId, null);
+                        })
+                        .doOnEach(OrderLogContext.onError(error -> log.warn(OrderLogContext.ORDER,
+                                "Error enriching product data: {}", error.getMessage()))));
+    }
+
+    /**
+     * Fetches a single product and writes it to Redis. Used for single-product misses
+     * and stale refreshes, which already run under their own single-flight key.
+     *
+     * @param previous The stale value being refreshed, or null after a Redis miss.
+     */
+    private Mono<ProductDetails> fetchAndCacheProduct(String productId, ProductDetails previous) {
+        return fetchKnownProduct(productId)
+                .flatMap(product -> writeProducts(Map.of(productId, product),
+                        previous == null ? Map.of() : Map.of(productId, previous)).thenReturn(product));
+    }
+
+    /**
+     * Calls the Go-based product API and caches a negative entry if the product is unknown.
+     */
+    private Mono<ProductDetails> fetchKnownProduct(String productId) {
+        return fetchProduct(productId)
+                .onErrorResume(WebClientResponseException.NotFound.class, error -> cacheNegative(productCacheKey(productId))
+                        .then(Mono.error(new RuntimeException("Product not found"))));
+    }
+
+    /**
+     * Calls the Go-based product API for a single product, hedged if it is slow:
+     * with the next batch request if batching is enabled, or on its own. Each request
+     * (hedge included) is timed as worker.enrichment.upstream. A transient failure is
+     * retried (with the next batch), and each request goes through the circuit breaker.
+     */
+    private Mono<ProductDetails> fetchProduct(String productId) {
+        Mono<ProductDetails> product = productBatches != null
+                ? productBatches.load(productId).switchIfEmpty(Mono.error(EnrichmentServiceImpl::notFound))
+                : fetchSingleProduct(productId);
+        return product.transform(productResilience::retry);
+    }
+
+    private Mono<ProductDetails> fetchSingleProduct(String productId) {
+        return productHedging.execute(() -> {
+            Mono<ProductDetails> product = productWebClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/product")
+                            .queryParam("productId", productId)
+                            .build())
+                    .retrieve()
+                    .bodyToMono(ProductDetails.class);
+            return metrics.timed("worker.enrichment.upstream", Tags.of("api", "product"), fetched -> "success", product);
+        }).transform(productResilience::circuitBreaker);
     }
 
     /**
-     * Fallback method for customer enrichment in case retries fail.
+     * Calls the Go-based product API for a batch of products, answered by ID.
+     * Unknown products are missing from the answer.
      */
-    public Mono<CustomerDetails> fallbackCustomer(Order
+    private Mono<Map<String, ProductDetails>> fetchProductBatch(List<String> productIds) {
+        return productHedging.execute(() -> {
+            Mono<Map<String, ProductDetails>> products = productWebClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/products")
+                            .queryParam("ids", String.join(",", productIds))
+                            .build())
+                    .retrieve()
+                    .bodyToMono(PRODUCTS_BY_ID);
+            return metrics.timed("worker.enrichment.upstream", Tags.of("api", "product"), fetched -> "success", products);
+        }).transform(productResilience::circuitBreaker);
+    }
+
+    /**
+     * Error of an ID missing from a batch answer, the same as a 404 of the
+     * single-entity endpoints, so unknown IDs are cached as negative entries.
+     */
+    private static WebClientResponseException notFound() {
+        return WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), HttpStatus.NOT_FOUND.getReasonPhrase(),
+                HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    /**
+     * Reads a single cache entry from Redis, timed as worker.cache.redis.
+     */
+    private Mono<byte[]> readCached(String cacheKey, String type) {
+        return metrics.timed("worker.cache.redis", Tags.of("type", type, "operation", "get"),
+                value -> "found", redisTemplate.opsForValue().get(cacheKey));
+    }
+
+    private static List<String> distinctProductIds(OrderMessage orderMessage) {
+        if (orderMessage.getProducts() == null) {
+            return List.of();
+        }
+        return orderMessage.getProducts().stream()
+                .map(Product::getProductId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    private static String productCacheKey(String productId) {
+        return "product:" + productId;
+    }
+
+    /**
+     * Writes a short-lived negative entry for an ID the upstream API does not know.
+     */
+    private Mono<Void> cacheNegative(String cacheKey) {
+        return redisTemplate.opsForValue()
+                .set(cacheKey, cachePolicy.encodeNegative(), cachePolicy.getNegativeTtl())
+                .onErrorResume(error -> Mono.just(false))
+                .then();
+    }
+
+    /**
+     * Stores values just written to Redis in the local cache, and tells the other worker
+     * instances to drop their copy of those that may have changed. A stale refresh
+     * publishes only if the value differs from the stale one. A write after a Redis
+     * miss always publishes: the other instances may still hold a copy of the expired
+     * entry that this instance cannot compare against, and would otherwise serve it
+     * until "worker.cache.local.ttl". This costs one message per Redis expiry, not per
+     * local miss, whether or not stale-while-revalidate is enabled.
+     *
+     * @param values   The written values, by cache key.
+     * @param previous The values they replace, by cache key, for the keys that had one.
+     */
+    private Mono<Void> updateIfChanged(Map<String, ?> values, Map<String, ?> previous) {
+        return Mono.defer(() -> {
+            List<String> changedKeys = values.entrySet().stream()
+                    .filter(entry -> !Objects.equals(previous.get(entry.getKey()), entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            return enrichmentCache.invalidateAll(changedKeys)
+                    .doOnSuccess(ignored -> values.forEach(enrichmentCache::put));
+        });
+    }
+
+    /**
+     * Gives the keys the TTL of their type if they have none, in the background and in
+     * one script call. Called for plain JSON hits, which may have been written by
+     * workers predating expiry metadata without any TTL and would otherwise stay
+     * fresh forever; keys that already have a TTL are left untouched.
+     */
+    private void expireIfPersistent(List<String> keys, Duration ttl) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisTemplate.execute(EXPIRE_IF_PERSISTENT_SCRIPT, keys,
+                        List.of(String.valueOf(cachePolicy.redisTtl(ttl).toMillis()).getBytes(StandardCharsets.UTF_8)))
+                .subscribe(null, error -> log.warn("Error expiring legacy cache entries {}: {}", keys, error.getMessage()));
+    }
+
+    /**
+     * Runs a refresh of a stale key in the background, at most one at a time per key.
+     */
+    private void refreshInBackground(String cacheKey, Supplier<Mono<?>> refresh) {
+        if (!refreshingKeys.add(cacheKey)) {
+            return;
+        }
+        Mono.defer(refresh)
+                .doFinally(signalType -> refreshingKeys.remove(cacheKey))
+                .subscribe(null, error -> log.warn("Error refreshing stale cache entry {}: {}", cacheKey, error.getMessage()));
+    }
+}
@@ -0,0 +1,38 @@
+package com.foo.worker.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * FailedOrderHandler: Interface that defines how an order whose processing failed
+ * is scheduled for another attempt.
+ *
+ * The implementation is selected by "worker.retry.backend":
+ * - redis (default): {@link RedisFailureService}, a Redis retry queue.
+ * - kafka: {@link KafkaRetryService}, tiered Kafka retry topics and a dead-letter topic.
+ */
+public interface FailedOrderHandler {
+
+    /**
+     * Records a failed processing attempt of an order.
+     *
+     * @param orderId          The ID of the failed order.
+     * @param message          The original order message.
+     * @param previousAttempts Failed attempts known from the message itself (0 for a
+     *                         message read from the "orders" topic).
+     * @param reason           Error message of the failed attempt.
+     * @return Mono<Void> that completes once the failure has been recorded.
+     */
+    Mono<Void> handleFailure(String orderId, String message, int previousAttempts, String reason);
+
+    /**
+     * Schedules another attempt of an order that could not be processed because its
+     * lock was held elsewhere. It is not a failure of the order, so no attempt is counted.
+     *
+     * @param orderId          The ID of the order.
+     * @param message          The original order message.
+     * @param previousAttempts Failed attempts known from the message (0 for a
+     *                         message read from the "orders" topic).
+     * @return Mono<Void> that completes once the next attempt has been scheduled.
+     */
+    Mono<Void> reschedule(String orderId, String message, int previousAttempts);
+}
@@ -0,0 +1,152 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * HedgedRequests: Sends a second (hedged) request to an upstream API when the first
+ * one has not answered by a latency percentile, and keeps whichever answers first.
+ *
+ * The hedge delay is the {@code percentile} of the latencies of the last calls
+ * (never below {@code minDelay}), so only the slowest calls, those that would make
+ * the order latency tail, are hedged. The first answer wins, value or error, and the
+ * other request is cancelled. A call that fails before the hedge delay is not hedged:
+ * hedging cuts the tail, it does not retry.
+ *
+ * Hedges are capped to {@code maxHedgeRatio} of the calls (a token bucket refilled by
+ * every call), so a slow upstream does not see its load doubled, and no hedge is sent
+ * if the order deadline would pass before it (see OrderDeadline).
+ */
+public class HedgedRequests {
+
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final double MAX_TOKENS = 10;
+
+    private final String name;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRatio;
+    private final Scheduler timer;
+    private final LongSupplier nanoClock;
+    private final long[] latencies = new long[WINDOW];
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private long samples;
+    private double tokens;
+    private volatile long delayNanos = -1;
+
+    /**
+     * HedgedRequests constructor.
+     * @param name Name of the upstream, used in metrics.
+     * @param enabled Whether calls are hedged at all.
+     * @param percentile Latency percentile (0-1) after which a call is hedged.
+     * @param minDelay Lowest hedge delay.
+     * @param maxHedgeRatio Highest share of calls that can be hedged.
+     */
+    public HedgedRequests(String name, boolean enabled, double percentile, Duration minDelay, double maxHedgeRatio) {
+        this(name, enabled, percentile, minDelay, maxHedgeRatio, Schedulers.parallel(), System::nanoTime);
+    }
+
+    HedgedRequests(String name, boolean enabled, double percentile, Duration minDelay, double maxHedgeRatio,
+                   Scheduler timer, LongSupplier nanoClock) {
+        this.name = name;
+        this.enabled = enabled;
+        this.percentile = Math.min(1, Math.max(0, percentile));
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.timer = timer;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs the call, hedged with a second subscription to it if it is slower than
+     * the hedge delay. Until enough calls have been measured, calls are not hedged.
+     *
+     * @param call Supplier of the Mono that calls the upstream (subscribed once per request).
+     * @return Mono<T> with the first answer of the call or its hedge.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.deferContextual(context -> {
+            long delay = delayNanos;
+            Mono<T> first = measured(call);
+            if (delay < 0 || OrderDeadline.remaining(context).map(left -> left.toNanos() <= delay).orElse(false)) {
+                return first;
+            }
+            Mono<T> shared = first.share();
+            Mono<T> hedged = Mono.delay(Duration.ofNanos(delay), timer)
+                    .flatMap(tick -> tryHedge()
+                            ? Mono.firstWithValue(shared, measured(call).doOnNext(value -> hedgeWins.incrementAndGet()))
+                            : shared);
+            return Mono.firstWithSignal(shared, hedged);
+        });
+    }
+
+    /**
+     * Records the latency of each request; cancelled requests count the time until
+     * they were cancelled.
+     */
+    private <T> Mono<T> measured(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = nanoClock.getAsLong();
+            return Mono.defer(call).doFinally(signalType -> onLatency(nanoClock.getAsLong() - start));
+        });
+    }
+
+    private synchronized void onLatency(long latencyNanos) {
+        latencies[(int) (samples++ % WINDOW)] = latencyNanos;
+        tokens = Math.min(MAX_TOKENS, tokens + maxHedgeRatio);
+        if (samples % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+        }
+    }
+
+    private synchronized boolean tryHedge() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the current hedge delay, or a negative duration while it is not known yet.
+     */
+    public Duration getDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * Returns the number of hedged requests sent so far.
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Returns the number of hedged requests that answered with a value first.
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+}
@@ -0,0 +1,153 @@
+package com.foo.worker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * KafkaRetryService: Retries failed orders through tiered Kafka retry topics
+ * instead of Redis. It is enabled with "worker.retry.backend=kafka".
+ *
+ * The n-th failure of an order publishes the original message to the n-th topic of
+ * "worker.retry.kafka.topics" (by default orders-retry-5s, orders-retry-1m and
+ * orders-retry-10m). Once every tier has been tried, the message goes to
+ * "worker.retry.kafka.dead-letter-topic". The delay of a tier is the suffix of its
+ * topic name, e.g. "5s" or "1m". An order that was locked elsewhere is published
+ * again to the tier of its last failure (the first tier if it has not failed yet),
+ * without counting an attempt.
+ *
+ * Each hop carries headers:
+ * - x-retry-attempt: failed attempts so far.
+ * - x-retry-due-at: epoch millis before which the message must not be processed.
+ * - x-retry-reason: error message of the last failure.
+ *
+ * Retry state lives in Kafka's log. The "orders" partitions keep moving while
+ * retries wait in their own topics.
+ */
+@Service
+@ConditionalOnProperty(name = "worker.retry.backend", havingValue = "kafka")
+public class KafkaRetryService implements FailedOrderHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaRetryService.class);
+
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+    public static final String DUE_AT_HEADER = "x-retry-due-at";
+    public static final String REASON_HEADER = "x-retry-reason";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final List<String> retryTopics;
+    private final List<Duration> retryDelays;
+    private final String deadLetterTopic;
+    private final WorkerMetrics metrics;
+    private final Clock clock;
+
+    @Autowired
+    public KafkaRetryService(KafkaTemplate<String, String> kafkaTemplate,
+                             @Value("${worker.retry.kafka.topics:orders-retry-5s,orders-retry-1m,orders-retry-10m}") List<String> retryTopics,
+                             @Value("${worker.retry.kafka.dead-letter-topic:orders-dlt}") String deadLetterTopic,
+                             WorkerMetrics metrics) {
+        this(kafkaTemplate, retryTopics, deadLetterTopic, metrics, Clock.systemUTC());
+    }
+
+    KafkaRetryService(KafkaTemplate<String, String> kafkaTemplate, List<String> retryTopics,
+                      String deadLetterTopic, WorkerMetrics metrics, Clock clock) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.retryTopics = List.copyOf(retryTopics);
+        this.retryDelays = this.retryTopics.stream().map(KafkaRetryService::delayOf).toList();
+        this.deadLetterTopic = deadLetterTopic;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    /**
+     * Publishes the failed message to the retry topic of its next attempt, or to the
+     * dead-letter topic once every tier has been tried. The orderId is the record
+     * key, so every hop of an order stays on one partition.
+     */
+    @Override
+    public Mono<Void> handleFailure(String orderId, String message, int previousAttempts, String reason) {
+        int attempt = previousAttempts + 1;
+        boolean deadLetter = attempt > retryTopics.size();
+        String topic = deadLetter ? deadLetterTopic : retryTopics.get(attempt - 1);
+        long dueAt = deadLetter ? clock.millis() : clock.millis() + retryDelays.get(attempt - 1).toMillis();
+
+        metrics.countRetry("kafka", deadLetter);
+        if (deadLetter) {
+            log.error(OrderLogContext.ORDER, "Max attempts reached for order: {}. Publishing it to {}", orderId, topic);
+        } else {
+            log.info(OrderLogContext.ORDER, "Publishing failed order {} to {} (attempt {})", orderId, topic, attempt);
+        }
+        return publish(topic, orderId, message, attempt, dueAt, reason);
+    }
+
+    /**
+     * Publishes the message again to the tier of its last failure, keeping its attempt count.
+     */
+    @Override
+    public Mono<Void> reschedule(String orderId, String message, int previousAttempts) {
+        int tier = Math.min(Math.max(previousAttempts, 1), retryTopics.size()) - 1;
+        String topic = retryTopics.get(tier);
+        long dueAt = clock.millis() + retryDelays.get(tier).toMillis();
+
+        metrics.countRetry("kafka", false);
+        log.info(OrderLogContext.ORDER, "Order {} is locked elsewhere, publishing it to {}", orderId, topic);
+        return publish(topic, orderId, message, previousAttempts, dueAt, "Order is already being processed");
+    }
+
+    private Mono<Void> publish(String topic, String orderId, String message, int attempt, long dueAt, String reason) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, orderId, message);
+        record.headers()
+                .add(ATTEMPT_HEADER, String.valueOf(attempt).getBytes(StandardCharsets.UTF_8))
+                .add(DUE_AT_HEADER, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8))
+                .add(REASON_HEADER, String.valueOf(reason).getBytes(StandardCharsets.UTF_8));
+        return Mono.fromFuture(() -> kafkaTemplate.send(record)).then();
+    }
+
+    /**
+     * Returns the retry topics, in tier order.
+     */
+    public List<String> getRetryTopics() {
+        return retryTopics;
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    /**
+     * Reads a numeric retry header, or returns {@code defaultValue} if it is missing or invalid.
+     */
+    public static long headerValue(Headers headers, String name, long defaultValue) {
+        Header header = headers.lastHeader(name);
+        if (header == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Duration delayOf(String topic) {
+        return DurationStyle.SIMPLE.parse(topic.substring(topic.lastIndexOf('-') + 1));
+    }
+}
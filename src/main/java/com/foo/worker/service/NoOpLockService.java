@@ -0,0 +1,30 @@
+package com.foo.worker.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * NoOpLockService: Order lock used when "worker.lock.mode" is "none".
+ *
+ * Order storage is an idempotent upsert on a unique orderId, so processing the same
+ * order twice only rewrites the same document. When that is acceptable, the lock
+ * can be skipped entirely, which saves its Redis round trips on every order.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "worker.lock.mode", havingValue = "none")
+public class NoOpLockService implements RedisLockService {
+
+    @Override
+    public Mono<Boolean> acquireLock(String orderId) {
+        return Mono.just(true);
+    }
+
+    @Override
+    public Mono<Boolean> releaseLock(String orderId) {
+        return Mono.just(true);
+    }
+}
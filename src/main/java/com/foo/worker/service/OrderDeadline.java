@@ -0,0 +1,77 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * OrderDeadline: Overall time budget of an order, shared by every stage of its
+ * processing (lock, enrichment, save).
+ *
+ * The deadline is an absolute System.nanoTime() carried in the Reactor context, so
+ * every stage sees what is left of the same budget rather than a timeout of its own:
+ * the stages can skip work that cannot finish in time (e.g. hedged requests, see
+ * HedgedRequests), and the whole processing fails with a TimeoutException once the
+ * budget is spent, cancelling whatever stage is still running.
+ *
+ * Usage:
+ * <pre>
+ * OrderDeadline.within(Duration.ofSeconds(10), lock.then(enrichment).then(save))
+ * </pre>
+ */
+public final class OrderDeadline {
+
+    static final String CONTEXT_KEY = "worker.order.deadline";
+
+    private OrderDeadline() {
+    }
+
+    /**
+     * Runs the source within the budget. A zero or negative budget disables the
+     * deadline; a deadline already in the context is kept if it is earlier.
+     *
+     * @return Mono<T> of the source, or an error with TimeoutException once the budget is spent.
+     */
+    public static <T> Mono<T> within(Duration budget, Mono<T> source) {
+        if (budget.isZero() || budget.isNegative()) {
+            return source;
+        }
+        return Mono.deferContextual(context -> source.timeout(remaining(context).orElse(budget),
+                        Mono.error(() -> new TimeoutException("Order deadline of " + budget.toMillis() + "ms exceeded"))))
+                .contextWrite(context -> withBudget(context, budget));
+    }
+
+    /**
+     * Returns the context with a deadline {@code budget} from now, unless it already
+     * holds an earlier one.
+     */
+    public static Context withBudget(Context context, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        Long current = context.getOrDefault(CONTEXT_KEY, null);
+        return current != null && current - deadline <= 0 ? context : context.put(CONTEXT_KEY, deadline);
+    }
+
+    /**
+     * Returns the context without a deadline, for work shared by several orders
+     * (see SingleFlight) that no single order's budget should cut short.
+     */
+    public static Context without(Context context) {
+        return context.delete(CONTEXT_KEY);
+    }
+
+    /**
+     * Returns the time left before the deadline of the context (zero once it has
+     * passed), or empty if the context has no deadline.
+     */
+    public static Optional<Duration> remaining(ContextView context) {
+        Long deadline = context.getOrDefault(CONTEXT_KEY, null);
+        if (deadline == null) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+    }
+}
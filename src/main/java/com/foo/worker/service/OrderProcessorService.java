@@ -1,5 +1,7 @@
 package com.foo.worker.service;
 
+import java.util.List;
+
 import com.foo.worker.models.CustomerDetails;
 import com.foo.worker.models.Order;
 import com.foo.worker.models.OrderMessage;
@@ -17,4 +19,18 @@ public interface OrderProcessorService {
 
     Order createEnrichedOrder(OrderMessage orderMessage, CustomerDetails customer, ProductDetails product);
 
+    Order createEnrichedOrder(OrderMessage orderMessage, CustomerDetails customer, List<ProductDetails> products);
+
+    /**
+     * Error of an order whose lock is held by another consumer or instance: the order
+     * is not failing, it just has to be tried again later.
+     */
+    class OrderLockedException extends RuntimeException {
+
+        public OrderLockedException() {
+            // no stack trace: expected whenever two deliveries of an order overlap
+            super("Order is already being processed", null, false, false);
+        }
+    }
+
 }
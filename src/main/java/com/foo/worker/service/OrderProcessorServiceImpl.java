@@ -1,30 +1,53 @@
 package com.foo.worker.service;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
 import com.foo.worker.models.CustomerDetails;
 import com.foo.worker.models.Order;
 import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
 import com.foo.worker.models.ProductDetails;
 
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 /**
  * OrderProcessorServiceImpl: Processes incoming order messages received from Kafka.
  *
  * Main functionality:
- * - Enriches customer and product data through external Go-based APIs.
+ * - Enriches customer data and every product of the order through external Go-based APIs.
  * - Persists enriched orders in MongoDB.
- * - Manages concurrency using Redis locks to prevent duplicate processing.
+ * - Takes an order lock to prevent duplicate processing (see Dependencies).
+ * - Bounds each order by one deadline ("worker.order.deadline") shared by the lock,
+ *   the enrichment and the save (OrderDeadline). Customer and product enrichment
+ *   run concurrently.
  *
  * Error Handling:
- * - Applies automatic retries using Resilience4j for API failures.
- * - Ensures single processing of orders using distributed locks in Redis.
+ * - Go API failures are retried and circuit-broken per API by ResiliencePolicy,
+ *   inside EnrichmentService; an order that still fails is left to the caller
+ *   (the Kafka consumers hand it to the FailedOrderHandler, which schedules a retry
+ *   on the "worker.retry.backend").
+ * - An order whose lock is held elsewhere fails with an OrderLockedException
+ *   ("Order is already being processed"), which is rescheduled rather than counted
+ *   as a failed attempt.
  *
  * Dependencies:
  * - EnrichmentService: Handles customer and product data enrichment.
  * - OrderStorageService: Persists orders in MongoDB.
- * - RedisLockService: Manages distributed locks with Redis.
+ * - RedisLockService: Order lock, picked by "worker.lock.mode": Redis
+ *   (RedisLockServiceImpl), in-memory per owned partition then Redis
+ *   (PartitionAffinityLockService), or none (NoOpLockService).
+ * - WorkerMetrics: Times each order and tracks the orders in flight.
  * 
  * @author Freyder Otalvaro
  * @version 1.2
@@ -33,24 +56,33 @@ import reactor.core.publisher.Mono;
 @Service
 public class OrderProcessorServiceImpl implements OrderProcessorService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderProcessorServiceImpl.class);
+
     private final EnrichmentService enrichmentService;
     private final OrderStorageService orderStorageService;
     private final RedisLockService redisLockService;
+    private final WorkerMetrics metrics;
+    private final Duration orderDeadline;
 
     /**
      * Constructor that initializes the required services for order processing.
      */
     public OrderProcessorServiceImpl(EnrichmentService enrichmentService,
                                      OrderStorageService orderStorageService,
-                                     RedisLockService redisLockService) {
+                                     RedisLockService redisLockService,
+                                     WorkerMetrics metrics,
+                                     @Value("${worker.order.deadline:10s}") Duration orderDeadline) {
         this.enrichmentService = enrichmentService;
         this.orderStorageService = orderStorageService;
         this.redisLockService = redisLockService;
+        this.metrics = metrics;
+        this.orderDeadline = orderDeadline;
     }
 
     /**
      * Processes an incoming order message received from Kafka.
      * Enriches customer and product data, validates them, and stores the order in MongoDB.
+     * The Mono fails with a TimeoutException if the order deadline ("worker.order.deadline") passes.
      *
      * @param orderMessage The message containing basic order data from Kafka.
      * @return Mono<Order> A reactive stream representing the result of the processing.
@@ -58,31 +90,33 @@ public class OrderProcessorServiceImpl implements OrderProcessorService {
      */
     @Override
     public Mono<Order> processOrder(OrderMessage orderMessage) {
-        // Try to acquire a lock before processing the order
-        return redisLockService.acquireLock(orderMessage.getOrderId())
-                .flatMap(acquired -> {
+        // Try to acquire a lock before processing the order, all within the order deadline
+        return metrics.timeOrder(OrderDeadline.within(orderDeadline, redisLockService.acquireLock(orderMessage.getOrderId())
+                .flatMap(acquired -> Mono.deferContextual(context -> {
                     if (!acquired) {
                         // If the lock could not be acquired, stop processing
-                        return Mono.error(new RuntimeException("Order is already being processed"));
+                        return Mono.error(new OrderLockedException());
                     }
 
                     // If the lock is acquired, proceed with enrichment
                     return enrichmentService.enrichCustomerWithResilience(orderMessage)
-                            .zipWith(enrichmentService.enrichProductWithResilience(orderMessage))
+                            .zipWith(enrichmentService.enrichProductsWithResilience(orderMessage))
+                            .doOnEach(OrderLogContext.onNext(tuple -> log.debug(OrderLogContext.ORDER,
+                                    "Enriched data: Customer: {}, Products: {}", tuple.getT1(), tuple.getT2())))
                             .flatMap(tuple -> {
                                 CustomerDetails customer = tuple.getT1();
-                                ProductDetails product = tuple.getT2();
+                                List<ProductDetails> products = tuple.getT2();
 
                                 if (!customer.getActive()) {
                                     return Mono.error(new RuntimeException("Inactive customer"));
                                 }
 
-                                if (product == null || product.getProductId() == null) {
+                                if (products == null || products.isEmpty()
+                                        || products.stream().anyMatch(product -> product == null || product.getProductId() == null)) {
                                     return Mono.error(new RuntimeException("Product not found"));
                                 }
 
-                                System.out.println("Enriched data: Customer: " + customer + ", Product: " + product);
-                                Order order = createEnrichedOrder(orderMessage, customer, product);
+                                Order order = createEnrichedOrder(orderMessage, customer, products);
                                 return orderStorageService.saveOrder(order);
                             })
                             .doFinally(signalType -> {
@@ -90,15 +124,15 @@ public class OrderProcessorServiceImpl implements OrderProcessorService {
                                     .defaultIfEmpty(false)
                                     .subscribe(success -> {
                                         if (!success) {
-                                            System.out.println("Failed to release lock for order: " + orderMessage.getOrderId());
+                                            log.info(OrderLogContext.ORDER, "Failed to release lock for order: {}", orderMessage.getOrderId());
                                         } else {
-                                            System.out.println("Lock released for order: " + orderMessage.getOrderId());
+                                            log.debug(OrderLogContext.ORDER, "Lock released for order: {}", orderMessage.getOrderId());
                                         }
                                     }, error -> {
-                                        System.out.println("Error releasing lock: " + error.getMessage());
-                                    });
+                                        log.warn(OrderLogContext.ORDER, "Error releasing lock: {}", error.getMessage());
+                                    }, null, Context.of(context)); // keeps the order's IDs and trace for the release
                             });
-                });
+                }))));
     }
 
     /**
@@ -111,10 +145,45 @@ public class OrderProcessorServiceImpl implements OrderProcessorService {
      */
     @Override
     public Order createEnrichedOrder(OrderMessage orderMessage, CustomerDetails customer, ProductDetails product) {
+        return createEnrichedOrder(orderMessage, customer, List.of(product));
+    }
+
+    /**
+     * Creates an enriched Order object using data from Kafka and the enrichment APIs.
+     * Product lines missing a name or price are completed from the matching product details.
+     *
+     * @param orderMessage The message containing basic order information.
+     * @param customer     The enriched customer details.
+     * @param products     The enriched details of the products in the order.
+     * @return Order The fully enriched order object ready for persistence.
+     */
+    @Override
+    public Order createEnrichedOrder(OrderMessage orderMessage, CustomerDetails customer, List<ProductDetails> products) {
         Order order = new Order();
         order.setOrderId(orderMessage.getOrderId());
         order.setCustomerId(customer.getCustomerId());
-        order.setProducts(orderMessage.getProducts());
+        order.setProducts(enrichProducts(orderMessage.getProducts(), products));
         return order;
     }
+
+    private List<Product> enrichProducts(List<Product> lines, List<ProductDetails> products) {
+        if (lines == null) {
+            return null;
+        }
+        Map<String, ProductDetails> detailsById = new HashMap<>();
+        for (ProductDetails details : products) {
+            detailsById.putIfAbsent(details.getProductId(), details);
+        }
+        return lines.stream()
+                .map(line -> {
+                    ProductDetails details = detailsById.get(line.getProductId());
+                    if (details == null) {
+                        return line;
+                    }
+                    return new Product(line.getProductId(),
+                            line.getName() != null ? line.getName() : details.getName(),
+                            line.getPrice() != null ? line.getPrice() : details.getPrice());
+                })
+                .toList();
+    }
 }
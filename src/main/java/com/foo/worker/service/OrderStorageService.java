@@ -2,6 +2,7 @@ package com.foo.worker.service;
 
 import com.foo.worker.models.Order;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -10,4 +11,12 @@ import reactor.core.publisher.Mono;
  */
 public interface OrderStorageService {
     Mono<Order> saveOrder(Order order);
+
+    Flux<Order> saveOrders(Flux<Order> orders);
+
+    /**
+     * Returns the most recently stored orders, newest first, with their customerId
+     * and productIds only (used to warm up the enrichment caches).
+     */
+    Flux<Order> findRecentOrders(int limit);
 }
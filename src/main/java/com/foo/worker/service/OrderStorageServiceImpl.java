@@ -1,31 +1,347 @@
 package com.foo.worker.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.foo.worker.metrics.WorkerMetrics;
 import com.foo.worker.models.Order;
-import com.foo.worker.repository.OrderRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
 
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 /**
- * OrderStorageServiceImpl: Service implementation responsible for storing 
- * enriched orders into MongoDB using a reactive repository.
+ * OrderStorageServiceImpl: Service implementation responsible for storing
+ * enriched orders into MongoDB.
+ *
+ * Writes are idempotent: every order is an upsert matched on orderId, which has a
+ * unique index (see MongoIndexConfig), so a Kafka redelivery overwrites the stored
+ * order instead of inserting a duplicate. A duplicate-key error, raised when two
+ * upserts of a new orderId race, means the order is already stored and is
+ * reported as success.
+ *
+ * When "worker.mongo.batch.enabled" is true, single saves are funnelled into a
+ * micro-batching writer: orders are buffered until "worker.mongo.batch.size"
+ * documents or "worker.mongo.batch.flush-interval" elapse, then written with one
+ * unordered bulkWrite of upserts keyed on orderId. Each caller still receives
+ * its own completion (or error) signal, with the _id of the stored document:
+ * taken from the bulk write result for inserted orders, and read back in one
+ * query for orders that matched an existing document.
+ *
+ * Every save is timed as worker.order.save, and every bulk write as
+ * worker.order.bulk-write.
  */
 @Service
-public class OrderStorageServiceImpl implements OrderStorageService {
+public class OrderStorageServiceImpl implements OrderStorageService, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStorageServiceImpl.class);
+
+    private static final int DUPLICATE_KEY = 11000;
 
-    @Autowired
-    private OrderRepository orderRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final WorkerMetrics metrics;
+    private final boolean batchEnabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+
+    private final Sinks.Many<PendingWrite> pendingWrites = Sinks.many().unicast().onBackpressureBuffer();
 
     /**
-     * Saves the enriched order into MongoDB.
+     * Constructor that initializes the template used for upserts and the
+     * micro-batching settings.
+     */
+    public OrderStorageServiceImpl(ReactiveMongoTemplate reactiveMongoTemplate,
+                                   @Value("${worker.mongo.batch.enabled:false}") boolean batchEnabled,
+                                   @Value("${worker.mongo.batch.size:500}") int batchSize,
+                                   @Value("${worker.mongo.batch.flush-interval:20ms}") Duration flushInterval,
+                                   @Value("${worker.mongo.batch.max-concurrent-flushes:4}") int maxConcurrentFlushes,
+                                   WorkerMetrics metrics) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.metrics = metrics;
+        this.batchEnabled = batchEnabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = flushInterval;
+        if (batchEnabled) {
+            pendingWrites.asFlux()
+                    .bufferTimeout(this.batchSize, flushInterval, true)
+                    .flatMap(this::flush, Math.max(1, maxConcurrentFlushes))
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Saves the enriched order into MongoDB, replacing any order stored with the same orderId.
      *
      * @param order The enriched order to be persisted.
      * @return Mono<Order> representing the saved order.
      */
     @Override
     public Mono<Order> saveOrder(Order order) {
-        return orderRepository.save(order);
+        Mono<Order> save;
+        if (!batchEnabled) {
+            save = Mono.defer(() -> reactiveMongoTemplate.findAndModify(byOrderId(order), toUpsert(order),
+                            FindAndModifyOptions.options().upsert(true).returnNew(true), Order.class))
+                    .onErrorResume(DuplicateKeyException.class, error -> reactiveMongoTemplate
+                            .findOne(byOrderId(order), Order.class)
+                            .defaultIfEmpty(order));
+        } else {
+            save = Mono.defer(() -> {
+                PendingWrite pendingWrite = new PendingWrite(order);
+                pendingWrites.emitNext(pendingWrite, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+                return pendingWrite.result.asMono();
+            });
+        }
+        return metrics.timed("worker.order.save", Tags.of("mode", batchEnabled ? "batch" : "single"),
+                saved -> "success", save);
+    }
+
+    /**
+     * Saves a stream of orders, buffering them by size or time window and writing
+     * each buffer like a micro-batch (see flush). An order whose document fails is
+     * logged and skipped; the stream only fails if a bulk write fails as a whole.
+     *
+     * @param orders The enriched orders to be persisted.
+     * @return Flux<Order> emitting each stored order, with its _id, once its batch has been written.
+     */
+    @Override
+    public Flux<Order> saveOrders(Flux<Order> orders) {
+        return orders.map(PendingWrite::new)
+                .bufferTimeout(batchSize, flushInterval, true)
+                .concatMap(batch -> write(batch).thenMany(Flux.fromIterable(batch)
+                        .concatMap(pendingWrite -> pendingWrite.result.asMono()
+                                .onErrorResume(error -> {
+                                    log.warn("Skipping order {} that could not be saved: {}",
+                                            pendingWrite.order.getOrderId(), error.getMessage());
+                                    return Mono.empty();
+                                }))));
+    }
+
+    /**
+     * Reads the latest orders by _id (ObjectIds grow with insertion time), projected
+     * on customerId and products.productId.
+     *
+     * @param limit Number of orders to read.
+     * @return Flux<Order> of the most recent orders, newest first.
+     */
+    @Override
+    public Flux<Order> findRecentOrders(int limit) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "_id")).limit(limit);
+        query.fields().include("customerId").include("products.productId");
+        return reactiveMongoTemplate.find(query, Order.class);
+    }
+
+    /**
+     * Writes a buffered batch of the micro-batching writer; see write. Errors are
+     * only signalled to the callers, so the writer keeps running.
+     */
+    private Mono<Void> flush(List<PendingWrite> batch) {
+        return write(batch).onErrorResume(error -> Mono.empty());
+    }
+
+    /**
+     * Writes a batch and signals every waiting caller. With an unordered bulk write,
+     * failed documents are reported individually and the rest succeed; duplicate-key
+     * errors count as success. Successful orders get the _id of their stored document.
+     *
+     * @return Mono<Void> that completes once every caller has been signalled, or fails
+     *         (after failing every caller) if the bulk write failed as a whole.
+     */
+    private Mono<Void> write(List<PendingWrite> batch) {
+        List<Order> orders = batch.stream().map(pendingWrite -> pendingWrite.order).toList();
+        return bulkUpsert(orders)
+                .map(result -> new WrittenBatch(result, Map.of()))
+                .onErrorResume(error -> {
+                    Map<Integer, BulkWriteError> failures = writeErrors(error);
+                    return failures.isEmpty()
+                            ? Mono.error(error)
+                            : Mono.just(new WrittenBatch(writeResult(error), failures));
+                })
+                .flatMap(written -> storeIds(batch, written))
+                .doOnError(error -> batch.forEach(pendingWrite -> pendingWrite.fail(error)));
+    }
+
+    /**
+     * The outcome of a bulk write: its result (null if unknown) and the per-document
+     * errors, indexed by position in the batch.
+     */
+    private record WrittenBatch(BulkWriteResult result, Map<Integer, BulkWriteError> failures) { }
+
+    /**
+     * Executes one unordered bulk write with an upsert per order, matched on orderId.
+     */
+    private Mono<BulkWriteResult> bulkUpsert(List<Order> orders) {
+        Mono<BulkWriteResult> bulkWrite = Mono.defer(() -> {
+            ReactiveBulkOperations bulkOps = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, Order.class);
+            for (Order order : orders) {
+                bulkOps.upsert(byOrderId(order), toUpsert(order));
+            }
+            return bulkOps.execute();
+        });
+        return metrics.timed("worker.order.bulk-write", Tags.empty(), result -> "success", bulkWrite);
+    }
+
+    /**
+     * Sets the _id of the stored document on every order of a written batch and signals
+     * its caller: failed documents fail, the rest succeed. The _id of an inserted order
+     * comes from the upserts of the bulk write result; orders that matched an existing
+     * document (or lost a duplicate-key race) keep the stored _id, which is read back
+     * with one query. If that read fails, those orders succeed without an _id.
+     */
+    private Mono<Void> storeIds(List<PendingWrite> batch, WrittenBatch written) {
+        Map<Integer, String> insertedIds = new HashMap<>();
+        if (written.result() != null && written.result().wasAcknowledged()) {
+            for (BulkWriteUpsert upsert : written.result().getUpserts()) {
+                BsonValue id = upsert.getId();
+                insertedIds.put(upsert.getIndex(),
+                        id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue());
+            }
+        }
+        List<PendingWrite> succeeded = new ArrayList<>();
+        List<String> matchedOrderIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite pendingWrite = batch.get(i);
+            BulkWriteError failure = written.failures().get(i);
+            if (failure != null && failure.getCode() != DUPLICATE_KEY) {
+                pendingWrite.fail(new RuntimeException("Error saving order: " + failure.getMessage()));
+                continue;
+            }
+            succeeded.add(pendingWrite);
+            if (insertedIds.containsKey(i)) {
+                pendingWrite.order.setId(insertedIds.get(i));
+            } else {
+                matchedOrderIds.add(pendingWrite.order.getOrderId());
+            }
+        }
+        Mono<Map<String, String>> storedIds = matchedOrderIds.isEmpty()
+                ? Mono.just(Map.of())
+                : findIds(matchedOrderIds);
+        return storedIds
+                .doOnNext(ids -> {
+                    for (PendingWrite pendingWrite : succeeded) {
+                        if (ids.containsKey(pendingWrite.order.getOrderId())) {
+                            pendingWrite.order.setId(ids.get(pendingWrite.order.getOrderId()));
+                        }
+                        pendingWrite.succeed();
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Reads the _id of the stored orders with the given orderIds, by orderId.
+     */
+    private Mono<Map<String, String>> findIds(List<String> orderIds) {
+        Query query = Query.query(Criteria.where("orderId").in(orderIds));
+        query.fields().include("orderId");
+        return reactiveMongoTemplate.find(query, Order.class)
+                .collectMap(Order::getOrderId, Order::getId)
+                .onErrorResume(error -> {
+                    log.warn("Error reading the _id of stored orders: {}", error.getMessage());
+                    return Mono.just(Map.of());
+                });
+    }
+
+    private static Query byOrderId(Order order) {
+        return Query.query(Criteria.where("orderId").is(order.getOrderId()));
+    }
+
+    /**
+     * Builds the upsert of an order: every field but the _id is set, so an existing
+     * order keeps its _id. A new order is inserted with its own _id if it has one,
+     * or with one generated by MongoDB.
+     */
+    private Update toUpsert(Order order) {
+        Document document = new Document();
+        reactiveMongoTemplate.getConverter().write(order, document);
+        Update update = Update.fromDocument(document, "_id");
+        return document.get("_id") != null ? update.setOnInsert("_id", document.get("_id")) : update;
+    }
+
+    /**
+     * Extracts the result of the documents that were written from a failed bulk write, if any.
+     */
+    private static BulkWriteResult writeResult(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getResult();
+            } else if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                return mongoBulkWriteException.getWriteResult();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extracts the per-document errors of a bulk write, indexed by position in the batch.
+     */
+    private static Map<Integer, BulkWriteError> writeErrors(Throwable error) {
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            List<BulkWriteError> writeErrors = null;
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                writeErrors = bulkOperationException.getErrors();
+            } else if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                writeErrors = mongoBulkWriteException.getWriteErrors();
+            }
+            if (writeErrors != null) {
+                writeErrors.forEach(writeError -> errors.put(writeError.getIndex(), writeError));
+                return errors;
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Completes the writer on shutdown so buffered orders are flushed one last time.
+     */
+    @Override
+    public void destroy() {
+        pendingWrites.tryEmitComplete();
+    }
+
+    /**
+     * An order waiting for its batch to be flushed, paired with the caller's result.
+     */
+    private static final class PendingWrite {
+        private final Order order;
+        private final Sinks.One<Order> result = Sinks.one();
+
+        private PendingWrite(Order order) {
+            this.order = order;
+        }
+
+        private void succeed() {
+            result.tryEmitValue(order);
+        }
+
+        private void fail(Throwable error) {
+            result.tryEmitError(error);
+        }
     }
 }
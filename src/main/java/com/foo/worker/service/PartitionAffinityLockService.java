@@ -0,0 +1,85 @@
+package com.foo.worker.service;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * PartitionAffinityLockService: Order lock used when "worker.lock.mode" is "partition".
+ *
+ * The Kafka consumer marks the processing of a record keyed by its orderId with
+ * {@link #withPartition}, i.e. when every message of the order is routed to that
+ * partition. Such orders only take an in-memory lock through
+ * {@link PartitionLockRegistry} while the partition is owned: a duplicate delivered
+ * to this instance is turned away, and no Redis call is made.
+ *
+ * The local lock is enough because in this mode every order reaches processing
+ * through its own partition: retries (Redis retry queue or Kafka retry topics) and
+ * records not keyed by their orderId are published again to "orders", keyed by
+ * orderId (see PartitionAffinityRouter), instead of being processed where they were
+ * read. A record whose partition was revoked meanwhile is refused, so it is
+ * rescheduled and comes back through the partition's new owner. Only a caller that
+ * does not go through the consumer (no partition in the context) takes the Redis
+ * lock ({@link RedisLockServiceImpl}), which excludes other such callers only.
+ *
+ * Each delivery is the owner of the lock it takes, so a release only drops the lock
+ * of the same delivery, never one taken meanwhile by another delivery of the order.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "worker.lock.mode", havingValue = "partition")
+public class PartitionAffinityLockService implements RedisLockService {
+
+    public static final String PARTITION_CONTEXT_KEY = "worker.kafka.partition";
+
+    private final RedisLockServiceImpl redisLockService;
+    private final PartitionLockRegistry partitionLockRegistry;
+
+    public PartitionAffinityLockService(RedisLockServiceImpl redisLockService, PartitionLockRegistry partitionLockRegistry) {
+        this.redisLockService = redisLockService;
+        this.partitionLockRegistry = partitionLockRegistry;
+    }
+
+    /**
+     * Returns the context of the processing of a record read from the partition: a
+     * new delivery, which owns the local lock it takes.
+     */
+    public static Context withPartition(Context context, TopicPartition partition) {
+        return context.put(PARTITION_CONTEXT_KEY, new Delivery(partition));
+    }
+
+    @Override
+    public Mono<Boolean> acquireLock(String orderId) {
+        return Mono.deferContextual(context -> context.<Delivery>getOrEmpty(PARTITION_CONTEXT_KEY)
+                .map(delivery -> Mono.just(partitionLockRegistry.tryLock(orderId, delivery.partition, delivery)))
+                .orElseGet(() -> redisLockService.acquireLock(orderId)));
+    }
+
+    @Override
+    public Mono<Boolean> releaseLock(String orderId) {
+        return Mono.deferContextual(context -> context.<Delivery>getOrEmpty(PARTITION_CONTEXT_KEY)
+                .map(delivery -> Mono.just(partitionLockRegistry.unlock(orderId, delivery.partition, delivery)))
+                .orElseGet(() -> redisLockService.releaseLock(orderId)));
+    }
+
+    /**
+     * The processing of one record, compared by identity.
+     */
+    private static final class Delivery {
+
+        private final TopicPartition partition;
+
+        private Delivery(TopicPartition partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public String toString() {
+            return partition.toString();
+        }
+    }
+}
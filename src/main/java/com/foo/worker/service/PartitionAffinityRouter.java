@@ -0,0 +1,59 @@
+package com.foo.worker.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.foo.worker.logging.OrderLogContext;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * PartitionAffinityRouter: Routes orders back to the partition that owns them when
+ * "worker.lock.mode" is "partition".
+ *
+ * An order that is due for a retry (Redis retry queue or Kafka retry topics), or that
+ * was read from a record not keyed by its orderId, is not processed where it was
+ * read: it is published again to the "orders" topic keyed by its orderId. The
+ * instance owning that partition then processes it under its local lock only (see
+ * PartitionAffinityLockService), so no order needs the Redis lock. The failed
+ * attempts so far travel in the x-retry-attempt header, so the retry backend keeps
+ * counting them.
+ */
+@Service
+@ConditionalOnProperty(name = "worker.lock.mode", havingValue = "partition")
+public class PartitionAffinityRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionAffinityRouter.class);
+
+    public static final String ORDERS_TOPIC = "orders";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public PartitionAffinityRouter(KafkaTemplate<String, String> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Publishes the order to the "orders" topic, keyed by its orderId.
+     *
+     * @param orderId          The ID of the order.
+     * @param message          The order message (JSON).
+     * @param previousAttempts Failed attempts of the order so far.
+     * @return Mono<Void> that completes once the record has been sent.
+     */
+    public Mono<Void> route(String orderId, String message, int previousAttempts) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(ORDERS_TOPIC, orderId, message);
+        if (previousAttempts > 0) {
+            record.headers().add(KafkaRetryService.ATTEMPT_HEADER,
+                    String.valueOf(previousAttempts).getBytes(StandardCharsets.UTF_8));
+        }
+        log.debug(OrderLogContext.ORDER, "Routing order {} to its partition (attempts: {})", orderId, previousAttempts);
+        return Mono.fromFuture(() -> kafkaTemplate.send(record)).then();
+    }
+}
@@ -0,0 +1,95 @@
+package com.foo.worker.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * PartitionLockRegistry: In-memory order locks whose ownership follows Kafka
+ * partition assignment.
+ *
+ * Kafka delivers every record of a partition to exactly one consumer of the group,
+ * so while this instance owns a partition, its records of an order keyed to it are
+ * only delivered here and a local lock turns away duplicates (retries are routed
+ * back to the order's partition, see PartitionAffinityRouter). Each lock is held by
+ * an owner, the delivery that took it, and only that owner releases it. Locks are
+ * tied to the partition of the record that took them and are dropped when that
+ * partition is revoked or lost.
+ *
+ * Spring Boot registers this bean as the rebalance listener of every listener
+ * container; the reactive receiver forwards its assign/revoke events to
+ * {@link #assign} and {@link #revoke}.
+ */
+@Component
+@ConditionalOnProperty(name = "worker.lock.mode", havingValue = "partition")
+public class PartitionLockRegistry implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionLockRegistry.class);
+
+    private final Set<TopicPartition> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Lock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Returns whether this instance currently owns the partition.
+     */
+    public boolean owns(TopicPartition partition) {
+        return ownedPartitions.contains(partition);
+    }
+
+    /**
+     * Takes the local lock of an order read from an owned partition.
+     *
+     * @param owner Owner of the lock, compared by identity on release.
+     * @return true if the lock was free.
+     */
+    public boolean tryLock(String orderId, TopicPartition partition, Object owner) {
+        return owns(partition) && locks.putIfAbsent(orderId, new Lock(partition, owner)) == null;
+    }
+
+    /**
+     * Releases the local lock of an order if the owner still holds it.
+     *
+     * @return true if the owner held the lock.
+     */
+    public boolean unlock(String orderId, TopicPartition partition, Object owner) {
+        return locks.remove(orderId, new Lock(partition, owner));
+    }
+
+    public void assign(Collection<TopicPartition> partitions) {
+        ownedPartitions.addAll(partitions);
+        log.info("Partitions assigned: {}", partitions);
+    }
+
+    public void revoke(Collection<TopicPartition> partitions) {
+        ownedPartitions.removeAll(partitions);
+        locks.values().removeIf(lock -> partitions.contains(lock.partition()));
+        log.info("Partitions revoked: {}", partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        assign(partitions);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions);
+    }
+
+    private record Lock(TopicPartition partition, Object owner) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.foo.worker.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * RedisCachePolicy: Expiration rules and entry format for the "customer:" and
+ * "product:" entries cached in Redis.
+ *
+ * Entry formats ("worker.cache.redis.format" selects the one used for writes;
+ * all of them are read, so JSON and binary entries coexist during a rollout):
+ * - JSON: "<freshUntilEpochMillis>|<json>" as UTF-8 text. Without stale-while-revalidate
+ *   the freshness is not needed (entries expire from Redis when they go stale), so
+ *   positive entries are written as plain JSON, which workers predating the expiry
+ *   metadata can read too.
+ * - SMILE: version byte 0x01, 8-byte big-endian freshUntilEpochMillis, then the
+ *   value as Jackson Smile (binary JSON), which is smaller and cheaper to parse.
+ * - Legacy: plain JSON written before expiry metadata existed, always fresh. Those
+ *   workers set no Redis TTL either, so such entries would never expire: every plain
+ *   JSON hit is reported as {@link Entry#plain()} and EnrichmentServiceImpl gives the
+ *   key the TTL of its type if it has none (plain JSON written by this version
+ *   already has one and is left untouched).
+ * An empty payload is a negative entry (the upstream API does not know the ID).
+ *
+ * Expiration:
+ * - Positive entries are fresh for the TTL of their entity type.
+ * - Negative entries live for "worker.cache.redis.negative-ttl".
+ * - With stale-while-revalidate enabled, positive entries stay in Redis for an
+ *   extra "worker.cache.redis.stale-window" during which they are served stale
+ *   while a single background refresh updates them.
+ */
+@Component
+public class RedisCachePolicy {
+
+    private static final char SEPARATOR = '|';
+
+    /** Version byte of the binary format; text entries always start with a digit or '{'. */
+    static final byte SMILE_V1 = 0x01;
+    private static final int HEADER_LENGTH = 1 + Long.BYTES;
+
+    private final Duration customerTtl;
+    private final Duration productTtl;
+    private final Duration negativeTtl;
+    private final boolean staleWhileRevalidate;
+    private final Duration staleWindow;
+    private final Format format;
+    private final Clock clock;
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    public RedisCachePolicy(@Value("${worker.cache.redis.customer-ttl:1h}") Duration customerTtl,
+                            @Value("${worker.cache.redis.product-ttl:1h}") Duration productTtl,
+                            @Value("${worker.cache.redis.negative-ttl:1m}") Duration negativeTtl,
+                            @Value("${worker.cache.redis.stale-while-revalidate:false}") boolean staleWhileRevalidate,
+                            @Value("${worker.cache.redis.stale-window:10m}") Duration staleWindow,
+                            @Value("${worker.cache.redis.format:json}") Format format) {
+        this(customerTtl, productTtl, negativeTtl, staleWhileRevalidate, staleWindow, format, Clock.systemUTC());
+    }
+
+    RedisCachePolicy(Duration customerTtl, Duration productTtl, Duration negativeTtl,
+                     boolean staleWhileRevalidate, Duration staleWindow, Format format, Clock clock) {
+        this.customerTtl = customerTtl;
+        this.productTtl = productTtl;
+        this.negativeTtl = negativeTtl;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.staleWindow = staleWindow;
+        this.format = format;
+        this.clock = clock;
+    }
+
+    public Duration getCustomerTtl() {
+        return customerTtl;
+    }
+
+    public Duration getProductTtl() {
+        return productTtl;
+    }
+
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * Returns how long a positive entry with the given freshness stays in Redis.
+     */
+    public Duration redisTtl(Duration freshTtl) {
+        return staleWhileRevalidate ? freshTtl.plus(staleWindow) : freshTtl;
+    }
+
+    /**
+     * Encodes a positive entry that is fresh for {@code freshTtl}, in the configured format.
+     */
+    public byte[] encode(Object value, Duration freshTtl) throws IOException {
+        long freshUntil = clock.millis() + freshTtl.toMillis();
+        if (format == Format.JSON && !staleWhileRevalidate) {
+            return jsonMapper.writeValueAsBytes(value);
+        }
+        if (format == Format.JSON) {
+            return (freshUntil + String.valueOf(SEPARATOR) + jsonMapper.writeValueAsString(value))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        return withHeader(freshUntil, smileMapper.writeValueAsBytes(value));
+    }
+
+    /**
+     * Encodes a negative entry, in the configured format.
+     */
+    public byte[] encodeNegative() {
+        long freshUntil = clock.millis() + negativeTtl.toMillis();
+        if (format == Format.JSON) {
+            return (freshUntil + String.valueOf(SEPARATOR)).getBytes(StandardCharsets.UTF_8);
+        }
+        return withHeader(freshUntil, new byte[0]);
+    }
+
+    /**
+     * Decodes a raw Redis value written in any supported format.
+     *
+     * @throws IOException If the payload cannot be deserialized into {@code type}.
+     */
+    public <T> Entry<T> decode(byte[] raw, Class<T> type) throws IOException {
+        if (raw.length >= HEADER_LENGTH && raw[0] == SMILE_V1) {
+            long freshUntil = ByteBuffer.wrap(raw, 1, Long.BYTES).getLong();
+            T value = raw.length == HEADER_LENGTH
+                    ? null
+                    : smileMapper.readValue(raw, HEADER_LENGTH, raw.length - HEADER_LENGTH, type);
+            return new Entry<>(value, clock.millis() > freshUntil, false);
+        }
+
+        String text = new String(raw, StandardCharsets.UTF_8);
+        int separator = text.indexOf(SEPARATOR);
+        if (separator <= 0 || !isDigits(text, separator)) {
+            // plain JSON written before expiry metadata existed
+            return new Entry<>(jsonMapper.readValue(text, type), false, true);
+        }
+        long freshUntil = Long.parseLong(text.substring(0, separator));
+        String payload = text.substring(separator + 1);
+        T value = payload.isEmpty() ? null : jsonMapper.readValue(payload, type);
+        return new Entry<>(value, clock.millis() > freshUntil, false);
+    }
+
+    private static byte[] withHeader(long freshUntil, byte[] payload) {
+        return ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+                .put(SMILE_V1)
+                .putLong(freshUntil)
+                .put(payload)
+                .array();
+    }
+
+    private static boolean isDigits(String raw, int end) {
+        for (int i = 0; i < end; i++) {
+            if (!Character.isDigit(raw.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Format used to write new entries. Entries in either format are always readable.
+     */
+    public enum Format {
+        JSON, SMILE
+    }
+
+    /**
+     * A decoded cache entry.
+     *
+     * @param value Deserialized value, or null for a negative entry.
+     * @param stale Whether the entry is past its freshness deadline.
+     * @param plain Whether the entry is plain JSON without expiry metadata, which
+     *              may have been written without a Redis TTL.
+     */
+    public record Entry<T>(T value, boolean stale, boolean plain) {
+
+        public boolean isNegative() {
+            return value == null;
+        }
+    }
+}
@@ -1,45 +1,198 @@
 package com.foo.worker.service;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
  * RedisFailureService: Manages the storage and retrieval of failed order messages
- * along with their attempt counts in Redis.
+ * along with their attempt counts in Redis, and the retry queue that drains them.
  *
  * Responsibilities:
  * - Stores a failed order message along with the number of processing attempts.
  * - Retrieves the failed message and attempt count for further analysis or retries.
+ * - Schedules the next attempt in the "retry_orders" sorted set, scored by the
+ *   epoch millis at which the order is due (exponential backoff per attempt).
+ * - Moves orders that used up "worker.retry.max-attempts" to the
+ *   "dead_letter_orders" stream.
+ *
+ * A failure is recorded by one script (count, message, queue or dead-letter
+ * stream), so concurrent failures of an order never count the same attempt twice
+ * and a crash never leaves a stored message without its queue entry.
  *
  * Main methods:
- * - storeFailedMessage: Stores the failed order message and the number of attempts.
+ * - recordFailure: Counts a failed attempt and either schedules a retry or dead-letters the order.
+ * - reschedule: Schedules another attempt without counting one (the order was locked elsewhere).
+ * - deadLetter: Dead-letters an order that can never succeed (e.g. a malformed message).
  * - getFailedMessage: Retrieves the failed message by order ID.
  * - getAttemptCount: Retrieves the number of attempts made for the failed order.
+ * - claimDueRetries: Claims a batch of due orders for the retry scheduler.
+ * - completeRetry: Removes an order from the retry queue once it has been processed.
  */
 @Service
-public class RedisFailureService {
+@ConditionalOnProperty(name = "worker.retry.backend", havingValue = "redis", matchIfMissing = true)
+public class RedisFailureService implements FailedOrderHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisFailureService.class);
+
+    public static final String RETRY_QUEUE_KEY = "retry_orders";
+    public static final String DEAD_LETTER_STREAM_KEY = "dead_letter_orders";
+
+    /**
+     * Returns up to ARGV[2] members due at ARGV[1] and pushes their score to ARGV[3],
+     * so a claimed order is retried again if the claiming worker dies before finishing it.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = RedisScript.of(
+            "local due = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) "
+                    + "for _, member in ipairs(due) do redis.call('zadd', KEYS[1], ARGV[3], member) end "
+                    + "return due",
+            List.class);
+
+    /**
+     * Records an attempt of an order.
+     * KEYS: failed_order:&lt;id&gt;, failed_attempts:&lt;id&gt;, retry_orders, dead_letter_orders.
+     * ARGV: orderId, message, reason, attempts known from the message, attempts to
+     * count (0 or 1), max attempts (-1 dead-letters right away), then the due time of
+     * each attempt. The attempt count becomes the larger of the stored and the known
+     * count, plus the counted attempt. Past max attempts the order is appended to the
+     * dead-letter stream and dropped from the queue, otherwise its message is stored
+     * and it is queued at the due time of its attempt (of the first attempt when
+     * nothing is counted). Returns the attempt count.
+     */
+    private static final RedisScript<Long> RECORD_SCRIPT = RedisScript.of(
+            "local attempt = redis.call('incrby', KEYS[2], ARGV[5]) "
+                    + "local known = tonumber(ARGV[4]) + tonumber(ARGV[5]) "
+                    + "if attempt < known then attempt = known redis.call('set', KEYS[2], attempt) end "
+                    + "local maxAttempts = tonumber(ARGV[6]) "
+                    + "if maxAttempts < 0 or (ARGV[5] == '1' and attempt > maxAttempts) then "
+                    + "redis.call('xadd', KEYS[4], '*', 'orderId', ARGV[1], 'message', ARGV[2], "
+                    + "'attempts', tostring(attempt), 'reason', ARGV[3]) "
+                    + "redis.call('zrem', KEYS[3], ARGV[1]) redis.call('del', KEYS[1], KEYS[2]) "
+                    + "return attempt end "
+                    + "local tier = 1 if ARGV[5] == '1' then tier = attempt end "
+                    + "redis.call('set', KEYS[1], ARGV[2]) "
+                    + "redis.call('zadd', KEYS[3], ARGV[6 + tier], ARGV[1]) "
+                    + "return attempt",
+            Long.class);
 
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final WorkerMetrics metrics;
+    private final Clock clock;
 
-    public RedisFailureService(@Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, String> redisTemplate) {
+    @Autowired
+    public RedisFailureService(@Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, String> redisTemplate,
+                               @Value("${worker.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${worker.retry.initial-backoff:5s}") Duration initialBackoff,
+                               @Value("${worker.retry.max-backoff:10m}") Duration maxBackoff,
+                               @Value("${worker.retry.claim-timeout:5m}") Duration claimTimeout,
+                               WorkerMetrics metrics) {
+        this(redisTemplate, maxAttempts, initialBackoff, maxBackoff, claimTimeout, metrics, Clock.systemUTC());
+    }
+
+    RedisFailureService(ReactiveRedisTemplate<String, String> redisTemplate, int maxAttempts, Duration initialBackoff,
+                        Duration maxBackoff, Duration claimTimeout, WorkerMetrics metrics, Clock clock) {
         this.redisTemplate = redisTemplate;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+        this.metrics = metrics;
+        this.clock = clock;
     }
 
     /**
-     * Stores a failed order message and the number of retry attempts in Redis.
+     * Records a failed attempt. Attempts are counted in Redis; the count carried by
+     * the message only matters when it is higher (e.g. an order republished with it).
+     */
+    @Override
+    public Mono<Void> handleFailure(String orderId, String message, int previousAttempts, String reason) {
+        return recordFailure(orderId, message, previousAttempts, reason);
+    }
+
+    @Override
+    public Mono<Void> reschedule(String orderId, String message, int previousAttempts) {
+        metrics.countRetry("redis", false);
+        log.info(OrderLogContext.ORDER, "Order {} is locked elsewhere, rescheduling it", orderId);
+        return record(orderId, message, "", previousAttempts, 0, maxAttempts).then();
+    }
+
+    /**
+     * Counts a failed processing attempt of an order. The order is scheduled for
+     * another attempt, or moved to the dead-letter stream once it has failed
+     * "worker.retry.max-attempts" times.
      *
-     * @param orderId The ID of the failed order.
-     * @param message The original order message.
-     * @param attempt The number of attempts made to process the order.
-     * @return Mono<Boolean> indicating the result of the operation.
+     * @param orderId          The ID of the failed order.
+     * @param message          The original order message.
+     * @param previousAttempts Failed attempts known from the message (0 if none).
+     * @param reason           Error message of the failed attempt.
+     * @return Mono<Void> that completes once the failure has been recorded.
+     */
+    public Mono<Void> recordFailure(String orderId, String message, int previousAttempts, String reason) {
+        return record(orderId, message, reason, previousAttempts, 1, maxAttempts)
+                .doOnNext(attempt -> {
+                    metrics.countRetry("redis", attempt > maxAttempts);
+                    if (attempt > maxAttempts) {
+                        log.error(OrderLogContext.ORDER, "Max attempts reached for order: {}. Moved it to the dead-letter stream.", orderId);
+                    } else {
+                        log.info(OrderLogContext.ORDER, "Scheduled retry of failed order {} (attempt {})", orderId, attempt);
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Moves an order to the dead-letter stream without another attempt, e.g. when its
+     * message cannot be parsed.
+     *
+     * @param orderId The ID of the order.
+     * @param message The stored order message.
+     * @param reason  Why the order can never be processed.
+     * @return Mono<Void> that completes once the order has been dead-lettered.
      */
-    public Mono<Boolean> storeFailedMessage(String orderId, String message, int attempt) {
-        return redisTemplate.opsForValue().set("failed_order:" + orderId, message)
-                .flatMap(result -> redisTemplate.opsForValue().set("failed_attempts:" + orderId,
-                        String.valueOf(attempt)));
+    public Mono<Void> deadLetter(String orderId, String message, String reason) {
+        metrics.countRetry("redis", true);
+        log.error(OrderLogContext.ORDER, "Moving order {} to the dead-letter stream: {}", orderId, reason);
+        return record(orderId, message, reason, 0, 0, -1).then();
+    }
+
+    /**
+     * Runs the record script, with the due time of every attempt after the backoff of that attempt.
+     *
+     * @return Mono<Long> with the attempt count of the order.
+     */
+    private Mono<Long> record(String orderId, String message, String reason, int previousAttempts, int counted,
+                              int limit) {
+        long now = clock.millis();
+        List<String> args = new ArrayList<>(List.of(orderId, message, String.valueOf(reason),
+                String.valueOf(previousAttempts), String.valueOf(counted), String.valueOf(limit)));
+        for (int attempt = 1; attempt <= Math.max(1, maxAttempts); attempt++) {
+            args.add(String.valueOf(now + backoff(attempt).toMillis()));
+        }
+        List<String> keys = List.of("failed_order:" + orderId, "failed_attempts:" + orderId, RETRY_QUEUE_KEY,
+                DEAD_LETTER_STREAM_KEY);
+        return redisTemplate.execute(RECORD_SCRIPT, keys, args).next();
     }
 
     /**
@@ -62,4 +215,43 @@ public class RedisFailureService {
         return redisTemplate.opsForValue().get("failed_attempts:" + orderId)
                 .map(Integer::parseInt);
     }
+
+    /**
+     * Atomically claims up to {@code limit} orders whose retry is due. A claimed order
+     * stays in the queue, due again after "worker.retry.claim-timeout", until it is
+     * completed or rescheduled.
+     *
+     * @param limit Maximum number of orders to claim.
+     * @return Flux<String> of claimed order IDs.
+     */
+    public Flux<String> claimDueRetries(int limit) {
+        long now = clock.millis();
+        List<String> args = List.of(String.valueOf(now), String.valueOf(limit),
+                String.valueOf(now + claimTimeout.toMillis()));
+        return redisTemplate.execute(CLAIM_SCRIPT, List.of(RETRY_QUEUE_KEY), args)
+                .flatMapIterable(due -> due)
+                .map(String::valueOf);
+    }
+
+    /**
+     * Removes a processed order from the retry queue along with its stored message
+     * and attempt count.
+     *
+     * @param orderId The ID of the processed order.
+     * @return Mono<Void> that completes once the order has been removed.
+     */
+    public Mono<Void> completeRetry(String orderId) {
+        return redisTemplate.opsForZSet().remove(RETRY_QUEUE_KEY, orderId)
+                .then(redisTemplate.delete("failed_order:" + orderId, "failed_attempts:" + orderId))
+                .then();
+    }
+
+    /**
+     * Returns the delay before the given attempt: "worker.retry.initial-backoff",
+     * doubled for every further attempt and capped at "worker.retry.max-backoff".
+     */
+    Duration backoff(int attempt) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(Math.max(attempt - 1, 0), 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
 }
@@ -1,10 +1,24 @@
 package com.foo.worker.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.foo.worker.logging.OrderLogContext;
+import com.foo.worker.metrics.WorkerMetrics;
+
+import io.micrometer.core.instrument.Tags;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -17,7 +31,14 @@ import reactor.core.publisher.Mono;
  *
  * Details:
  * - Locks are stored with keys in the format `lock_order:<orderId>`.
- * - Each lock has an expiration timeout to prevent permanent blocking.
+ * - A lock is acquired with a single `SET key token NX PX <lease>`, so it can
+ *   never exist without an expiration, even if the worker crashes right after.
+ * - The value is a token unique to the holder; release is a compare-and-delete
+ *   Lua script, so a holder whose lease expired cannot delete someone else's lock.
+ * - While a lock is held, a watchdog renews the lease every third of
+ *   "worker.lock.lease-time" (compare-and-pexpire) so long-running orders keep it.
+ * - Acquire and release are timed (worker.lock.acquire, worker.lock.release), and
+ *   attempts that find the order locked are counted as contention.
  *
  * Error Handling:
  * - If Redis connection fails, a Mono.error or default false is returned.
@@ -29,15 +50,34 @@ import reactor.core.publisher.Mono;
 @Service
 public class RedisLockServiceImpl implements RedisLockService {
 
+    private static final Logger log = LoggerFactory.getLogger(RedisLockServiceImpl.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final Duration leaseTime;
+    private final WorkerMetrics metrics;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
 
     /**
      * Constructor that initializes the reactive Redis template for lock operations.
      *
      * @param redisTemplate Reactive Redis template used to manage lock operations.
+     * @param leaseTime     Expiration of a lock that is not renewed.
+     * @param metrics       Meters of the lock round trips.
      */
-    public RedisLockServiceImpl(@Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, String> redisTemplate) {
+    public RedisLockServiceImpl(@Qualifier("reactiveRedisTemplate") ReactiveRedisTemplate<String, String> redisTemplate,
+                                @Value("${worker.lock.lease-time:30s}") Duration leaseTime,
+                                WorkerMetrics metrics) {
         this.redisTemplate = redisTemplate;
+        this.leaseTime = leaseTime;
+        this.metrics = metrics;
     }
 
     /**
@@ -49,23 +89,34 @@ public class RedisLockServiceImpl implements RedisLockService {
      */
     @Override
     public Mono<Boolean> acquireLock(String orderId) {
-        return redisTemplate.opsForValue().setIfAbsent("lock_order:" + orderId, "LOCKED")
-                .flatMap(success -> {
+        String key = lockKey(orderId);
+        String token = UUID.randomUUID().toString();
+        Mono<Boolean> setIfAbsent = redisTemplate.opsForValue().setIfAbsent(key, token, leaseTime);
+        return metrics.timed("worker.lock.acquire", Tags.empty(),
+                        success -> Boolean.TRUE.equals(success) ? "acquired" : "contended", setIfAbsent)
+                .map(success -> {
                     if (Boolean.TRUE.equals(success)) {
-                        System.out.println("Lock acquired for order: " + orderId);
-
-                        // Set expiration time for the lock to avoid deadlocks
-                        return redisTemplate.expire("lock_order:" + orderId, Duration.ofMinutes(5))
-                                .thenReturn(true);
+                        Lease previous = leases.put(orderId, new Lease(token, startWatchdog(orderId, key, token)));
+                        if (previous != null) {
+                            previous.watchdog().dispose();
+                        }
+                        return true;
+                    }
+                    metrics.countLockContention();
+                    return false;
+                })
+                .doOnEach(OrderLogContext.onNext(acquired -> {
+                    if (acquired) {
+                        log.debug(OrderLogContext.ORDER, "Lock acquired for order: {}", orderId);
                     } else {
-                        System.out.println("Failed to acquire lock for order: " + orderId);
-                        return Mono.just(false);
+                        log.info(OrderLogContext.ORDER, "Failed to acquire lock for order: {}", orderId);
                     }
-                });
+                }));
     }
 
     /**
      * Releases the lock in Redis for the given order ID after processing is complete.
+     * Only the lock held by this instance is deleted.
      *
      * @param orderId The ID of the order to unlock.
      * @return Mono<Boolean> indicating whether the lock was successfully released.
@@ -76,9 +127,50 @@ public class RedisLockServiceImpl implements RedisLockService {
             return Mono.just(false);
         }
 
-        return redisTemplate.delete("lock_order:" + orderId)
-                .map(deleted -> deleted > 0)
-                .defaultIfEmpty(false)
-                .onErrorResume(e -> Mono.just(false));
+        return Mono.defer(() -> {
+            Lease lease = leases.remove(orderId);
+            if (lease == null) {
+                return Mono.just(false);
+            }
+            lease.watchdog().dispose();
+
+            Mono<Long> release = redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey(orderId)), List.of(lease.token()))
+                    .next();
+            return metrics.timed("worker.lock.release", Tags.empty(),
+                            deleted -> deleted > 0 ? "released" : "lost", release)
+                    .map(deleted -> deleted > 0)
+                    .defaultIfEmpty(false)
+                    .onErrorResume(e -> Mono.just(false));
+        });
+    }
+
+    /**
+     * Renews the lease until the lock is released or turns out to be lost.
+     */
+    private Disposable startWatchdog(String orderId, String key, String token) {
+        Duration renewInterval = leaseTime.dividedBy(3);
+        List<String> args = List.of(token, String.valueOf(leaseTime.toMillis()));
+        return Flux.interval(renewInterval, renewInterval)
+                .onBackpressureDrop() // skip a tick while the previous renewal is still running
+                .concatMap(tick -> redisTemplate.execute(RENEW_SCRIPT, List.of(key), args)
+                        .next()
+                        .map(renewed -> renewed > 0)
+                        .onErrorReturn(true)) // transient error: keep trying until the lease runs out
+                .takeUntil(renewed -> !renewed)
+                .filter(renewed -> !renewed)
+                .subscribe(lost -> {
+                    log.warn("Lock lost for order: {}", orderId);
+                    leases.computeIfPresent(orderId, (id, lease) -> lease.token().equals(token) ? null : lease);
+                });
+    }
+
+    private static String lockKey(String orderId) {
+        return "lock_order:" + orderId;
+    }
+
+    /**
+     * A lock held by this instance: its owner token and the watchdog renewing it.
+     */
+    private record Lease(String token, Disposable watchdog) {
     }
 }
@@ -0,0 +1,231 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ResiliencePolicy: Retry and circuit breaker of an upstream API, applied as Reactor
+ * operators (e.g. {@code call.transform(policy::retry)}). Both are deferred, so they act
+ * on every subscription of the call rather than on the method that assembles it.
+ *
+ * - circuitBreaker(): guards one upstream request with a Resilience4j CircuitBreaker.
+ *   Each subscription takes a permission and records its outcome and duration; while
+ *   the circuit is open, calls fail right away with CallNotPermittedException. Only
+ *   transient failures (5xx, 429, connection errors and timeouts) count as failures: a
+ *   404 is an answer, and a call shed by the concurrency limiter never reached the API.
+ * - retry(): re-subscribes a call that failed with a transient error, up to
+ *   {@code maxAttempts} attempts, after an exponential backoff with jitter. The backoff
+ *   is a timer (Mono.delay), no thread waits for it. No retry is scheduled if the order
+ *   deadline would pass during the backoff (see OrderDeadline). When the attempts are
+ *   exhausted, the last error is propagated as is.
+ */
+public class ResiliencePolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(ResiliencePolicy.class);
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double jitter;
+    private final Scheduler timer;
+    private final DoubleSupplier random;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicReference<CircuitBreaker.State> loggedState = new AtomicReference<>(CircuitBreaker.State.CLOSED);
+
+    /**
+     * ResiliencePolicy constructor.
+     * @param name Name of the upstream, used in metrics and logs.
+     * @param maxAttempts Highest number of attempts of a call (1 disables retries).
+     * @param initialBackoff Backoff before the first retry, doubled for every further retry.
+     * @param maxBackoff Highest backoff.
+     * @param jitter Share (0-1) of each backoff that is randomized.
+     * @param circuitBreakerConfig Settings of the circuit breaker (thresholds, window, open state).
+     */
+    public ResiliencePolicy(String name, int maxAttempts, Duration initialBackoff, Duration maxBackoff, double jitter,
+                            CircuitBreakerConfig circuitBreakerConfig) {
+        this(name, maxAttempts, initialBackoff, maxBackoff, jitter, circuitBreakerConfig, Schedulers.parallel(),
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    ResiliencePolicy(String name, int maxAttempts, Duration initialBackoff, Duration maxBackoff, double jitter,
+                     CircuitBreakerConfig circuitBreakerConfig, Scheduler timer, DoubleSupplier random) {
+        this.name = name;
+        this.circuitBreaker = CircuitBreaker.of(name, CircuitBreakerConfig.from(circuitBreakerConfig)
+                .recordException(ResiliencePolicy::isTransient)
+                .ignoreExceptions(AdaptiveConcurrencyLimiter.LimitExceededException.class)
+                .build());
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = Math.max(initialBackoffNanos, maxBackoff.toNanos());
+        this.jitter = Math.min(1, Math.max(0, jitter));
+        this.timer = timer;
+        this.random = random;
+    }
+
+    /**
+     * Runs the call through the circuit breaker: one permission and one recorded
+     * outcome per subscription. A cancelled call releases its permission.
+     *
+     * @return Mono<T> of the call, or an error with CallNotPermittedException while the circuit is open.
+     */
+    public <T> Mono<T> circuitBreaker(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                rejectedCalls.incrementAndGet();
+                return Mono.error(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            }
+            logTransition();
+            long start = circuitBreaker.getCurrentTimestamp();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                    .doOnEach(signal -> {
+                        if ((signal.isOnNext() || signal.isOnComplete()) && recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onSuccess(circuitBreaker.getCurrentTimestamp() - start,
+                                    circuitBreaker.getTimestampUnit());
+                        } else if (signal.isOnError() && recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start,
+                                    circuitBreaker.getTimestampUnit(), signal.getThrowable());
+                            logTransition();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Logs a change of the circuit breaker state. The state is polled where it can change
+     * (permission and failure) rather than through Resilience4j events, which are built
+     * for every call once a consumer is registered.
+     */
+    private void logTransition() {
+        CircuitBreaker.State state = circuitBreaker.getState();
+        CircuitBreaker.State previous = loggedState.getAndSet(state);
+        if (previous != state) {
+            log.warn("Circuit breaker of the {} API: {} -> {}", name, previous, state);
+        }
+    }
+
+    /**
+     * Runs the call, re-subscribing it after a backoff when it fails with a transient
+     * error or was rejected by the concurrency limiter, as long as attempts are left
+     * and the order deadline allows the wait.
+     *
+     * @return Mono<T> of the first successful attempt, or the error of the last one.
+     */
+    public <T> Mono<T> retry(Mono<T> call) {
+        if (maxAttempts <= 1) {
+            return call;
+        }
+        return call.onErrorResume(error -> retryAfter(call, error, 0));
+    }
+
+    /**
+     * Re-subscribes the call after the backoff of the given retry, or propagates the error.
+     * Retries are chained with onErrorResume rather than retryWhen, so a call that
+     * succeeds pays for one operator only.
+     */
+    private <T> Mono<T> retryAfter(Mono<T> call, Throwable error, int previousRetries) {
+        if (previousRetries + 1 >= maxAttempts || !isRetryable(error)) {
+            return Mono.error(error);
+        }
+        Duration backoff = backoff(previousRetries);
+        return Mono.deferContextual(context -> {
+            if (OrderDeadline.remaining(context).map(left -> left.compareTo(backoff) <= 0).orElse(false)) {
+                return Mono.error(error);
+            }
+            retries.incrementAndGet();
+            return Mono.delay(backoff, timer)
+                    .then(call.onErrorResume(next -> retryAfter(call, next, previousRetries + 1)));
+        });
+    }
+
+    /**
+     * Returns the backoff before the given retry (0 for the first one): the initial
+     * backoff doubled for each previous retry, capped, of which a random share of up
+     * to {@code jitter} is taken off so that failed calls do not retry in lockstep.
+     */
+    Duration backoff(long previousRetries) {
+        long backoff = initialBackoffNanos << Math.min(previousRetries, 30);
+        if (backoff <= 0 || backoff > maxBackoffNanos) {
+            backoff = maxBackoffNanos;
+        }
+        return Duration.ofNanos((long) (backoff * (1 - jitter * random.getAsDouble())));
+    }
+
+    /**
+     * Returns whether the error is worth a retry and counts as a failure of the upstream:
+     * a 5xx or 429 answer, a request that could not be sent or answered (connection,
+     * pool or response timeout), or a timeout.
+     */
+    public static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    /**
+     * Returns whether the call is worth another attempt: a transient error, or a
+     * rejection by the concurrency limiter, which does not count against the upstream.
+     */
+    static boolean isRetryable(Throwable error) {
+        return isTransient(error) || error instanceof AdaptiveConcurrencyLimiter.LimitExceededException;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the current state of the circuit breaker.
+     */
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Returns the failure rate (percent) of the calls in the circuit breaker window,
+     * or -1 while the window has fewer calls than its minimum.
+     */
+    public float getFailureRate() {
+        return circuitBreaker.getMetrics().getFailureRate();
+    }
+
+    /**
+     * Returns the number of retries scheduled so far.
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Returns the number of calls rejected so far because the circuit was open.
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+}
@@ -0,0 +1,68 @@
+package com.foo.worker.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * SingleFlight: Coalesces concurrent loads of the same key into one in-flight Mono.
+ *
+ * While a load for a key is running, every caller for that key subscribes to the
+ * same Mono and receives the same result. Once the load succeeds the key is freed,
+ * so the next caller triggers a fresh load. A failed load stays shared for
+ * {@code errorTtl}, which keeps a burst of callers from hammering a failing upstream.
+ *
+ * The load is not tied to any one caller:
+ * - a caller that cancels (e.g. its order deadline passed) only leaves the load;
+ *   the load keeps running, even with no caller left, and frees the key when it ends;
+ * - the load runs without an order deadline (see OrderDeadline), so the first
+ *   caller's budget does not fail the load for the callers that joined it. Each
+ *   caller's own deadline still bounds its wait, and the load is bounded by the
+ *   upstream timeouts and retry attempts;
+ * - the rest of the Reactor context (e.g. tracing) is the first caller's.
+ *
+ * @param <T> Type of the loaded value.
+ */
+public class SingleFlight<T> {
+
+    private final Map<String, Mono<T>> calls = new ConcurrentHashMap<>();
+    private final Duration errorTtl;
+
+    public SingleFlight(Duration errorTtl) {
+        this.errorTtl = errorTtl;
+    }
+
+    /**
+     * Runs the loader for the key, or joins the load already in flight for it.
+     *
+     * @param key    Key identifying the load, e.g. "customer:<id>".
+     * @param loader Supplier of the Mono that loads the value.
+     * @return Mono<T> shared by every concurrent caller of the same key.
+     */
+    public Mono<T> execute(String key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> calls.computeIfAbsent(key, k -> newCall(k, loader)));
+    }
+
+    /**
+     * Returns the number of keys currently in flight (or holding a cached error).
+     */
+    public int size() {
+        return calls.size();
+    }
+
+    private Mono<T> newCall(String key, Supplier<Mono<T>> loader) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> call = Mono.defer(loader)
+                .doOnSuccess(value -> calls.remove(key, self.get()))
+                .doOnError(error -> Mono.delay(errorTtl)
+                        .subscribe(tick -> calls.remove(key, self.get())))
+                .contextWrite(OrderDeadline::without)
+                .cache();
+        self.set(call);
+        return call;
+    }
+}
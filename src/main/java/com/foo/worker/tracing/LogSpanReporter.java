@@ -0,0 +1,66 @@
+package com.foo.worker.tracing;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanReporter;
+
+/**
+ * LogSpanReporter: Span exporter writing each finished span as one log line. It is
+ * enabled with "worker.tracing.exporter=log" and meant for local runs and tests; the
+ * lines can be sent to a file by routing this logger in logback-spring.xml.
+ *
+ * Exporters are pluggable: Spring Boot hands finished spans to every SpanReporter
+ * and OpenTelemetry SpanExporter bean (e.g. the OTLP exporter, once
+ * "io.opentelemetry:opentelemetry-exporter-otlp" is on the classpath and
+ * "management.otlp.tracing.endpoint" is set). Spans are exported in batches off the
+ * order processing threads.
+ *
+ * Example:
+ * <pre>
+ * trace=4bf92f3577b34da6a3ce929d0e0e4736 span=00f067aa0ba902b7 parent=a3ce929d0e0e4736
+ *     name=worker.lock.acquire kind=- duration=1.204ms error=- tags={outcome=acquired}
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "worker.tracing.exporter", havingValue = "log")
+public class LogSpanReporter implements SpanReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSpanReporter.class);
+
+    @Override
+    public void report(FinishedSpan span) {
+        if (log.isInfoEnabled()) {
+            log.info(format(span));
+        }
+    }
+
+    /**
+     * Formats a finished span as a single line.
+     */
+    static String format(FinishedSpan span) {
+        Duration duration = Duration.between(span.getStartTimestamp(), span.getEndTimestamp());
+        return "trace=" + span.getTraceId()
+                + " span=" + span.getSpanId()
+                + " parent=" + (isRoot(span.getParentId()) ? "-" : span.getParentId())
+                + " name=" + span.getName()
+                + " kind=" + orDash(span.getKind())
+                + " duration=" + String.format(Locale.ROOT, "%.3fms", duration.toNanos() / 1_000_000.0)
+                + " error=" + (span.getError() == null ? "-" : span.getError().getClass().getSimpleName())
+                + " tags=" + span.getTags();
+    }
+
+    private static boolean isRoot(String parentId) {
+        return parentId == null || parentId.isEmpty() || parentId.chars().allMatch(c -> c == '0');
+    }
+
+    private static String orDash(Object value) {
+        return value == null ? "-" : value.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.foo.worker.config;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeoutException;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+
+import com.foo.worker.models.Order;
+import com.mongodb.MongoException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for MongoIndexConfig using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - A conflicting non-unique index is replaced when no orderId is duplicated
+ * - With duplicate orderIds, the old index is kept and the error is reported
+ * - Any other error (e.g. Mongo unreachable) never drops the index
+ */
+public class MongoIndexConfigTest {
+
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Mock
+    private ReactiveIndexOperations indexOps;
+
+    @InjectMocks
+    private MongoIndexConfig mongoIndexConfig;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(reactiveMongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+        when(indexOps.dropIndex(anyString())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void testCreateOrderIdIndex_ConflictingIndexIsReplaced() {
+        when(indexOps.ensureIndex(any(Index.class)))
+                .thenReturn(Mono.error(conflict()))
+                .thenReturn(Mono.just("orderId_1"));
+        duplicates();
+
+        StepVerifier.create(mongoIndexConfig.createOrderIdIndex(indexOps))
+                .expectNext("orderId_1")
+                .verifyComplete();
+
+        verify(indexOps).dropIndex("orderId_1");
+        verify(indexOps, times(2)).ensureIndex(any(Index.class));
+    }
+
+    @Test
+    public void testCreateOrderIdIndex_DuplicatesKeepTheOldIndex() {
+        when(indexOps.ensureIndex(any(Index.class))).thenReturn(Mono.error(conflict()));
+        duplicates(new Document("_id", "order-1").append("count", 2));
+
+        StepVerifier.create(mongoIndexConfig.createOrderIdIndex(indexOps))
+                .expectErrorMatches(error -> error instanceof IllegalStateException
+                        && error.getMessage().contains("[order-1]"))
+                .verify();
+
+        verify(indexOps, never()).dropIndex(anyString());
+    }
+
+    @Test
+    public void testCreateOrderIdIndex_OtherErrorNeverDropsTheIndex() {
+        when(indexOps.ensureIndex(any(Index.class))).thenReturn(Mono.error(new TimeoutException("Mongo unreachable")));
+
+        StepVerifier.create(mongoIndexConfig.createOrderIdIndex(indexOps))
+                .expectError(TimeoutException.class)
+                .verify();
+
+        verify(indexOps, never()).dropIndex(anyString());
+    }
+
+    private static Throwable conflict() {
+        return new DataIntegrityViolationException("Index already exists with different options",
+                new MongoException(85, "IndexOptionsConflict"));
+    }
+
+    private void duplicates(Document... duplicates) {
+        when(reactiveMongoTemplate.aggregate(any(Aggregation.class), eq("orders"), eq(Document.class)))
+                .thenReturn(Flux.just(duplicates));
+    }
+}
@@ -0,0 +1,102 @@
+package com.foo.worker.config;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.internal.shaded.reactor.pool.PoolAcquireTimeoutException;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for WebClientConfig against a local Reactor Netty server.
+ *
+ * This test class validates:
+ * - Calls slower than the response timeout fail instead of waiting
+ * - Requests waiting longer than pending-acquire-timeout for a pooled connection fail
+ * - With H2C, concurrent requests are multiplexed over one HTTP/2 cleartext connection
+ */
+public class WebClientConfigTest {
+
+    private final WebClientConfig config = new WebClientConfig(true, 20, 4, 200, 3, 6, 0.9,
+            Duration.ofMillis(500));
+
+    private DisposableServer server;
+    private ConnectionProvider connectionProvider;
+
+    @AfterEach
+    public void tearDown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    public void testResponseTimeout_FailsSlowCalls() {
+        server = startServer(HttpProtocol.HTTP11, Duration.ofSeconds(1));
+        WebClient webClient = webClient(10, HttpProtocol.HTTP11, Duration.ofMillis(100));
+
+        StepVerifier.create(get(webClient))
+                .expectErrorMatches(error -> error instanceof WebClientRequestException
+                        && error.getCause() instanceof ReadTimeoutException)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testPendingAcquireTimeout_FailsWhenNoConnectionIsFree() {
+        server = startServer(HttpProtocol.HTTP11, Duration.ofSeconds(1));
+        WebClient webClient = webClient(1, HttpProtocol.HTTP11, Duration.ofSeconds(2));
+
+        StepVerifier.create(Flux.merge(get(webClient).onErrorResume(error -> Mono.empty()), get(webClient)))
+                .expectErrorMatches(error -> error.getCause() instanceof PoolAcquireTimeoutException)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testH2c_MultiplexesConcurrentRequestsOverOneConnection() {
+        server = startServer(HttpProtocol.H2C, Duration.ofMillis(300));
+        WebClient webClient = webClient(1, HttpProtocol.H2C, Duration.ofSeconds(2));
+        get(webClient).block(Duration.ofSeconds(5)); // opens the connection
+
+        // Over HTTP/1.1 the last requests would wait 600ms+ for the only connection
+        StepVerifier.create(Flux.range(0, 4).flatMap(i -> get(webClient)))
+                .expectNext("ok", "ok", "ok", "ok")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private WebClient webClient(int maxConnections, HttpProtocol protocol, Duration responseTimeout) {
+        connectionProvider = config.enrichmentConnectionProvider(maxConnections, 10, Duration.ofMillis(200),
+                Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ofSeconds(30));
+        return WebClientConfig.enrichmentWebClient(WebClient.builder(),
+                config.enrichmentHttpClient(connectionProvider, Duration.ofSeconds(1), true, protocol),
+                "http://localhost:" + server.port(), responseTimeout);
+    }
+
+    private static Mono<String> get(WebClient webClient) {
+        return webClient.get().uri("/customer").retrieve().bodyToMono(String.class);
+    }
+
+    /**
+     * Starts a server answering every request with "ok" after {@code delay}.
+     */
+    private static DisposableServer startServer(HttpProtocol protocol, Duration delay) {
+        return HttpServer.create()
+                .port(0)
+                .protocol(protocol)
+                .handle((request, response) -> response.sendString(Mono.delay(delay).thenReturn("ok")))
+                .bindNow();
+    }
+}
@@ -0,0 +1,87 @@
+package com.foo.worker.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
+import com.foo.worker.service.EnrichmentService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for EnrichmentPrefetcher using Mockito.
+ *
+ * This test class validates:
+ * - The distinct customers and products of the orders are preloaded
+ * - Lookaheads are skipped while the highest number of preloads is running
+ * - A disabled prefetcher preloads nothing
+ */
+public class EnrichmentPrefetcherTest {
+
+    @Mock
+    private EnrichmentService enrichmentService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testPrefetch_PreloadsDistinctIds() {
+        when(enrichmentService.preload(anyCollection(), anyCollection())).thenReturn(Mono.empty());
+
+        new EnrichmentPrefetcher(enrichmentService, metrics, true, 2).prefetch(List.of(
+                order("customer-1", "product-1", "product-2"),
+                order("customer-1", "product-2", null)));
+
+        verify(enrichmentService).preload(Set.of("customer-1"), Set.of("product-1", "product-2"));
+        assertEquals(3.0, meterRegistry.get("worker.enrichment.preloads").tag("source", "lookahead").counter().count());
+    }
+
+    @Test
+    public void testPrefetch_SkippedWhilePreloadsAreInFlight() {
+        Sinks.Empty<Void> preload = Sinks.empty();
+        when(enrichmentService.preload(anyCollection(), anyCollection())).thenReturn(preload.asMono());
+        EnrichmentPrefetcher prefetcher = new EnrichmentPrefetcher(enrichmentService, metrics, true, 1);
+
+        prefetcher.prefetch(List.of(order("customer-1", "product-1")));
+        prefetcher.prefetch(List.of(order("customer-2", "product-2")));
+        verify(enrichmentService, times(1)).preload(anyCollection(), anyCollection());
+
+        preload.tryEmitEmpty();
+        prefetcher.prefetch(List.of(order("customer-3", "product-3")));
+        verify(enrichmentService, times(2)).preload(anyCollection(), anyCollection());
+    }
+
+    @Test
+    public void testPrefetch_DisabledPreloadsNothing() {
+        new EnrichmentPrefetcher(enrichmentService, metrics, false, 2).prefetch(List.of(order("customer-1", "product-1")));
+
+        verify(enrichmentService, never()).preload(anyCollection(), anyCollection());
+    }
+
+    private static OrderMessage order(String customerId, String... productIds) {
+        List<Product> products = Arrays.stream(productIds).map(id -> new Product(id, null, null)).toList();
+        return new OrderMessage("order-1", customerId, products);
+    }
+}
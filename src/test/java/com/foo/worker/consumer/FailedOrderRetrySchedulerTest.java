@@ -0,0 +1,152 @@
+package com.foo.worker.consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.Order;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.OrderProcessorService;
+import com.foo.worker.service.PartitionAffinityRouter;
+import com.foo.worker.service.RedisFailureService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for FailedOrderRetryScheduler using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Retried orders that succeed are removed from the queue
+ * - Retried orders that fail are recorded again
+ * - Retried orders locked elsewhere are rescheduled without counting an attempt
+ * - Malformed messages are dead-lettered right away
+ * - In partition lock mode, due orders are routed to their partition with their attempt count
+ * - Full batches are followed by another claim until the queue is drained
+ */
+public class FailedOrderRetrySchedulerTest {
+
+    @Mock
+    private OrderProcessorService orderProcessorService;
+
+    @Mock
+    private RedisFailureService redisFailureService;
+
+    @Mock
+    private PartitionAffinityRouter router;
+
+    private FailedOrderRetryScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisFailureService.getFailedMessage(anyString())).thenAnswer(invocation -> Mono.just(
+                "{\"orderId\":\"" + invocation.getArgument(0) + "\",\"customerId\":\"customer-456\",\"products\":[]}"));
+        when(redisFailureService.completeRetry(anyString())).thenReturn(Mono.empty());
+        when(redisFailureService.recordFailure(anyString(), anyString(), anyInt(), anyString())).thenReturn(Mono.empty());
+        when(redisFailureService.reschedule(anyString(), anyString(), anyInt())).thenReturn(Mono.empty());
+        when(redisFailureService.deadLetter(anyString(), anyString(), anyString())).thenReturn(Mono.empty());
+
+        scheduler = new FailedOrderRetryScheduler(orderProcessorService, redisFailureService, Duration.ofSeconds(1), 2, 2,
+                new WorkerMetrics(new SimpleMeterRegistry()), (PartitionAffinityRouter) null);
+    }
+
+    @Test
+    public void testDrain_SuccessfulRetryIsCompleted() {
+        when(redisFailureService.claimDueRetries(anyInt())).thenReturn(Flux.just("order-1"));
+        when(orderProcessorService.processOrder(any(OrderMessage.class))).thenReturn(Mono.just(new Order()));
+
+        StepVerifier.create(scheduler.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(redisFailureService).completeRetry("order-1");
+        verify(redisFailureService, never()).recordFailure(anyString(), anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    public void testDrain_FailedRetryIsRecordedAgain() {
+        when(redisFailureService.claimDueRetries(anyInt())).thenReturn(Flux.just("order-1"));
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenReturn(Mono.error(new RuntimeException("Inactive customer")));
+
+        StepVerifier.create(scheduler.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(redisFailureService).recordFailure(eq("order-1"), anyString(), eq(0), eq("Inactive customer"));
+        verify(redisFailureService, never()).completeRetry(anyString());
+    }
+
+    @Test
+    public void testDrain_LockedRetryIsRescheduled() {
+        when(redisFailureService.claimDueRetries(anyInt())).thenReturn(Flux.just("order-1"));
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenReturn(Mono.error(new OrderProcessorService.OrderLockedException()));
+
+        StepVerifier.create(scheduler.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(redisFailureService).reschedule(eq("order-1"), anyString(), eq(0));
+        verify(redisFailureService, never()).recordFailure(anyString(), anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    public void testDrain_MalformedMessageIsDeadLettered() {
+        when(redisFailureService.claimDueRetries(anyInt())).thenReturn(Flux.just("order-1"));
+        when(redisFailureService.getFailedMessage("order-1")).thenReturn(Mono.just("{not json"));
+
+        StepVerifier.create(scheduler.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(redisFailureService).deadLetter("order-1", "{not json", "Malformed message");
+        verify(orderProcessorService, never()).processOrder(any(OrderMessage.class));
+    }
+
+    @Test
+    public void testDrain_PartitionModeRoutesDueOrder() {
+        when(redisFailureService.claimDueRetries(anyInt())).thenReturn(Flux.just("order-1"));
+        when(redisFailureService.getAttemptCount("order-1")).thenReturn(Mono.just(2));
+        when(router.route(anyString(), anyString(), anyInt())).thenReturn(Mono.empty());
+        FailedOrderRetryScheduler partitionScheduler = new FailedOrderRetryScheduler(orderProcessorService,
+                redisFailureService, Duration.ofSeconds(1), 2, 2, new WorkerMetrics(new SimpleMeterRegistry()), router);
+
+        StepVerifier.create(partitionScheduler.drain())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(router).route(eq("order-1"), anyString(), eq(2));
+        verify(redisFailureService).completeRetry("order-1");
+        verify(orderProcessorService, never()).processOrder(any(OrderMessage.class));
+    }
+
+    @Test
+    public void testDrain_FullBatchClaimsAgain() {
+        when(redisFailureService.claimDueRetries(anyInt()))
+                .thenReturn(Flux.just("order-1", "order-2"), Flux.just("order-3"));
+        when(orderProcessorService.processOrder(any(OrderMessage.class))).thenReturn(Mono.just(new Order()));
+
+        StepVerifier.create(scheduler.drain())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(redisFailureService, times(2)).claimDueRetries(2);
+    }
+}
@@ -0,0 +1,105 @@
+package com.foo.worker.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import com.foo.worker.service.AdaptiveConcurrencyLimiter;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for KafkaConsumptionThrottle using Mockito.
+ *
+ * This test class validates:
+ * - Running listener containers are paused when a Go API limiter is saturated
+ * - They are resumed only once every limiter is below the resume utilization
+ * - Stopped containers are left alone
+ */
+public class KafkaConsumptionThrottleTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer recordListener;
+
+    @Mock
+    private MessageListenerContainer batchListener;
+
+    private final AdaptiveConcurrencyLimiter customerLimiter = new AdaptiveConcurrencyLimiter("customer", 10, 10, 10,
+            3, 6, 0.9, Duration.ZERO);
+    private final AdaptiveConcurrencyLimiter productLimiter = new AdaptiveConcurrencyLimiter("product", 10, 10, 10,
+            3, 6, 0.9, Duration.ZERO);
+    private final List<Disposable> calls = new ArrayList<>();
+
+    private KafkaConsumptionThrottle throttle;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(recordListener.getListenerId()).thenReturn("orderRecordListener");
+        when(recordListener.isRunning()).thenReturn(true);
+        when(batchListener.isRunning()).thenReturn(false);
+        when(listenerRegistry.getListenerContainers()).thenReturn(List.of(recordListener, batchListener));
+        when(listenerRegistry.getListenerContainer("orderRecordListener")).thenReturn(recordListener);
+
+        throttle = new KafkaConsumptionThrottle(List.of(customerLimiter, productLimiter), listenerRegistry,
+                Duration.ofMillis(50), 0.8);
+    }
+
+    @Test
+    public void testCheck_PausesRunningContainersWhenSaturated() {
+        hold(productLimiter, 10);
+
+        throttle.check();
+        throttle.check();
+
+        assertTrue(throttle.isPaused());
+        verify(recordListener, times(1)).pause();
+        verify(batchListener, never()).pause();
+    }
+
+    @Test
+    public void testCheck_ResumesBelowResumeUtilization() {
+        hold(customerLimiter, 10);
+        throttle.check();
+
+        release(1); // 90% of the limit in flight
+        throttle.check();
+        assertTrue(throttle.isPaused());
+        verify(recordListener, never()).resume();
+
+        release(2); // 70%
+        throttle.check();
+        assertFalse(throttle.isPaused());
+        verify(recordListener).resume();
+    }
+
+    private void hold(AdaptiveConcurrencyLimiter limiter, int count) {
+        for (int i = 0; i < count; i++) {
+            calls.add(limiter.limit(Mono.never(), value -> false).subscribe());
+        }
+    }
+
+    private void release(int count) {
+        for (int i = 0; i < count; i++) {
+            calls.remove(calls.size() - 1).dispose();
+        }
+    }
+}
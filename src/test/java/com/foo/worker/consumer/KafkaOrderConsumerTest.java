@@ -0,0 +1,246 @@
+package com.foo.worker.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.Order;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.KafkaRetryService;
+import com.foo.worker.service.OrderProcessorService;
+import com.foo.worker.service.PartitionAffinityLockService;
+import com.foo.worker.service.PartitionAffinityRouter;
+import com.foo.worker.service.FailedOrderHandler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for KafkaOrderConsumer batch processing using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Every record of a batch is processed
+ * - Concurrency is bounded and orders with the same ID never overlap
+ * - Failed orders are handed to the failure handler without failing the batch
+ * - Orders locked elsewhere are rescheduled instead of counted as failed
+ * - Retry records pass their attempt count to the failure handler
+ * - Records rejected by the deserializer are skipped
+ * - Records waiting for a free slot are prefetched
+ * - Records keyed by orderId pass their partition to the order processing
+ * - Routed retries keep the attempt count of their header
+ * - In partition lock mode, unkeyed records and retries are routed to the order's partition
+ */
+public class KafkaOrderConsumerTest {
+
+    @Mock
+    private OrderProcessorService orderProcessorService;
+
+    @Mock
+    private FailedOrderHandler failedOrderHandler;
+
+    @Mock
+    private EnrichmentPrefetcher prefetcher;
+
+    @Mock
+    private PartitionAffinityRouter router;
+
+    private KafkaOrderConsumer kafkaOrderConsumer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        kafkaOrderConsumer = new KafkaOrderConsumer(orderProcessorService, failedOrderHandler, 4, metrics, prefetcher,
+                (PartitionAffinityRouter) null);
+
+        when(failedOrderHandler.handleFailure(anyString(), anyString(), anyInt(), anyString())).thenReturn(Mono.empty());
+        when(failedOrderHandler.reschedule(anyString(), anyString(), anyInt())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void testProcessBatch_BoundedConcurrencyAndPerOrderSequencing() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ConcurrentHashMap<String, AtomicInteger> inFlightPerOrder = new ConcurrentHashMap<>();
+        Queue<String> overlaps = new ConcurrentLinkedQueue<>();
+
+        when(orderProcessorService.processOrder(any(OrderMessage.class))).thenAnswer(invocation -> {
+            OrderMessage message = invocation.getArgument(0);
+            return Mono.defer(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                if (inFlightPerOrder.computeIfAbsent(message.getOrderId(), id -> new AtomicInteger()).incrementAndGet() > 1) {
+                    overlaps.add(message.getOrderId());
+                }
+                return Mono.delay(Duration.ofMillis(5)).map(tick -> order(message.getOrderId()));
+            }).doOnTerminate(() -> {
+                inFlight.decrementAndGet();
+                inFlightPerOrder.get(message.getOrderId()).decrementAndGet();
+            });
+        });
+
+        List<ConsumerRecord<String, OrderMessage>> records = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            records.add(record(i, "order-" + (i % 10)));
+        }
+
+        StepVerifier.create(kafkaOrderConsumer.processBatch(records))
+                .verifyComplete();
+
+        verify(orderProcessorService, times(40)).processOrder(any(OrderMessage.class));
+        assertTrue(maxInFlight.get() <= 4, "in-flight orders exceeded the configured concurrency");
+        assertTrue(overlaps.isEmpty(), "orders processed concurrently: " + overlaps);
+    }
+
+    @Test
+    public void testProcessBatch_FailedOrderIsStoredAndBatchCompletes() {
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenReturn(Mono.error(new RuntimeException("Inactive customer")));
+
+        StepVerifier.create(kafkaOrderConsumer.processBatch(List.of(record(0, "order-1"))))
+                .verifyComplete();
+
+        verify(failedOrderHandler).handleFailure(eq("order-1"), anyString(), eq(0), eq("Inactive customer"));
+    }
+
+    @Test
+    public void testProcessBatch_LockedOrderIsRescheduled() {
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenReturn(Mono.error(new OrderProcessorService.OrderLockedException()));
+
+        StepVerifier.create(kafkaOrderConsumer.processBatch(List.of(record(0, "order-1"))))
+                .verifyComplete();
+
+        verify(failedOrderHandler).reschedule(eq("order-1"), anyString(), eq(0));
+        verify(failedOrderHandler, never()).handleFailure(anyString(), anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    public void testProcessRetryRecord_PassesAttemptHeader() {
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenReturn(Mono.error(new RuntimeException("Inactive customer")));
+        ConsumerRecord<String, OrderMessage> retry = new ConsumerRecord<>("orders-retry-1m", 0, 0L, "order-1",
+                record(0, "order-1").value());
+        retry.headers().add(KafkaRetryService.ATTEMPT_HEADER, "2".getBytes(StandardCharsets.UTF_8));
+
+        StepVerifier.create(kafkaOrderConsumer.processRetryRecord(retry))
+                .verifyComplete();
+
+        verify(failedOrderHandler).handleFailure(eq("order-1"), anyString(), eq(2), eq("Inactive customer"));
+    }
+
+    @Test
+    public void testProcessBatch_RejectedRecordIsSkipped() {
+        ConsumerRecord<String, OrderMessage> malformed = new ConsumerRecord<>("orders", 0, 0L, null, null);
+
+        StepVerifier.create(kafkaOrderConsumer.processBatch(List.of(malformed)))
+                .verifyComplete();
+
+        verify(orderProcessorService, never()).processOrder(any(OrderMessage.class));
+    }
+
+    @Test
+    public void testProcessBatch_WaitingRecordsArePrefetched() {
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenAnswer(invocation -> Mono.just(order(invocation.<OrderMessage>getArgument(0).getOrderId())));
+        List<ConsumerRecord<String, OrderMessage>> records = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            records.add(record(i, "order-" + i));
+        }
+        records.add(new ConsumerRecord<>("orders", 0, 6L, null, null));
+
+        StepVerifier.create(kafkaOrderConsumer.processBatch(records))
+                .verifyComplete();
+
+        verify(prefetcher).prefetch(List.of(records.get(4).value(), records.get(5).value()));
+    }
+
+    @Test
+    public void testProcessRecord_KeyedRecordPassesItsPartition() {
+        List<Object> partitions = new ArrayList<>();
+        when(orderProcessorService.processOrder(any(OrderMessage.class))).thenReturn(Mono.deferContextual(context -> {
+            partitions.add(context.getOrDefault(PartitionAffinityLockService.PARTITION_CONTEXT_KEY, "none"));
+            return Mono.just(order("order-1"));
+        }));
+        OrderMessage message = record(0, "order-1").value();
+
+        StepVerifier.create(kafkaOrderConsumer.processRecord(new ConsumerRecord<>("orders", 3, 0L, "order-1", message)))
+                .verifyComplete();
+        StepVerifier.create(kafkaOrderConsumer.processRecord(new ConsumerRecord<>("orders", 3, 1L, "customer-456", message)))
+                .verifyComplete();
+
+        assertEquals(List.of("orders-3", "none"), partitions.stream().map(String::valueOf).toList());
+    }
+
+    @Test
+    public void testProcessRecord_RoutedRetryKeepsItsAttempts() {
+        when(orderProcessorService.processOrder(any(OrderMessage.class)))
+                .thenReturn(Mono.error(new RuntimeException("Inactive customer")));
+        ConsumerRecord<String, OrderMessage> routed = new ConsumerRecord<>("orders", 3, 0L, "order-1",
+                record(0, "order-1").value());
+        routed.headers().add(KafkaRetryService.ATTEMPT_HEADER, "2".getBytes(StandardCharsets.UTF_8));
+
+        StepVerifier.create(kafkaOrderConsumer.processRecord(routed))
+                .verifyComplete();
+
+        verify(failedOrderHandler).handleFailure(eq("order-1"), anyString(), eq(2), eq("Inactive customer"));
+    }
+
+    @Test
+    public void testPartitionMode_UnkeyedRecordAndRetryAreRouted() {
+        when(router.route(anyString(), anyString(), anyInt())).thenReturn(Mono.empty());
+        KafkaOrderConsumer partitionConsumer = new KafkaOrderConsumer(orderProcessorService, failedOrderHandler, 4,
+                metrics, prefetcher, router);
+        ConsumerRecord<String, OrderMessage> retry = new ConsumerRecord<>("orders-retry-1m", 0, 0L, "order-2",
+                record(0, "order-2").value());
+        retry.headers().add(KafkaRetryService.ATTEMPT_HEADER, "2".getBytes(StandardCharsets.UTF_8));
+
+        StepVerifier.create(partitionConsumer.processRecord(record(0, "order-1")))
+                .verifyComplete();
+        StepVerifier.create(partitionConsumer.processRetryRecord(retry))
+                .verifyComplete();
+
+        verify(router).route(eq("order-1"), anyString(), eq(0));
+        verify(router).route(eq("order-2"), anyString(), eq(2));
+        verify(orderProcessorService, never()).processOrder(any(OrderMessage.class));
+    }
+
+    private static ConsumerRecord<String, OrderMessage> record(long offset, String orderId) {
+        OrderMessage message = new OrderMessage();
+        message.setOrderId(orderId);
+        message.setCustomerId("customer-456");
+        message.setProducts(List.of());
+        return new ConsumerRecord<>("orders", 0, offset, null, message);
+    }
+
+    private static Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
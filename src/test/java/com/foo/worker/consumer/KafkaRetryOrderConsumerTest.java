@@ -0,0 +1,90 @@
+package com.foo.worker.consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.service.KafkaRetryService;
+
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests for KafkaRetryOrderConsumer using Mockito and a virtual-time scheduler.
+ *
+ * This test class validates:
+ * - A record that is not due pauses only its own partition until it is due
+ * - A due record of another tier is processed while that partition is paused
+ */
+public class KafkaRetryOrderConsumerTest {
+
+    @Mock
+    private KafkaOrderConsumer kafkaOrderConsumer;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+    private KafkaRetryOrderConsumer retryOrderConsumer;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(listenerRegistry.getListenerContainer(KafkaRetryOrderConsumer.LISTENER_ID)).thenReturn(container);
+        when(kafkaOrderConsumer.processRetryRecord(any())).thenReturn(Mono.empty());
+        retryOrderConsumer = new KafkaRetryOrderConsumer(kafkaOrderConsumer, listenerRegistry, timer);
+    }
+
+    @Test
+    public void testConsumeRetry_PendingRecordPausesOnlyItsPartition() {
+        ConsumerRecord<String, OrderMessage> pending = record("orders-retry-10m", Duration.ofMinutes(9));
+        ConsumerRecord<String, OrderMessage> due = record("orders-retry-5s", Duration.ofSeconds(-1));
+        TopicPartition pendingPartition = new TopicPartition("orders-retry-10m", 0);
+
+        retryOrderConsumer.consumeRetry(pending, acknowledgment);
+        retryOrderConsumer.consumeRetry(due, acknowledgment);
+
+        verify(container).pausePartition(pendingPartition);
+        verify(container, never()).pausePartition(new TopicPartition("orders-retry-5s", 0));
+        verify(acknowledgment).nack(Duration.ZERO);
+        verify(kafkaOrderConsumer, never()).processRetryRecord(pending);
+        verify(kafkaOrderConsumer).processRetryRecord(due);
+        verify(acknowledgment).acknowledge();
+
+        timer.advanceTimeBy(Duration.ofMinutes(8));
+        verify(container, never()).resumePartition(pendingPartition);
+        timer.advanceTimeBy(Duration.ofMinutes(1));
+        verify(container).resumePartition(pendingPartition);
+    }
+
+    private static ConsumerRecord<String, OrderMessage> record(String topic, Duration dueIn) {
+        OrderMessage message = new OrderMessage();
+        message.setOrderId("order-1");
+        ConsumerRecord<String, OrderMessage> record = new ConsumerRecord<>(topic, 0, 0L, "order-1", message);
+        long dueAt = System.currentTimeMillis() + dueIn.toMillis();
+        record.headers().add(KafkaRetryService.DUE_AT_HEADER, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
@@ -0,0 +1,55 @@
+package com.foo.worker.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.foo.worker.models.OrderMessage;
+
+/**
+ * Unit tests for OrderMessageDeserializer.
+ *
+ * This test class validates:
+ * - Order messages are decoded with their products, skipping unknown fields
+ * - Malformed records and orders without orderId are deserialized to null
+ */
+public class OrderMessageDeserializerTest {
+
+    private final OrderMessageDeserializer deserializer = new OrderMessageDeserializer();
+
+    @Test
+    public void testDeserialize_ValidMessage() {
+        OrderMessage message = deserialize("{\"orderId\":\"order-123\",\"customerId\":\"customer-456\","
+                + "\"source\":{\"channel\":\"web\",\"tags\":[1,2]},"
+                + "\"products\":[{\"productId\":\"product-789\",\"name\":\"Laptop\",\"price\":999.99,\"extra\":null},"
+                + "{\"productId\":\"product-790\",\"name\":\"Mouse\",\"price\":\"19.5\"}]}");
+
+        assertEquals("order-123", message.getOrderId());
+        assertEquals("customer-456", message.getCustomerId());
+        assertEquals(2, message.getProducts().size());
+        assertEquals("Laptop", message.getProducts().get(0).getName());
+        assertEquals(999.99, message.getProducts().get(0).getPrice());
+        assertEquals(19.5, message.getProducts().get(1).getPrice());
+    }
+
+    @Test
+    public void testDeserialize_MalformedRecordsAreRejected() {
+        assertNull(deserialize("{not-json"));
+        assertNull(deserialize("[\"order-123\"]"));
+        assertNull(deserialize("{\"orderId\":\"order-123\",\"customerId\":\"customer-456\"} {}"));
+        assertNull(deserialize("{\"orderId\":\"order-123\",\"customerId\":\"customer-456\",\"products\":{}}"));
+        assertNull(deserializer.deserialize("orders", null));
+    }
+
+    @Test
+    public void testDeserialize_MissingOrderIdIsRejected() {
+        assertNull(deserialize("{\"customerId\":\"customer-456\",\"products\":[]}"));
+    }
+
+    private OrderMessage deserialize(String json) {
+        return deserializer.deserialize("orders", json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,90 @@
+package com.foo.worker.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.foo.worker.models.OrderMessage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for ReactiveKafkaOrderConsumer using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Offsets are acknowledged only after the message has been processed
+ * - Records with the same key are processed in order
+ */
+public class ReactiveKafkaOrderConsumerTest {
+
+    @Mock
+    private KafkaReceiver<String, OrderMessage> kafkaReceiver;
+
+    @Mock
+    private KafkaOrderConsumer kafkaOrderConsumer;
+
+    private ReactiveKafkaOrderConsumer reactiveKafkaOrderConsumer;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        reactiveKafkaOrderConsumer = new ReactiveKafkaOrderConsumer(kafkaReceiver, kafkaOrderConsumer, 4);
+    }
+
+    @Test
+    public void testConsume_AcknowledgesAfterProcessing() {
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+        Sinks.Empty<Void> processing = Sinks.empty();
+        when(kafkaOrderConsumer.processRecord(any())).thenReturn(processing.asMono());
+        when(kafkaReceiver.receive()).thenReturn(Flux.just(record("order-1", 0L, offset)));
+
+        StepVerifier.create(reactiveKafkaOrderConsumer.consume())
+                .then(() -> verify(offset, never()).acknowledge())
+                .then(processing::tryEmitEmpty)
+                .verifyComplete();
+
+        verify(offset).acknowledge();
+    }
+
+    @Test
+    public void testConsume_PreservesOrderPerKey() {
+        List<String> processed = new CopyOnWriteArrayList<>();
+        when(kafkaOrderConsumer.processRecord(any())).thenAnswer(invocation -> {
+            ConsumerRecord<String, OrderMessage> record = invocation.getArgument(0);
+            return Mono.fromRunnable(() -> processed.add(record.key() + "@" + record.offset()));
+        });
+        when(kafkaReceiver.receive()).thenReturn(Flux.just(
+                record("order-1", 0L, mock(ReceiverOffset.class)),
+                record("order-1", 1L, mock(ReceiverOffset.class)),
+                record("order-1", 2L, mock(ReceiverOffset.class))));
+
+        StepVerifier.create(reactiveKafkaOrderConsumer.consume())
+                .verifyComplete();
+
+        assertEquals(List.of("order-1@0", "order-1@1", "order-1@2"), processed);
+    }
+
+    private static ReceiverRecord<String, OrderMessage> record(String key, long offset, ReceiverOffset receiverOffset) {
+        OrderMessage message = new OrderMessage();
+        message.setOrderId(key);
+        return new ReceiverRecord<>(new ConsumerRecord<>("orders", 0, offset, key, message), receiverOffset);
+    }
+}
@@ -0,0 +1,103 @@
+package com.foo.worker.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * GoApiStub: Local HTTP mock of the go-api "/customer" and "/product" endpoints,
+ * and of their "/customers?ids=" and "/products?ids=" batch variants, listening on
+ * a random port. Every customer is active and every product exists.
+ * Each response is delayed by the configured latency, and a configured fraction
+ * of requests fails with 500.
+ */
+public class GoApiStub {
+
+    private final DisposableServer server;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+
+    private GoApiStub() {
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get("/customer", (request, response) -> respond(request, response, "customerId"))
+                        .get("/product", (request, response) -> respond(request, response, "productId"))
+                        .get("/customers", (request, response) -> respondBatch(request, response, "customerId"))
+                        .get("/products", (request, response) -> respondBatch(request, response, "productId")))
+                .bindNow();
+    }
+
+    public static GoApiStub start() {
+        return new GoApiStub();
+    }
+
+    /**
+     * Sets the latency and the error rate (0.0 to 1.0) of subsequent requests.
+     */
+    public void configure(Duration latency, double errorRate) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    public void stop() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> respond(HttpServerRequest request, HttpServerResponse response, String idParameter) {
+        String id = queryParameter(request.uri(), idParameter);
+        return reply(response, () -> document(idParameter, id));
+    }
+
+    private Mono<Void> respondBatch(HttpServerRequest request, HttpServerResponse response, String idParameter) {
+        String[] ids = queryParameter(request.uri(), "ids").split(",");
+        return reply(response, () -> Arrays.stream(ids)
+                .map(id -> "\"" + id + "\":" + document(idParameter, id))
+                .collect(Collectors.joining(",", "{", "}")));
+    }
+
+    private Mono<Void> reply(HttpServerResponse response, Supplier<String> body) {
+        Mono<Void> reply = Mono.defer(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                return response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send();
+            }
+            return response.header("Content-Type", "application/json").sendString(Mono.just(body.get())).then();
+        });
+        return latency.isZero() ? reply : Mono.delay(latency).then(reply);
+    }
+
+    private static String document(String idParameter, String id) {
+        return "customerId".equals(idParameter)
+                ? "{\"customerId\":\"" + id + "\",\"name\":\"Customer " + id + "\",\"email\":\"" + id
+                        + "@example.com\",\"active\":true}"
+                : "{\"productId\":\"" + id + "\",\"name\":\"Product " + id + "\",\"description\":\"Load test product\",\"price\":"
+                        + (10 + Math.floorMod(id.hashCode(), 990)) + ".99}";
+    }
+
+    private static String queryParameter(String uri, String name) {
+        int query = uri.indexOf('?');
+        if (query < 0) {
+            return "";
+        }
+        for (String parameter : uri.substring(query + 1).split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return parameter.substring(name.length() + 1);
+            }
+        }
+        return "";
+    }
+}
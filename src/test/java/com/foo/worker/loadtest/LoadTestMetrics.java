@@ -0,0 +1,121 @@
+package com.foo.worker.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTestMetrics: Counts the orders produced and stored during a load test and
+ * records the end-to-end latency of each one, from the Kafka send to the write
+ * into the order storage.
+ *
+ * Latencies are kept as raw samples, so the report gives exact percentiles and
+ * a histogram with power-of-two millisecond buckets.
+ */
+public class LoadTestMetrics {
+
+    private final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount;
+
+    /**
+     * Records that an order has been handed to the Kafka producer.
+     */
+    public void sent(String orderId) {
+        sentAt.put(orderId, System.nanoTime());
+        sent.incrementAndGet();
+    }
+
+    /**
+     * Records that an order has been written to the order storage. Only the first
+     * write of an order counts.
+     */
+    public void stored(String orderId) {
+        Long start = sentAt.remove(orderId);
+        if (start == null) {
+            return;
+        }
+        stored.incrementAndGet();
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Clears the counters and latencies, e.g. after the warm-up. Orders still
+     * pending are forgotten.
+     */
+    public synchronized void reset() {
+        sentAt.clear();
+        sent.set(0);
+        stored.set(0);
+        latencyCount = 0;
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getStored() {
+        return stored.get();
+    }
+
+    /**
+     * Returns the number of produced orders that have not been stored yet.
+     */
+    public long getPending() {
+        return sentAt.size();
+    }
+
+    /**
+     * Returns the end-to-end latency report: percentiles and a histogram in milliseconds.
+     */
+    public String latencyReport() {
+        long[] samples;
+        synchronized (this) {
+            samples = Arrays.copyOf(latencies, latencyCount);
+        }
+        if (samples.length == 0) {
+            return "No orders stored.";
+        }
+        Arrays.sort(samples);
+        StringBuilder report = new StringBuilder(String.format(
+                "End-to-end latency (ms): p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                millis(percentile(samples, 0.50)), millis(percentile(samples, 0.90)),
+                millis(percentile(samples, 0.99)), millis(percentile(samples, 0.999)),
+                millis(samples[samples.length - 1])));
+
+        int from = 0;
+        for (long upperMillis = 1; from < samples.length; upperMillis <<= 1) {
+            long upperNanos = TimeUnit.MILLISECONDS.toNanos(upperMillis);
+            int to = from;
+            while (to < samples.length && samples[to] < upperNanos) {
+                to++;
+            }
+            if (to > from) {
+                report.append(String.format("  < %6d ms: %8d (%5.1f%%)%n", upperMillis, to - from,
+                        100.0 * (to - from) / samples.length));
+            }
+            from = to;
+        }
+        return report.toString();
+    }
+
+    private synchronized void record(long latencyNanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = latencyNanos;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,110 @@
+package com.foo.worker.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * OrderLoadGenerator: Publishes orders to the "orders" topic at a fixed rate.
+ *
+ * Customers and products are drawn from Zipf distributions, so a few hot
+ * customers and products account for most orders, as in production. Records are
+ * keyed by customerId, so hot customers also make some partitions hotter than
+ * others. Product lines only carry their productId and are completed by enrichment.
+ */
+public class OrderLoadGenerator {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final LoadTestMetrics metrics;
+    private final Zipf customers;
+    private final Zipf products;
+    private final int productsPerOrder;
+    private long sequence;
+
+    /**
+     * @param customers        Number of distinct customers.
+     * @param products         Number of distinct products.
+     * @param skew             Zipf exponent of customer and product popularity (0 = uniform).
+     * @param productsPerOrder Product lines per order.
+     */
+    public OrderLoadGenerator(KafkaTemplate<String, String> kafkaTemplate, LoadTestMetrics metrics,
+                              int customers, int products, double skew, int productsPerOrder) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        this.customers = new Zipf(customers, skew);
+        this.products = new Zipf(products, skew);
+        this.productsPerOrder = productsPerOrder;
+    }
+
+    /**
+     * Publishes {@code rate} orders per second for the given duration, blocking the
+     * calling thread. Sends are spread evenly over each second.
+     */
+    public void run(int rate, Duration duration) {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long produced = 0;
+        for (long now = start; now < end; now = System.nanoTime()) {
+            long due = (now - start) * rate / TimeUnit.SECONDS.toNanos(1);
+            for (; produced < due; produced++) {
+                send();
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        kafkaTemplate.flush();
+    }
+
+    private void send() {
+        String orderId = "load-" + (++sequence);
+        String customerId = "customer-" + customers.next();
+        StringBuilder message = new StringBuilder(128)
+                .append("{\"orderId\":\"").append(orderId)
+                .append("\",\"customerId\":\"").append(customerId)
+                .append("\",\"products\":[");
+        for (int i = 0; i < productsPerOrder; i++) {
+            message.append(i == 0 ? "" : ",").append("{\"productId\":\"product-").append(products.next()).append("\"}");
+        }
+        message.append("]}");
+
+        metrics.sent(orderId);
+        kafkaTemplate.send("orders", customerId, message.toString());
+    }
+
+    /**
+     * Zipf sampler over 1..n using the precomputed cumulative distribution.
+     */
+    private static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next() {
+            double value = ThreadLocalRandom.current().nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low + 1;
+        }
+    }
+}
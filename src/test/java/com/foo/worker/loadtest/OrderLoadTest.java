@@ -0,0 +1,244 @@
+package com.foo.worker.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.foo.worker.service.OrderStorageService;
+
+import redis.embedded.RedisServer;
+
+/**
+ * End-to-end load test of the worker. It only runs with the "load-test" profile:
+ *
+ *   mvn test -Pload-test -Dworker.loadtest.rate=1000 -Dworker.loadtest.duration=60s
+ *
+ * The worker runs with its production configuration against:
+ * - embedded Kafka ("orders" with 12 partitions)
+ * - an embedded Redis server
+ * - a local mock of go-api (GoApiStub) with configurable latency and error rate
+ * - in-memory order storage instead of MongoDB (RecordingOrderStorageService)
+ *
+ * OrderLoadGenerator publishes "worker.loadtest.rate" orders per second with
+ * Zipf-skewed customers and products. A warm-up at the same rate fills the
+ * caches and connection pools and lets the JIT compile the hot path; it is not
+ * part of the report. Every second the test prints the orders
+ * stored and the consumer lag of "order_group". At the end it prints the
+ * sustained throughput and the end-to-end latency histogram (produce to storage).
+ *
+ * Any worker property can be overridden the same way, e.g.
+ * -Dworker.kafka.consumer.mode=batch or -Dworker.lock.mode=partition.
+ */
+@Tag("load")
+@SpringBootTest(properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@EmbeddedKafka(topics = "orders", partitions = OrderLoadTest.PARTITIONS)
+class OrderLoadTest {
+
+    static final int PARTITIONS = 12;
+    private static final String GROUP_ID = "order_group";
+
+    private static final RedisServer REDIS = startRedis();
+    private static final GoApiStub GO_API = GoApiStub.start();
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private LoadTestMetrics metrics;
+
+    @Value("${worker.loadtest.rate:500}")
+    private int rate;
+
+    @Value("${worker.loadtest.duration:30s}")
+    private Duration duration;
+
+    @Value("${worker.loadtest.warm-up:10s}")
+    private Duration warmUp;
+
+    @Value("${worker.loadtest.drain-timeout:60s}")
+    private Duration drainTimeout;
+
+    @Value("${worker.loadtest.customers:10000}")
+    private int customers;
+
+    @Value("${worker.loadtest.products:1000}")
+    private int products;
+
+    @Value("${worker.loadtest.skew:1.1}")
+    private double skew;
+
+    @Value("${worker.loadtest.products-per-order:3}")
+    private int productsPerOrder;
+
+    @Value("${worker.loadtest.api.latency:5ms}")
+    private Duration apiLatency;
+
+    @Value("${worker.loadtest.api.error-rate:0.0}")
+    private double apiErrorRate;
+
+    @DynamicPropertySource
+    static void standIns(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", () -> "localhost");
+        registry.add("spring.data.redis.port", () -> REDIS.ports().get(0));
+        registry.add("worker.enrichment.base-url", GO_API::getBaseUrl);
+    }
+
+    @AfterAll
+    static void stopStandIns() throws IOException {
+        GO_API.stop();
+        REDIS.stop();
+    }
+
+    @Test
+    void sustainedLoad() throws Exception {
+        GO_API.configure(apiLatency, apiErrorRate);
+        OrderLoadGenerator generator = new OrderLoadGenerator(kafkaTemplate, metrics, customers, products, skew,
+                productsPerOrder);
+        System.out.printf("Load test: %d orders/s for %s, API latency %s, API error rate %.3f%n",
+                rate, duration, apiLatency, apiErrorRate);
+
+        generator.run(rate, warmUp);
+        awaitStored(drainTimeout);
+        System.out.printf("Warm-up done: %d of %d orders stored%n", metrics.getStored(), metrics.getSent());
+        metrics.reset();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong maxLag = new AtomicLong();
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            long start = System.nanoTime();
+            AtomicLong lastStored = new AtomicLong();
+            sampler.scheduleAtFixedRate(() -> {
+                long stored = metrics.getStored();
+                long lag = consumerLag(admin);
+                maxLag.accumulateAndGet(lag, Math::max);
+                System.out.printf("[%4ds] sent=%d stored=%d (+%d/s) pending=%d lag=%d%n",
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), metrics.getSent(), stored,
+                        stored - lastStored.getAndSet(stored), metrics.getPending(), lag);
+            }, 1, 1, TimeUnit.SECONDS);
+
+            generator.run(rate, duration);
+            long producedAt = System.nanoTime();
+            long storedWhileProducing = metrics.getStored();
+
+            awaitStored(drainTimeout);
+            long drainedAt = System.nanoTime();
+            sampler.shutdownNow();
+
+            System.out.println("==== Load test report ====");
+            System.out.printf("Sent: %d, stored: %d, not stored: %d%n",
+                    metrics.getSent(), metrics.getStored(), metrics.getPending());
+            System.out.printf("Sustained throughput while producing: %.1f orders/s (target %d)%n",
+                    storedWhileProducing / seconds(producedAt - start), rate);
+            System.out.printf("Drain time after the last order: %.1f s%n", seconds(drainedAt - producedAt));
+            System.out.printf("Consumer lag: max %d, final %d%n", maxLag.get(), consumerLag(admin));
+            System.out.print(metrics.latencyReport());
+        } finally {
+            sampler.shutdownNow();
+        }
+
+        assertTrue(metrics.getStored() > 0, "no order was stored");
+    }
+
+    /**
+     * Waits until every produced order has been stored, or the timeout has passed.
+     */
+    private void awaitStored(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (metrics.getPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Returns the total lag of "order_group" on "orders": end offsets minus committed offsets.
+     */
+    private static long consumerLag(AdminClient admin) {
+        try {
+            Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(GROUP_ID)
+                    .partitionsToOffsetAndMetadata().get();
+            Map<TopicPartition, OffsetSpec> latest = IntStream.range(0, PARTITIONS)
+                    .mapToObj(partition -> new TopicPartition("orders", partition))
+                    .collect(Collectors.toMap(Function.identity(), partition -> OffsetSpec.latest()));
+            return admin.listOffsets(latest).all().get().entrySet().stream()
+                    .mapToLong(end -> {
+                        OffsetAndMetadata offset = committed.get(end.getKey());
+                        return end.getValue().offset() - (offset != null ? offset.offset() : 0);
+                    })
+                    .sum();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return Math.max(nanos, 1) / 1e9;
+    }
+
+    private static RedisServer startRedis() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            RedisServer redis = RedisServer.newRedisServer()
+                    .port(socket.getLocalPort())
+                    .setting("save \"\"")
+                    .setting("appendonly no")
+                    .build();
+            socket.close();
+            redis.start();
+            return redis;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces MongoDB with the recording in-memory order storage.
+     */
+    @TestConfiguration
+    static class LoadTestConfig {
+
+        @Bean
+        LoadTestMetrics loadTestMetrics() {
+            return new LoadTestMetrics();
+        }
+
+        @Bean
+        @Primary
+        OrderStorageService recordingOrderStorageService(LoadTestMetrics metrics) {
+            return new RecordingOrderStorageService(metrics);
+        }
+    }
+}
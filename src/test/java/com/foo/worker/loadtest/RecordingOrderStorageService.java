@@ -0,0 +1,45 @@
+package com.foo.worker.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.foo.worker.models.Order;
+import com.foo.worker.service.OrderStorageService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * RecordingOrderStorageService: In-memory stand-in for the MongoDB order storage.
+ * Orders are upserted by orderId, and every write is reported to LoadTestMetrics
+ * to close the end-to-end latency of the order.
+ */
+public class RecordingOrderStorageService implements OrderStorageService {
+
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+    private final LoadTestMetrics metrics;
+
+    public RecordingOrderStorageService(LoadTestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Order> saveOrder(Order order) {
+        return Mono.fromSupplier(() -> {
+            order.setId(order.getOrderId());
+            orders.put(order.getOrderId(), order);
+            metrics.stored(order.getOrderId());
+            return order;
+        });
+    }
+
+    @Override
+    public Flux<Order> saveOrders(Flux<Order> orders) {
+        return orders.concatMap(this::saveOrder);
+    }
+
+    @Override
+    public Flux<Order> findRecentOrders(int limit) {
+        return Flux.fromIterable(orders.values()).take(limit);
+    }
+}
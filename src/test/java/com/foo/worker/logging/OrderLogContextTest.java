@@ -0,0 +1,81 @@
+package com.foo.worker.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+/**
+ * Unit tests for OrderLogContext using StepVerifier.
+ *
+ * This test class validates:
+ * - Log statements see the order and trace IDs of the subscriber context in the MDC
+ * - The MDC is restored once the statement has run
+ * - Orders without IDs in the context log without them
+ */
+public class OrderLogContextTest {
+
+    @Test
+    public void testOnNext_PutsContextIdsInMdcDuringStatement() {
+        List<String> logged = new ArrayList<>();
+
+        Mono<String> order = Mono.just("stored")
+                .doOnEach(OrderLogContext.onNext(value -> logged.add(
+                        value + " " + MDC.get(OrderLogContext.ORDER_ID) + " " + MDC.get(OrderLogContext.TRACE_ID))))
+                .contextWrite(context -> OrderLogContext.withOrderId(context, "order-1"))
+                .contextWrite(Context.of(OrderLogContext.TRACE_ID, "trace-1"));
+
+        StepVerifier.create(order).expectNext("stored").verifyComplete();
+
+        assertEquals(List.of("stored order-1 trace-1"), logged);
+        assertNull(MDC.get(OrderLogContext.ORDER_ID));
+        assertNull(MDC.get(OrderLogContext.TRACE_ID));
+    }
+
+    @Test
+    public void testOnError_RunsOnlyForErrors() {
+        List<String> logged = new ArrayList<>();
+
+        Mono<String> order = Mono.<String>error(new RuntimeException("Inactive customer"))
+                .doOnEach(OrderLogContext.onNext(value -> logged.add("next")))
+                .doOnEach(OrderLogContext.onError(error -> logged.add(
+                        error.getMessage() + " " + MDC.get(OrderLogContext.ORDER_ID))))
+                .contextWrite(context -> OrderLogContext.withOrderId(context, "order-1"));
+
+        StepVerifier.create(order).verifyErrorMessage("Inactive customer");
+
+        assertEquals(List.of("Inactive customer order-1"), logged);
+        assertNull(MDC.get(OrderLogContext.ORDER_ID));
+    }
+
+    @Test
+    public void testRun_WithoutIdsLeavesMdcEmpty() {
+        List<String> logged = new ArrayList<>();
+
+        OrderLogContext.run(OrderLogContext.withOrderId(Context.empty(), null),
+                () -> logged.add(String.valueOf(MDC.get(OrderLogContext.ORDER_ID))));
+
+        assertEquals(List.of("null"), logged);
+    }
+
+    @Test
+    public void testRun_RestoresPreviousMdcValues() {
+        MDC.put(OrderLogContext.TRACE_ID, "scope-trace");
+        try {
+            OrderLogContext.run(Context.of(OrderLogContext.TRACE_ID, "trace-1"),
+                    () -> assertEquals("trace-1", MDC.get(OrderLogContext.TRACE_ID)));
+
+            assertEquals("scope-trace", MDC.get(OrderLogContext.TRACE_ID));
+        } finally {
+            MDC.remove(OrderLogContext.TRACE_ID);
+        }
+    }
+}
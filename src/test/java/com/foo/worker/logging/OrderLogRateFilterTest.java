@@ -0,0 +1,71 @@
+package com.foo.worker.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Unit tests for OrderLogRateFilter.
+ *
+ * This test class validates:
+ * - Per-order events over the budget of their level are denied until the next second
+ * - ERROR events and events without the ORDER marker are never limited
+ * - A negative budget means unlimited
+ */
+public class OrderLogRateFilterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private OrderLogRateFilter filter;
+    private Logger logger;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new OrderLogRateFilter(now::get);
+        filter.setInfoPerSecond(2);
+        filter.setWarnPerSecond(0);
+        filter.start();
+        logger = new LoggerContext().getLogger("order");
+        logger.setLevel(Level.DEBUG);
+    }
+
+    @Test
+    public void testDecide_DeniesEventsOverTheBudgetUntilTheNextSecond() {
+        assertEquals(FilterReply.NEUTRAL, decide(OrderLogContext.ORDER, Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(OrderLogContext.ORDER, Level.INFO));
+        assertEquals(FilterReply.DENY, decide(OrderLogContext.ORDER, Level.INFO));
+
+        now.addAndGet(1_000);
+
+        assertEquals(FilterReply.NEUTRAL, decide(OrderLogContext.ORDER, Level.INFO));
+        assertEquals(1, filter.getSuppressed());
+    }
+
+    @Test
+    public void testDecide_NeverLimitsErrorsOrUnmarkedEvents() {
+        assertEquals(FilterReply.DENY, decide(OrderLogContext.ORDER, Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(OrderLogContext.ORDER, Level.ERROR));
+        assertEquals(FilterReply.NEUTRAL, decide(null, Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(MarkerFactory.getMarker("OTHER"), Level.WARN));
+    }
+
+    @Test
+    public void testDecide_NegativeBudgetIsUnlimited() {
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(OrderLogContext.ORDER, Level.DEBUG));
+        }
+    }
+
+    private FilterReply decide(Marker marker, Level level) {
+        return filter.decide(marker, logger, level, "Order stored {}", new Object[] { "order-1" }, null);
+    }
+}
@@ -0,0 +1,183 @@
+package com.foo.worker.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.foo.worker.logging.OrderLogContext;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.ReceiverContext;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.handler.TracingObservationHandler.TracingContext;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for WorkerMetrics using StepVerifier.
+ *
+ * This test class validates:
+ * - Timers are tagged with the outcome of the value, or with error/empty/cancelled
+ * - Each subscription records exactly one sample
+ * - Orders count as in flight until their processing terminates
+ * - Retries are counted per backend, dead-lettered orders separately
+ * - Nested stages are child observations (spans) of the subscribing stage
+ * - Record handling continues the trace of the Kafka headers and exposes its trace ID
+ */
+public class WorkerMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WorkerMetrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new WorkerMetrics(meterRegistry);
+    }
+
+    @Test
+    public void testTimed_TagsOutcomeOfEachSignal() {
+        Tags tags = Tags.of("api", "customer");
+
+        StepVerifier.create(metrics.timed("worker.test", tags, value -> "success", Mono.just("value")))
+                .expectNext("value")
+                .verifyComplete();
+        StepVerifier.create(metrics.timed("worker.test", tags, value -> "success", Mono.empty()))
+                .verifyComplete();
+        StepVerifier.create(metrics.timed("worker.test", tags, value -> "success",
+                        Mono.error(new RuntimeException("upstream down"))))
+                .verifyError();
+        StepVerifier.create(metrics.timed("worker.test", tags, value -> "success", Mono.never()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1L, timerCount("success"));
+        assertEquals(1L, timerCount("empty"));
+        assertEquals(1L, timerCount("error"));
+        assertEquals(1L, timerCount("cancelled"));
+    }
+
+    @Test
+    public void testTimed_RecordsOneSamplePerSubscription() {
+        Mono<Boolean> timed = metrics.timed("worker.test", Tags.of("api", "customer"),
+                acquired -> acquired ? "acquired" : "contended", Mono.just(false));
+
+        StepVerifier.create(timed).expectNext(false).verifyComplete();
+        StepVerifier.create(timed).expectNext(false).verifyComplete();
+
+        assertEquals(2L, timerCount("contended"));
+    }
+
+    @Test
+    public void testTimeOrder_CountsOrderInFlightUntilItTerminates() {
+        StepVerifier.create(metrics.timeOrder(Mono.delay(Duration.ofMillis(100))))
+                .then(() -> assertEquals(1.0, meterRegistry.get("worker.orders.inflight").gauge().value()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(0.0, meterRegistry.get("worker.orders.inflight").gauge().value());
+        assertEquals(1L, meterRegistry.get("worker.order.processing").tag(WorkerMetrics.OUTCOME, "success")
+                .timer().count());
+    }
+
+    @Test
+    public void testCountRetry_SeparatesDeadLetteredOrders() {
+        metrics.countRetry("redis", false);
+        metrics.countRetry("redis", false);
+        metrics.countRetry("redis", true);
+
+        assertEquals(2.0, meterRegistry.get("worker.retry.scheduled").tag("backend", "redis").counter().count());
+        assertEquals(1.0, meterRegistry.get("worker.retry.dead-lettered").tag("backend", "redis").counter().count());
+    }
+
+    @Test
+    public void testTimed_NestsStagesAsChildObservations() {
+        List<Observation.Context> stopped = new ArrayList<>();
+        WorkerMetrics tracedMetrics = new WorkerMetrics(meterRegistry, recordingRegistry(stopped, null));
+
+        Mono<String> inner = tracedMetrics.timed("worker.inner", Tags.empty(), value -> "success", Mono.just("value"));
+        StepVerifier.create(tracedMetrics.timed("worker.outer", Tags.empty(), value -> "success", inner))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(List.of("worker.inner", "worker.outer"), stopped.stream().map(Observation.Context::getName).toList());
+        assertSame(stopped.get(1), stopped.get(0).getParentObservation().getContextView());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTimeRecord_ContinuesTraceOfRecordHeaders() {
+        List<Observation.Context> stopped = new ArrayList<>();
+        Span span = mock(Span.class, RETURNS_DEEP_STUBS);
+        when(span.context().traceId()).thenReturn("4bf92f3577b34da6a3ce929d0e0e4736");
+        WorkerMetrics tracedMetrics = new WorkerMetrics(meterRegistry, recordingRegistry(stopped, span));
+        String traceParent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("orders", 0, 42L, "order-1", "{}");
+        record.headers().add("traceparent", traceParent.getBytes(StandardCharsets.UTF_8));
+        List<Object> traceIds = new ArrayList<>();
+
+        StepVerifier.create(tracedMetrics.timeRecord(record, "order-1", Mono.deferContextual(context -> {
+                    traceIds.add(context.get(OrderLogContext.TRACE_ID));
+                    return Mono.empty();
+                })))
+                .verifyComplete();
+
+        ReceiverContext<ConsumerRecord<?, ?>> receiverContext = (ReceiverContext<ConsumerRecord<?, ?>>) stopped.get(0);
+        assertEquals(traceParent, receiverContext.getGetter().get(receiverContext.getCarrier(), "traceparent"));
+        assertEquals(List.of("4bf92f3577b34da6a3ce929d0e0e4736"), traceIds);
+        assertEquals(1L, meterRegistry.get("worker.order.receive").tag(WorkerMetrics.OUTCOME, "handled")
+                .tag("topic", "orders").timer().count());
+    }
+
+    /**
+     * Registry recording timers in the meter registry and stopped observations in
+     * {@code stopped}. With a span, it plays the tracing handler and attaches the span
+     * to every observation.
+     */
+    private ObservationRegistry recordingRegistry(List<Observation.Context> stopped, Span span) {
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig()
+                .observationHandler(new DefaultMeterObservationHandler(meterRegistry))
+                .observationHandler(new ObservationHandler<>() {
+                    @Override
+                    public void onStart(Observation.Context context) {
+                        if (span != null) {
+                            TracingContext tracingContext = new TracingContext();
+                            tracingContext.setSpan(span);
+                            context.put(TracingContext.class, tracingContext);
+                        }
+                    }
+
+                    @Override
+                    public void onStop(Observation.Context context) {
+                        stopped.add(context);
+                    }
+
+                    @Override
+                    public boolean supportsContext(Observation.Context context) {
+                        return true;
+                    }
+                });
+        return observationRegistry;
+    }
+
+    private long timerCount(String outcome) {
+        return meterRegistry.get("worker.test").tag(WorkerMetrics.OUTCOME, outcome).timer().count();
+    }
+}
@@ -0,0 +1,166 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter using a manual clock and StepVerifier.
+ *
+ * This test class validates:
+ * - Calls over the limit wait for a free slot, in arrival order
+ * - Calls still waiting after max-wait (or with no wait) are rejected without reaching the upstream
+ * - The limit grows while latency stays at its no-load level and the limit is in use
+ * - The limit shrinks when latency rises (calls queue in the upstream)
+ * - Failures and overloaded responses decrease the limit once per round trip
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = Duration.ofMillis(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+    @Test
+    public void testLimit_RejectsCallsOverTheLimitWithoutWait() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, Duration.ZERO);
+        Disposable first = limiter.limit(Mono.never(), value -> false).subscribe();
+        Disposable second = limiter.limit(Mono.never(), value -> false).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("value"), value -> false))
+                .verifyError(AdaptiveConcurrencyLimiter.LimitExceededException.class);
+        assertTrue(limiter.isSaturated());
+        assertEquals(1L, limiter.getRejected());
+
+        first.dispose();
+        second.dispose();
+        assertEquals(0, limiter.getInFlight());
+        assertFalse(limiter.isSaturated());
+    }
+
+    @Test
+    public void testLimit_QueuedCallRunsWhenASlotFrees() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(500));
+        Sinks.One<String> first = Sinks.one();
+        limiter.limit(first.asMono(), value -> false).subscribe();
+        List<String> results = new ArrayList<>();
+        limiter.limit(Mono.just("second"), value -> false).subscribe(results::add);
+        limiter.limit(Mono.just("third"), value -> false).subscribe(results::add);
+
+        assertEquals(2, limiter.getQueued());
+        assertTrue(limiter.isSaturated());
+        assertEquals(3.0, limiter.getUtilization());
+
+        first.tryEmitValue("first");
+
+        assertEquals(List.of("second", "third"), results);
+        assertEquals(0, limiter.getQueued());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0L, limiter.getRejected());
+    }
+
+    @Test
+    public void testLimit_RejectsQueuedCallAfterMaxWait() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(500));
+        Disposable first = limiter.limit(Mono.never(), value -> false).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("value"), value -> false))
+                .then(() -> timer.advanceTimeBy(Duration.ofMillis(499)))
+                .expectNoEvent(Duration.ZERO)
+                .then(() -> timer.advanceTimeBy(Duration.ofMillis(1)))
+                .verifyError(AdaptiveConcurrencyLimiter.LimitExceededException.class);
+        assertEquals(1L, limiter.getRejected());
+        assertEquals(0, limiter.getQueued());
+
+        first.dispose();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimit_CancelledQueuedCallLeavesTheQueue() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, Duration.ofMillis(500));
+        Disposable first = limiter.limit(Mono.never(), value -> false).subscribe();
+        Disposable waiting = limiter.limit(Mono.just("value"), value -> false).subscribe();
+
+        waiting.dispose();
+        assertEquals(0, limiter.getQueued());
+        first.dispose();
+
+        assertEquals(0, limiter.getInFlight());
+        assertFalse(limiter.isSaturated());
+    }
+
+    @Test
+    public void testLimit_GrowsAtNoLoadLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+
+        complete(limiter, 4, 10 * MILLIS, false);
+
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimit_ShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        complete(limiter, 20, 10 * MILLIS, false);
+        int limitAtNoLoad = limiter.getLimit();
+
+        complete(limiter, 10, 100 * MILLIS, false);
+
+        assertEquals(limitAtNoLoad - 10, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimit_BacksOffOncePerRoundTripOnFailures() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        complete(limiter, 10, 10 * MILLIS, true);
+        assertEquals(18, limiter.getLimit()); // 20 * 0.9, once for the 10 concurrent failures
+
+        StepVerifier.create(limiter.limit(Mono.just("503"), "503"::equals)).expectNext("503").verifyComplete();
+        assertEquals(16, limiter.getLimit()); // 18 * 0.9
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return limiter(initialLimit, Duration.ZERO);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, Duration maxWait) {
+        return new AdaptiveConcurrencyLimiter("customer", initialLimit, 1, 100, 3, 6, 0.9, maxWait, clock::get, timer);
+    }
+
+    /**
+     * Starts {@code calls} concurrent calls, then completes (or fails) all of them
+     * {@code latency} later.
+     */
+    private void complete(AdaptiveConcurrencyLimiter limiter, int calls, long latency, boolean fail) {
+        List<Sinks.One<String>> responses = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            Sinks.One<String> response = Sinks.one();
+            responses.add(response);
+            limiter.limit(response.asMono(), value -> false).subscribe(value -> { }, error -> { });
+        }
+        clock.addAndGet(latency);
+        responses.forEach(response -> {
+            if (fail) {
+                response.tryEmitError(new RuntimeException("timeout"));
+            } else {
+                response.tryEmitValue("value");
+            }
+        });
+    }
+}
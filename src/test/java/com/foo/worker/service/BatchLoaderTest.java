@@ -0,0 +1,94 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests for BatchLoader on a virtual-time scheduler.
+ *
+ * This test class validates:
+ * - Keys loaded within a window are loaded with one batch call, each once
+ * - A full batch is sent without waiting for the window
+ * - A key missing from the batch answer completes empty
+ * - The error of a batch call reaches every load of the batch
+ */
+public class BatchLoaderTest {
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final List<List<String>> batches = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @Test
+    public void testLoad_KeysOfAWindowAreLoadedInOneBatch() {
+        BatchLoader<String> loader = loader(10, keys -> Mono.just(values(keys)));
+        List<String> answers = new ArrayList<>();
+
+        loader.load("a").subscribe(answers::add);
+        loader.load("b").subscribe(answers::add);
+        loader.load("a").subscribe(answers::add);
+        assertEquals(List.of(), batches);
+
+        scheduler.advanceTimeBy(Duration.ofMillis(2));
+
+        assertEquals(List.of(List.of("a", "b")), batches);
+        assertEquals(List.of("value-a", "value-a", "value-b"), answers.stream().sorted().toList());
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    public void testLoad_FullBatchIsSentRightAway() {
+        BatchLoader<String> loader = loader(2, keys -> Mono.just(values(keys)));
+
+        loader.load("a").subscribe();
+        loader.load("b").subscribe();
+        loader.load("c").subscribe();
+
+        assertEquals(List.of(List.of("a", "b")), batches);
+        scheduler.advanceTimeBy(Duration.ofMillis(2));
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), batches);
+    }
+
+    @Test
+    public void testLoad_MissingKeyCompletesEmpty() {
+        BatchLoader<String> loader = loader(10, keys -> Mono.just(Map.of("a", "value-a")));
+
+        StepVerifier.withVirtualTime(() -> loader.load("unknown"), () -> scheduler, 1)
+                .thenAwait(Duration.ofMillis(2))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testLoad_BatchErrorReachesEveryLoad() {
+        BatchLoader<String> loader = loader(10, keys -> Mono.error(new RuntimeException("503")));
+        List<String> errors = new ArrayList<>();
+
+        loader.load("a").subscribe(value -> { }, error -> errors.add(error.getMessage()));
+        loader.load("b").subscribe(value -> { }, error -> errors.add(error.getMessage()));
+        scheduler.advanceTimeBy(Duration.ofMillis(2));
+
+        assertEquals(List.of("503", "503"), errors);
+    }
+
+    private BatchLoader<String> loader(int maxBatchSize, Function<List<String>, Mono<Map<String, String>>> batchCall) {
+        return new BatchLoader<>(keys -> {
+            batches.add(keys);
+            return batchCall.apply(keys);
+        }, Duration.ofMillis(2), maxBatchSize, batchSizes::add, scheduler);
+    }
+
+    private static Map<String, String> values(List<String> keys) {
+        return keys.stream().collect(Collectors.toMap(key -> key, key -> "value-" + key));
+    }
+}
@@ -0,0 +1,105 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.Order;
+import com.foo.worker.models.Product;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for CacheWarmUp using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - The most frequent customers and products of the recent orders are preloaded
+ * - IDs are ranked by frequency, then by ID
+ * - A failing warm-up does not fail startup
+ * - A disabled warm-up reads nothing
+ */
+public class CacheWarmUpTest {
+
+    @Mock
+    private OrderStorageService orderStorageService;
+
+    @Mock
+    private EnrichmentService enrichmentService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(enrichmentService.preload(anyCollection(), anyCollection())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void testWarmUp_PreloadsTopIdsOfRecentOrders() {
+        when(orderStorageService.findRecentOrders(100)).thenReturn(Flux.just(
+                order("customer-1", "product-1", "product-2"),
+                order("customer-2", "product-2"),
+                order("customer-2", "product-3", "product-2"),
+                order("customer-3", "product-3")));
+
+        StepVerifier.create(warmUp(true).warmUp())
+                .verifyComplete();
+
+        verify(enrichmentService).preload(List.of("customer-2", "customer-1"), List.of("product-2", "product-3"));
+        assertEquals(4.0, meterRegistry.get("worker.enrichment.preloads").tag("source", "warm-up").counter().count());
+    }
+
+    @Test
+    public void testMostFrequent_RanksByCountThenId() {
+        assertEquals(List.of("b", "a", "c"),
+                CacheWarmUp.mostFrequent(Stream.of("c", "a", "b", "b", null), 3));
+        assertEquals(List.of(), CacheWarmUp.mostFrequent(Stream.of("a"), 0));
+    }
+
+    @Test
+    public void testStart_FailedWarmUpDoesNotFailStartup() {
+        when(orderStorageService.findRecentOrders(100)).thenReturn(Flux.error(new RuntimeException("Mongo down")));
+        CacheWarmUp cacheWarmUp = warmUp(true);
+
+        cacheWarmUp.start();
+
+        assertEquals(true, cacheWarmUp.isRunning());
+        verify(enrichmentService, never()).preload(anyCollection(), anyCollection());
+    }
+
+    @Test
+    public void testStart_DisabledWarmUpReadsNothing() {
+        warmUp(false).start();
+
+        verify(orderStorageService, never()).findRecentOrders(100);
+    }
+
+    private CacheWarmUp warmUp(boolean enabled) {
+        return new CacheWarmUp(orderStorageService, enrichmentService, metrics, enabled, 100, 2, 2,
+                Duration.ofSeconds(1));
+    }
+
+    private static Order order(String customerId, String... productIds) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setProducts(Arrays.stream(productIds).map(id -> new Product(id, null, null)).toList());
+        return order;
+    }
+}
@@ -0,0 +1,94 @@
+package com.foo.worker.service;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.CustomerDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for EnrichmentCache using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Cached values are returned with their type
+ * - Invalidations are published and applied locally
+ * - An updated value is kept locally and published, a plain put is not published
+ * - Invalidations from other instances drop the local entry
+ */
+public class EnrichmentCacheTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private EnrichmentCache enrichmentCache;
+
+    private final CustomerDetails customer = new CustomerDetails("customer-456", "John Doe", "john.doe@example.com", true);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        enrichmentCache = new EnrichmentCache(redisTemplate, true, 100, Duration.ofMinutes(5), new WorkerMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testGet_ReturnsCachedValue() {
+        enrichmentCache.put("customer:customer-456", customer);
+
+        StepVerifier.create(enrichmentCache.get("customer:customer-456", CustomerDetails.class))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testInvalidate_DropsEntryAndPublishes() {
+        enrichmentCache.put("customer:customer-456", customer);
+
+        StepVerifier.create(enrichmentCache.invalidate("customer:customer-456"))
+                .verifyComplete();
+
+        StepVerifier.create(enrichmentCache.get("customer:customer-456", CustomerDetails.class))
+                .verifyComplete();
+        verify(redisTemplate).convertAndSend(eq(EnrichmentCache.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    public void testUpdate_KeepsNewValueAndPublishes() {
+        CustomerDetails updated = new CustomerDetails("customer-456", "Jane Doe", "jane.doe@example.com", true);
+        enrichmentCache.put("customer:customer-456", customer);
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+
+        StepVerifier.create(enrichmentCache.update("customer:customer-456", updated))
+                .verifyComplete();
+
+        StepVerifier.create(enrichmentCache.get("customer:customer-456", CustomerDetails.class))
+                .expectNext(updated)
+                .verifyComplete();
+        verify(redisTemplate).convertAndSend(eq(EnrichmentCache.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    public void testOnInvalidation_FromOtherInstanceDropsEntry() {
+        enrichmentCache.put("customer:customer-456", customer);
+
+        enrichmentCache.onInvalidation("other-instance|customer:customer-456");
+
+        StepVerifier.create(enrichmentCache.get("customer:customer-456", CustomerDetails.class))
+                .verifyComplete();
+    }
+}
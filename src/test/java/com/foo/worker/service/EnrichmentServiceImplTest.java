@@ -0,0 +1,366 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
+import com.foo.worker.models.ProductDetails;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for EnrichmentServiceImpl using Mockito, a stubbed WebClient and StepVerifier.
+ *
+ * This test class validates:
+ * - Every product of an order is enriched
+ * - Cached products are read with one MGET and misses are fetched from the API
+ * - Fetched products are written back with their TTL in one script call
+ * - Unknown products are cached as negative entries
+ * - Plain JSON hits get the product TTL if they have none, other hits are left alone
+ * - Stale entries are served while they are refreshed, and a changed value is published
+ * - Values fetched after a Redis miss are published to the other instances, Redis hits
+ *   and unchanged refreshes are not
+ * - With batching, the misses of an order are fetched with one bulk request
+ * - A transient API failure is retried, an unknown product is not
+ * - Preloaded products are served from the local cache
+ * - A negative entry only skips its own product in a preload
+ */
+public class EnrichmentServiceImplTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, byte[]> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, byte[]> valueOperations;
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> invalidationTemplate;
+
+    private final List<String> requestedUris = new CopyOnWriteArrayList<>();
+    private final AtomicInteger flakyFailures = new AtomicInteger(1);
+
+    private static final Instant NOW = Instant.parse("2024-10-20T10:00:00Z");
+
+    private RedisCachePolicy cachePolicy;
+
+    private EnrichmentServiceImpl enrichmentService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(invalidationTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        cachePolicy = new RedisCachePolicy(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(1),
+                true, Duration.ofMinutes(10), RedisCachePolicy.Format.SMILE, Clock.fixed(NOW, ZoneOffset.UTC));
+        enrichmentService = enrichmentService(false);
+    }
+
+    private EnrichmentServiceImpl enrichmentService(boolean batchEnabled) {
+        WebClient webClient = WebClient.builder().baseUrl("http://localhost:8081").exchangeFunction(request -> {
+            requestedUris.add(request.url().toString());
+            String query = request.url().getQuery();
+            if (query.startsWith("ids=")) {
+                String body = Arrays.stream(query.replace("ids=", "").split(","))
+                        .filter(productId -> !productId.equals("unknown"))
+                        .map(productId -> "\"" + productId + "\":" + productJson(productId))
+                        .collect(Collectors.joining(",", "{", "}"));
+                return Mono.just(jsonResponse(body));
+            }
+            String productId = query.replace("productId=", "");
+            if (productId.equals("flaky") && flakyFailures.getAndDecrement() > 0) {
+                return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+            }
+            if (productId.equals("unknown")) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+            }
+            return Mono.just(jsonResponse(productJson(productId)));
+        }).build();
+
+        EnrichmentCache enrichmentCache = new EnrichmentCache(invalidationTemplate, true, 100, Duration.ofMinutes(5),
+                metrics);
+        HedgedRequests noHedging = new HedgedRequests("api", false, 0.95, Duration.ZERO, 0);
+        ResiliencePolicy resilience = new ResiliencePolicy("api", 2, Duration.ZERO, Duration.ZERO, 0,
+                CircuitBreakerConfig.ofDefaults());
+        return new EnrichmentServiceImpl(webClient, webClient, noHedging, noHedging, resilience, resilience, redisTemplate,
+                enrichmentCache, Duration.ofMillis(500), 4, cachePolicy, metrics, batchEnabled, Duration.ofMillis(100), 50);
+    }
+
+    private static String productJson(String productId) {
+        return "{\"productId\":\"" + productId + "\",\"name\":\"Product " + productId + "\",\"price\":10.0}";
+    }
+
+    private static ClientResponse jsonResponse(String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    @Test
+    public void testEnrichProducts_MixesRedisHitsAndApiMisses() throws Exception {
+        byte[] cachedProduct = cachePolicy.encode(new ProductDetails("product-1", "Cached", null, 5.0),
+                Duration.ofHours(1));
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList(cachedProduct, null)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1", "product-2", "product-1")))
+                .expectNextMatches(products -> products.stream().map(ProductDetails::getProductId).toList()
+                        .equals(List.of("product-1", "product-2"))
+                        && products.get(0).getName().equals("Cached"))
+                .verifyComplete();
+
+        assertEquals(List.of("http://localhost:8081/product?productId=product-2"), requestedUris);
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), anyList());
+        assertEquals(1.0, cacheRequests("redis", "hit"));
+        assertEquals(1.0, cacheRequests("redis", "miss"));
+        assertEquals(1L, meterRegistry.get("worker.enrichment.upstream").tag("api", "product").timer().count());
+        verify(invalidationTemplate).convertAndSend(eq(EnrichmentCache.INVALIDATION_CHANNEL),
+                argThat(message -> message.endsWith("|product:product-2")));
+    }
+
+    @Test
+    public void testEnrichProducts_RedisHitsAreNotPublished() throws Exception {
+        byte[] cachedProduct = cachePolicy.encode(new ProductDetails("product-1", "Cached", null, 5.0),
+                Duration.ofHours(1));
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(List.of(cachedProduct)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(invalidationTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    public void testEnrichProducts_SecondOrderIsServedFromLocalCache() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null, null)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1", "product-2")))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1", "product-2")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, requestedUris.size());
+        verify(valueOperations, times(1)).multiGet(anyList());
+        assertEquals(2.0, cacheRequests("local", "hit"));
+        assertEquals(2L, meterRegistry.get("worker.enrichment").tag("type", "products").timer().count());
+    }
+
+    @Test
+    public void testEnrichProducts_EmptyOrderSkipsRedis() {
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order()))
+                .expectNext(List.of())
+                .verifyComplete();
+
+        verify(valueOperations, never()).multiGet(anyList());
+    }
+
+    @Test
+    public void testEnrichProducts_UnknownProductIsCachedAsNegative() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null)));
+        when(valueOperations.set(anyString(), any(byte[].class), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("unknown")))
+                .expectErrorMessage("Product not found")
+                .verify();
+
+        verify(valueOperations).set(eq("product:unknown"), aryEq(cachePolicy.encodeNegative()), eq(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testEnrichProducts_NegativeEntrySkipsApi() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(List.of(cachePolicy.encodeNegative())));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("unknown")))
+                .expectErrorMessage("Product not found")
+                .verify();
+
+        assertEquals(List.of(), requestedUris);
+    }
+
+    @Test
+    public void testEnrichProducts_StaleEntryIsServedAndRefreshed() throws Exception {
+        byte[] staleProduct = cachePolicy.encode(new ProductDetails("product-1", "Stale", null, 5.0),
+                Duration.ofHours(-1));
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(List.of(staleProduct)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1")))
+                .expectNextMatches(products -> products.get(0).getName().equals("Stale"))
+                .verifyComplete();
+
+        assertEquals(List.of("http://localhost:8081/product?productId=product-1"), requestedUris);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("product:product-1")),
+                argThat(args -> new String((byte[]) args.get(args.size() - 1), StandardCharsets.UTF_8)
+                        .equals(String.valueOf(Duration.ofMinutes(70).toMillis()))));
+        verify(invalidationTemplate).convertAndSend(eq(EnrichmentCache.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    public void testEnrichProducts_PlainJsonHitGetsTtlIfItHasNone() throws Exception {
+        byte[] plainProduct = productJson("product-1").getBytes(StandardCharsets.UTF_8);
+        byte[] smileProduct = cachePolicy.encode(new ProductDetails("product-2", "Cached", null, 5.0),
+                Duration.ofHours(1));
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(List.of(plainProduct, smileProduct)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1", "product-2")))
+                .expectNextMatches(products -> products.get(0).getName().equals("Product product-1"))
+                .verifyComplete();
+
+        assertEquals(List.of(), requestedUris);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("product:product-1")),
+                argThat(args -> args.size() == 1 && new String((byte[]) args.get(0), StandardCharsets.UTF_8)
+                        .equals(String.valueOf(Duration.ofMinutes(70).toMillis()))));
+    }
+
+    @Test
+    public void testEnrichProducts_UnchangedRefreshIsNotPublished() throws Exception {
+        byte[] staleProduct = cachePolicy.encode(new ProductDetails("product-1", "Product product-1", null, 10.0),
+                Duration.ofHours(-1));
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(List.of(staleProduct)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(1, requestedUris.size());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("product:product-1")), anyList());
+        verify(invalidationTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    public void testEnrichProducts_MissesAreFetchedInOneBatch() {
+        enrichmentService = enrichmentService(true);
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null, null)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1", "product-2")))
+                .expectNextMatches(products -> products.stream().map(ProductDetails::getName).toList()
+                        .equals(List.of("Product product-1", "Product product-2")))
+                .verifyComplete();
+
+        assertEquals(List.of("http://localhost:8081/products?ids=product-1,product-2"), requestedUris);
+        assertEquals(2.0, meterRegistry.get("worker.enrichment.batch.size").tag("api", "product")
+                .summary().totalAmount());
+    }
+
+    @Test
+    public void testEnrichProducts_ProductMissingFromBatchIsNotFound() {
+        enrichmentService = enrichmentService(true);
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null)));
+        when(valueOperations.set(anyString(), any(byte[].class), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("unknown")))
+                .expectErrorMessage("Product not found")
+                .verify();
+
+        verify(valueOperations).set(eq("product:unknown"), aryEq(cachePolicy.encodeNegative()), eq(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void testEnrichProducts_TransientFailureIsRetried() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null)));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("flaky")))
+                .expectNextMatches(products -> products.get(0).getProductId().equals("flaky"))
+                .verifyComplete();
+
+        assertEquals(2, requestedUris.size());
+    }
+
+    @Test
+    public void testEnrichProducts_UnknownProductIsNotRetried() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null)));
+        when(valueOperations.set(anyString(), any(byte[].class), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("unknown")))
+                .expectErrorMessage("Product not found")
+                .verify();
+
+        assertEquals(List.of("http://localhost:8081/product?productId=unknown"), requestedUris);
+    }
+
+    @Test
+    public void testPreload_PreloadedProductsAreServedLocally() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Mono.just(Arrays.asList((byte[]) null, null)));
+
+        StepVerifier.create(enrichmentService.preload(List.of(), List.of("product-1", "product-2", "product-1")))
+                .verifyComplete();
+        StepVerifier.create(enrichmentService.enrichProductsWithResilience(order("product-1", "product-2")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(2, requestedUris.size());
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), anyList());
+        assertEquals(2.0, cacheRequests("local", "hit"));
+    }
+
+    @Test
+    public void testPreload_NegativeEntrySkipsOnlyItsProduct() {
+        when(valueOperations.multiGet(anyList()))
+                .thenReturn(Mono.just(Arrays.asList(cachePolicy.encodeNegative(), null)));
+
+        StepVerifier.create(enrichmentService.preload(List.of(), List.of("unknown", "product-1")))
+                .verifyComplete();
+
+        assertEquals(List.of("http://localhost:8081/product?productId=product-1"), requestedUris);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of("product:product-1")), anyList());
+    }
+
+    private static OrderMessage order(String... productIds) {
+        List<Product> products = Arrays.stream(productIds).map(id -> new Product(id, null, null)).toList();
+        return new OrderMessage("order-123", "customer-456", products);
+    }
+
+    private double cacheRequests(String cache, String result) {
+        return meterRegistry.get("worker.cache.requests")
+                .tags("cache", cache, "type", "product", "result", result)
+                .counter().count();
+    }
+}
@@ -0,0 +1,133 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests for HedgedRequests on a virtual-time scheduler.
+ *
+ * This test class validates:
+ * - Calls are not hedged until the latency percentile is known
+ * - A call slower than the percentile is hedged, the first answer wins and the
+ *   other request is cancelled
+ * - A call failing before the hedge delay is not hedged
+ * - Hedges are capped to a share of the calls
+ * - No hedge is sent when the order deadline would pass first
+ */
+public class HedgedRequestsTest {
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> cancelled = new ArrayList<>();
+
+    @Test
+    public void testExecute_NoHedgeUntilLatencyIsKnown() {
+        HedgedRequests hedging = hedging(0.1);
+
+        StepVerifier.withVirtualTime(() -> hedging.execute(() -> request("slow", 1000)), () -> scheduler, 1)
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("slow")
+                .verifyComplete();
+
+        assertEquals(1, requests.get());
+        assertEquals(0, hedging.getHedges());
+    }
+
+    @Test
+    public void testExecute_SlowCallIsHedgedAndFirstAnswerWins() {
+        HedgedRequests hedging = warmedUp(0.1);
+
+        StepVerifier.withVirtualTime(() -> hedging.execute(() -> requests.get() % 2 == 0
+                        ? request("slow", 1000) : request("hedge", 10)), () -> scheduler, 1)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(19))
+                .thenAwait(Duration.ofMillis(1)) // hedged at 10ms (p95), answered 10ms later
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(1, hedging.getHedges());
+        assertEquals(1, hedging.getHedgeWins());
+        assertEquals(List.of("slow"), cancelled);
+    }
+
+    @Test
+    public void testExecute_FastFailureIsNotHedged() {
+        HedgedRequests hedging = warmedUp(0.1);
+
+        StepVerifier.withVirtualTime(() -> hedging.execute(() -> {
+                    requests.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(2), scheduler).then(Mono.<String>error(new RuntimeException("404")));
+                }), () -> scheduler, 1)
+                .thenAwait(Duration.ofMillis(2))
+                .verifyErrorMessage("404");
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertEquals(0, hedging.getHedges());
+    }
+
+    @Test
+    public void testExecute_HedgesAreCappedToMaxRatio() {
+        HedgedRequests hedging = warmedUp(0.02); // 64 calls: 1.28 hedges available
+
+        List<String> answers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            hedging.execute(() -> request("slow", 1000)).subscribe(answers::add);
+            scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        }
+
+        assertEquals(List.of("slow", "slow"), answers);
+        assertEquals(3, requests.get());
+        assertEquals(1, hedging.getHedges());
+    }
+
+    @Test
+    public void testExecute_NoHedgePastTheOrderDeadline() {
+        HedgedRequests hedging = warmedUp(0.1);
+
+        StepVerifier.withVirtualTime(() -> hedging.execute(() -> request("slow", 1000))
+                        .contextWrite(context -> OrderDeadline.withBudget(context, Duration.ofMillis(5))),
+                        () -> scheduler, 1)
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext("slow")
+                .verifyComplete();
+
+        assertEquals(0, hedging.getHedges());
+    }
+
+    private HedgedRequests hedging(double maxHedgeRatio) {
+        return new HedgedRequests("product", true, 0.95, Duration.ofMillis(5), maxHedgeRatio, scheduler,
+                () -> scheduler.now(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Returns hedged requests that have measured 64 calls of 10ms.
+     */
+    private HedgedRequests warmedUp(double maxHedgeRatio) {
+        HedgedRequests hedging = hedging(maxHedgeRatio);
+        for (int i = 0; i < 64; i++) {
+            hedging.execute(() -> request("warm-up", 10)).subscribe();
+        }
+        scheduler.advanceTimeBy(Duration.ofMillis(10));
+        assertEquals(Duration.ofMillis(10), hedging.getDelay());
+        requests.set(0);
+        return hedging;
+    }
+
+    private Mono<String> request(String value, long latencyMillis) {
+        requests.incrementAndGet();
+        return Mono.delay(Duration.ofMillis(latencyMillis), scheduler)
+                .thenReturn(value)
+                .doOnCancel(() -> cancelled.add(value));
+    }
+}
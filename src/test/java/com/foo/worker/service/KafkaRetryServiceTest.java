@@ -0,0 +1,105 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import com.foo.worker.metrics.WorkerMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for KafkaRetryService using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Each failure moves the order to the next retry tier with its headers
+ * - Orders that went through every tier go to the dead-letter topic
+ * - Orders locked elsewhere go back to the tier of their last failure, keeping their attempt count
+ */
+public class KafkaRetryServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-10-20T10:00:00Z");
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private KafkaRetryService kafkaRetryService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        kafkaRetryService = new KafkaRetryService(kafkaTemplate,
+                List.of("orders-retry-5s", "orders-retry-1m", "orders-retry-10m"), "orders-dlt",
+                metrics, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testHandleFailure_PublishesToNextTier() {
+        StepVerifier.create(kafkaRetryService.handleFailure("order-123", "{}", 1, "Inactive customer"))
+                .verifyComplete();
+
+        ProducerRecord<String, String> record = sentRecord();
+        assertEquals("orders-retry-1m", record.topic());
+        assertEquals("order-123", record.key());
+        assertEquals(2, KafkaRetryService.headerValue(record.headers(), KafkaRetryService.ATTEMPT_HEADER, 0));
+        assertEquals(NOW.plus(Duration.ofMinutes(1)).toEpochMilli(),
+                KafkaRetryService.headerValue(record.headers(), KafkaRetryService.DUE_AT_HEADER, 0));
+    }
+
+    @Test
+    public void testHandleFailure_AfterLastTierPublishesToDeadLetterTopic() {
+        StepVerifier.create(kafkaRetryService.handleFailure("order-123", "{}", 3, "Inactive customer"))
+                .verifyComplete();
+
+        assertEquals("orders-dlt", sentRecord().topic());
+    }
+
+    @Test
+    public void testReschedule_KeepsTierAndAttemptCount() {
+        StepVerifier.create(kafkaRetryService.reschedule("order-123", "{}", 2))
+                .verifyComplete();
+
+        ProducerRecord<String, String> record = sentRecord();
+        assertEquals("orders-retry-1m", record.topic());
+        assertEquals(2, KafkaRetryService.headerValue(record.headers(), KafkaRetryService.ATTEMPT_HEADER, 0));
+    }
+
+    @Test
+    public void testReschedule_FreshOrderGoesToFirstTier() {
+        StepVerifier.create(kafkaRetryService.reschedule("order-123", "{}", 0))
+                .verifyComplete();
+
+        ProducerRecord<String, String> record = sentRecord();
+        assertEquals("orders-retry-5s", record.topic());
+        assertEquals(0, KafkaRetryService.headerValue(record.headers(), KafkaRetryService.ATTEMPT_HEADER, 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, String> sentRecord() {
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -1,19 +1,29 @@
 package com.foo.worker.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import com.foo.worker.metrics.WorkerMetrics;
 import com.foo.worker.models.CustomerDetails;
 import com.foo.worker.models.Order;
 import com.foo.worker.models.OrderMessage;
+import com.foo.worker.models.Product;
 import com.foo.worker.models.ProductDetails;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -25,6 +35,8 @@ import reactor.test.StepVerifier;
  * - Inactive customer
  * - Product not found
  * - Lock not acquired
+ * - Enrichment of every product line
+ * - Order deadline shared by the lock, enrichment and save
  * 
  * Author: Freyder Otalvaro
  */
@@ -39,7 +51,9 @@ public class OrderProcessorServiceImplTest {
     @Mock
     private RedisLockService redisLockService;
 
-    @InjectMocks
+    @Spy
+    private WorkerMetrics metrics = new WorkerMetrics(new SimpleMeterRegistry());
+
     private OrderProcessorServiceImpl orderProcessorService;
 
     private OrderMessage orderMessage;
@@ -47,6 +61,8 @@ public class OrderProcessorServiceImplTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        orderProcessorService = new OrderProcessorServiceImpl(enrichmentService, orderStorageService, redisLockService,
+                metrics, Duration.ofSeconds(10));
 
         // Create a test order
         orderMessage = new OrderMessage();
@@ -59,8 +75,9 @@ public class OrderProcessorServiceImplTest {
 
         // Mock behavior
         when(enrichmentService.enrichCustomerWithResilience(any(OrderMessage.class))).thenReturn(Mono.just(customerDetails));
-        when(enrichmentService.enrichProductWithResilience(any(OrderMessage.class))).thenReturn(Mono.just(productDetails));
+        when(enrichmentService.enrichProductsWithResilience(any(OrderMessage.class))).thenReturn(Mono.just(List.of(productDetails)));
         when(redisLockService.acquireLock(any(String.class))).thenReturn(Mono.just(true));
+        when(redisLockService.releaseLock(any(String.class))).thenReturn(Mono.just(true));
 
         // Simulate saving in MongoDB
         Order order = new Order();
@@ -91,7 +108,7 @@ public class OrderProcessorServiceImplTest {
     @Test
     public void testProcessOrder_ProductNotFound() {
         // Simulate product not found
-        when(enrichmentService.enrichProductWithResilience(any(OrderMessage.class))).thenReturn(Mono.error(new RuntimeException("Product not found")));
+        when(enrichmentService.enrichProductsWithResilience(any(OrderMessage.class))).thenReturn(Mono.error(new RuntimeException("Product not found")));
 
         // Expect failure due to missing product
         StepVerifier.create(orderProcessorService.processOrder(orderMessage))
@@ -109,4 +126,39 @@ public class OrderProcessorServiceImplTest {
                 .expectErrorMatches(throwable -> throwable instanceof RuntimeException && throwable.getMessage().equals("Order is already being processed"))
                 .verify();
     }
+
+    @Test
+    public void testProcessOrder_DeadlineCoversEveryStage() {
+        // Each stage takes 40ms, well within 100ms, but together they exceed the order's budget
+        orderProcessorService = new OrderProcessorServiceImpl(enrichmentService, orderStorageService, redisLockService,
+                metrics, Duration.ofMillis(100));
+        when(redisLockService.acquireLock(any(String.class))).thenReturn(Mono.just(true).delayElement(Duration.ofMillis(40)));
+        CustomerDetails customer = new CustomerDetails("customer-456", "John Doe", "john.doe@example.com", true);
+        when(enrichmentService.enrichCustomerWithResilience(any(OrderMessage.class)))
+                .thenReturn(Mono.just(customer).delayElement(Duration.ofMillis(40)));
+        when(orderStorageService.saveOrder(any(Order.class)))
+                .thenReturn(Mono.just(new Order()).delayElement(Duration.ofMillis(40)));
+
+        StepVerifier.create(orderProcessorService.processOrder(orderMessage))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(1));
+
+        // The lock is still released when the deadline cancels the save
+        verify(redisLockService, timeout(1000)).releaseLock("order-123");
+    }
+
+    @Test
+    public void testCreateEnrichedOrder_CompletesEveryProductLine() {
+        // Two product lines without name/price, enriched from their product details
+        orderMessage.setProducts(List.of(new Product("product-789", null, null), new Product("product-100", null, 1500.0)));
+        CustomerDetails customer = new CustomerDetails("customer-456", "John Doe", "john.doe@example.com", true);
+        List<ProductDetails> products = List.of(
+                new ProductDetails("product-789", "Laptop", "High-performance laptop", 999.99),
+                new ProductDetails("product-100", "Iphone", "Smartphone", 2000.0));
+
+        Order order = orderProcessorService.createEnrichedOrder(orderMessage, customer, products);
+
+        assertEquals(List.of(new Product("product-789", "Laptop", 999.99), new Product("product-100", "Iphone", 1500.0)),
+                order.getProducts());
+    }
 }
@@ -0,0 +1,205 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.foo.worker.metrics.WorkerMetrics;
+import com.foo.worker.models.Order;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for OrderStorageServiceImpl using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Concurrent saves are flushed with a single bulk write
+ * - A failed document only fails its own caller
+ * - Duplicate-key errors count as success
+ * - Batched saves return the _id of the stored document, inserted or matched
+ * - Unbatched saves upsert on orderId and return the stored order on a duplicate key
+ * - saveOrders writes one bulk operation per buffer and skips failed documents
+ */
+public class OrderStorageServiceImplTest {
+
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Mock
+    private ReactiveBulkOperations bulkOperations;
+
+    private OrderStorageServiceImpl orderStorageService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(reactiveMongoTemplate.getConverter()).thenReturn(mock(MongoConverter.class));
+        when(reactiveMongoTemplate.bulkOps(eq(BulkMode.UNORDERED), eq(Order.class))).thenReturn(bulkOperations);
+        when(bulkOperations.upsert(any(Query.class), any(UpdateDefinition.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(Flux.empty());
+
+        orderStorageService = new OrderStorageServiceImpl(reactiveMongoTemplate,
+                true, 3, Duration.ofSeconds(5), 1, new WorkerMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testSaveOrder_ConcurrentSavesShareOneBulkWrite() {
+        StepVerifier.create(Flux.merge(
+                        orderStorageService.saveOrder(order("order-1")),
+                        orderStorageService.saveOrder(order("order-2")),
+                        orderStorageService.saveOrder(order("order-3"))))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        verify(bulkOperations, times(3)).upsert(any(Query.class), any(UpdateDefinition.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    public void testSaveOrder_PartialFailureOnlyFailsThatOrder() {
+        MongoBulkWriteException bulkWriteException = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(121, "document failed validation", new BsonDocument(), 1)),
+                null, new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenReturn(Mono.error(new BulkOperationException("bulk failed", bulkWriteException)));
+
+        Mono<Order> first = orderStorageService.saveOrder(order("order-1")).cache();
+        Mono<Order> second = orderStorageService.saveOrder(order("order-2")).cache();
+        Mono<Order> third = orderStorageService.saveOrder(order("order-3")).cache();
+        first.onErrorResume(error -> Mono.empty()).subscribe();
+        second.onErrorResume(error -> Mono.empty()).subscribe();
+        third.onErrorResume(error -> Mono.empty()).subscribe();
+
+        StepVerifier.create(first.map(Order::getOrderId))
+                .expectNext("order-1")
+                .verifyComplete();
+        StepVerifier.create(second)
+                .expectErrorMatches(error -> error.getMessage().equals("Error saving order: document failed validation"))
+                .verify();
+        StepVerifier.create(third.map(Order::getOrderId))
+                .expectNext("order-3")
+                .verifyComplete();
+    }
+
+    @Test
+    public void testSaveOrder_DuplicateKeyCountsAsSuccess() {
+        MongoBulkWriteException bulkWriteException = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)),
+                null, new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenReturn(Mono.error(new BulkOperationException("bulk failed", bulkWriteException)));
+
+        StepVerifier.create(Flux.merge(
+                        orderStorageService.saveOrder(order("order-1")),
+                        orderStorageService.saveOrder(order("order-2")),
+                        orderStorageService.saveOrder(order("order-3"))))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testSaveOrder_BatchReturnsStoredIds() {
+        ObjectId insertedId = new ObjectId();
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1,
+                List.of(new BulkWriteUpsert(0, new BsonObjectId(insertedId))), List.of())));
+        Order stored = order("order-2");
+        stored.setId("stored-id");
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(Flux.just(stored));
+
+        Mono<Order> first = orderStorageService.saveOrder(order("order-1")).cache();
+        first.subscribe();
+        Mono<Order> second = orderStorageService.saveOrder(order("order-2")).cache();
+        second.subscribe();
+        Mono<Order> third = orderStorageService.saveOrder(order("order-3")).cache();
+        third.subscribe();
+
+        StepVerifier.create(first.map(Order::getId)).expectNext(insertedId.toHexString()).verifyComplete();
+        StepVerifier.create(second.map(Order::getId)).expectNext("stored-id").verifyComplete();
+        StepVerifier.create(third.map(order -> String.valueOf(order.getId()))).expectNext("null").verifyComplete();
+        verify(reactiveMongoTemplate).find(argThat(query -> query.getQueryObject().equals(
+                Query.query(Criteria.where("orderId").in(List.of("order-2", "order-3"))).getQueryObject())), eq(Order.class));
+    }
+
+    @Test
+    public void testSaveOrder_UnbatchedUpsertsOnOrderId() {
+        orderStorageService = new OrderStorageServiceImpl(reactiveMongoTemplate, false, 3, Duration.ofSeconds(5), 1,
+                new WorkerMetrics(new SimpleMeterRegistry()));
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Order.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        Order stored = order("order-1");
+        stored.setId("stored-id");
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(Order.class))).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(orderStorageService.saveOrder(order("order-1")).map(Order::getId))
+                .expectNext("stored-id")
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate).findAndModify(eq(Query.query(Criteria.where("orderId").is("order-1"))),
+                any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Order.class));
+    }
+
+    @Test
+    public void testSaveOrders_WritesOneBulkPerBuffer() {
+        StepVerifier.create(orderStorageService.saveOrders(Flux.just(
+                        order("order-1"), order("order-2"), order("order-3"), order("order-4"))))
+                .expectNextCount(4)
+                .verifyComplete();
+
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    public void testSaveOrders_FailedDocumentIsSkipped() {
+        MongoBulkWriteException bulkWriteException = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(121, "document failed validation", new BsonDocument(), 1)),
+                null, new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenReturn(Mono.error(new BulkOperationException("bulk failed", bulkWriteException)));
+
+        StepVerifier.create(orderStorageService.saveOrders(Flux.just(
+                        order("order-1"), order("order-2"), order("order-3"))).map(Order::getOrderId))
+                .expectNext("order-1", "order-3")
+                .verifyComplete();
+    }
+
+    private static Order order(String orderId) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        return order;
+    }
+}
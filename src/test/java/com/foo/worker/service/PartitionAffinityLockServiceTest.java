@@ -0,0 +1,132 @@
+package com.foo.worker.service;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+/**
+ * Unit tests for PartitionAffinityLockService using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Orders from an owned partition are locked in memory only, without Redis
+ * - A local duplicate is turned away
+ * - A release only drops the lock of the delivery that took it
+ * - Orders from a partition that is not owned are refused
+ * - Callers without a partition fall back to the Redis lock
+ * - Revoking a partition drops its local locks
+ */
+public class PartitionAffinityLockServiceTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders", 3);
+
+    @Mock
+    private RedisLockServiceImpl redisLockService;
+
+    private PartitionLockRegistry partitionLockRegistry;
+
+    private PartitionAffinityLockService lockService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisLockService.acquireLock(anyString())).thenReturn(Mono.just(true));
+        when(redisLockService.releaseLock(anyString())).thenReturn(Mono.just(true));
+
+        partitionLockRegistry = new PartitionLockRegistry();
+        partitionLockRegistry.assign(List.of(PARTITION));
+        lockService = new PartitionAffinityLockService(redisLockService, partitionLockRegistry);
+    }
+
+    @Test
+    public void testAcquireLock_OwnedPartitionIsLockedLocallyOnly() {
+        Context delivery = delivery(PARTITION);
+
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(delivery))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(delivery(PARTITION)))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(lockService.releaseLock("order-123").contextWrite(delivery))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(delivery(PARTITION)))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(redisLockService, never()).acquireLock(anyString());
+        verify(redisLockService, never()).releaseLock(anyString());
+    }
+
+    @Test
+    public void testReleaseLock_OtherDeliveryKeepsTheLock() {
+        Context holder = delivery(PARTITION);
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(holder))
+                .expectNext(true)
+                .verifyComplete();
+
+        StepVerifier.create(lockService.releaseLock("order-123").contextWrite(delivery(PARTITION)))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(delivery(PARTITION)))
+                .expectNext(false)
+                .verifyComplete();
+
+        StepVerifier.create(lockService.releaseLock("order-123").contextWrite(holder))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testAcquireLock_PartitionNotOwnedIsRefused() {
+        StepVerifier.create(lockService.acquireLock("order-456").contextWrite(delivery(new TopicPartition("orders", 7))))
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(redisLockService, never()).acquireLock(anyString());
+    }
+
+    @Test
+    public void testAcquireLock_WithoutPartitionUsesRedis() {
+        StepVerifier.create(lockService.acquireLock("order-123"))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(lockService.releaseLock("order-123"))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(redisLockService).acquireLock("order-123");
+        verify(redisLockService).releaseLock("order-123");
+    }
+
+    @Test
+    public void testRevoke_DropsLocalLocksOfPartition() {
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(delivery(PARTITION)))
+                .expectNext(true)
+                .verifyComplete();
+
+        partitionLockRegistry.revoke(List.of(PARTITION));
+        partitionLockRegistry.assign(List.of(PARTITION));
+
+        StepVerifier.create(lockService.acquireLock("order-123").contextWrite(delivery(PARTITION)))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    private static Context delivery(TopicPartition partition) {
+        return PartitionAffinityLockService.withPartition(Context.empty(), partition);
+    }
+}
@@ -0,0 +1,68 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for PartitionAffinityRouter using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - Orders are published to the "orders" topic keyed by their orderId
+ * - The attempt count travels in the attempt header, only once the order has failed
+ */
+public class PartitionAffinityRouterTest {
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private PartitionAffinityRouter router;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        router = new PartitionAffinityRouter(kafkaTemplate);
+    }
+
+    @Test
+    public void testRoute_PublishesKeyedByOrderIdWithAttempts() {
+        StepVerifier.create(router.route("order-123", "{}", 2))
+                .verifyComplete();
+
+        ProducerRecord<String, String> record = sentRecord();
+        assertEquals(PartitionAffinityRouter.ORDERS_TOPIC, record.topic());
+        assertEquals("order-123", record.key());
+        assertEquals("{}", record.value());
+        assertEquals(2, KafkaRetryService.headerValue(record.headers(), KafkaRetryService.ATTEMPT_HEADER, 0));
+    }
+
+    @Test
+    public void testRoute_FreshOrderHasNoAttemptHeader() {
+        StepVerifier.create(router.route("order-123", "{}", 0))
+                .verifyComplete();
+
+        assertNull(sentRecord().headers().lastHeader(KafkaRetryService.ATTEMPT_HEADER));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, String> sentRecord() {
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+}
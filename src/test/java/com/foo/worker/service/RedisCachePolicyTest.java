@@ -0,0 +1,92 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import com.foo.worker.models.CustomerDetails;
+
+/**
+ * Unit tests for RedisCachePolicy.
+ *
+ * This test class validates:
+ * - Binary (Smile) entries round-trip and carry their version byte
+ * - JSON and legacy plain JSON entries stay readable when writing binary, and only
+ *   plain JSON entries are reported as plain (possibly without a Redis TTL)
+ * - Negative and stale entries are recognized in both formats
+ * - Without stale-while-revalidate, JSON entries are written as plain JSON
+ */
+public class RedisCachePolicyTest {
+
+    private static final Instant NOW = Instant.parse("2024-10-20T10:00:00Z");
+
+    private final CustomerDetails customer = new CustomerDetails("customer-456", "John Doe", "john.doe@example.com", true);
+
+    @Test
+    public void testEncode_SmileRoundTripsAndIsSmallerThanJson() throws Exception {
+        RedisCachePolicy smile = policy(RedisCachePolicy.Format.SMILE);
+        RedisCachePolicy json = policy(RedisCachePolicy.Format.JSON);
+
+        byte[] binary = smile.encode(customer, Duration.ofHours(1));
+        RedisCachePolicy.Entry<CustomerDetails> entry = smile.decode(binary, CustomerDetails.class);
+
+        assertEquals(RedisCachePolicy.SMILE_V1, binary[0]);
+        assertEquals(customer, entry.value());
+        assertFalse(entry.stale());
+        assertFalse(entry.plain());
+        assertTrue(binary.length < json.encode(customer, Duration.ofHours(1)).length);
+    }
+
+    @Test
+    public void testDecode_ReadsJsonAndLegacyEntriesWhenWritingSmile() throws Exception {
+        RedisCachePolicy smile = policy(RedisCachePolicy.Format.SMILE);
+        byte[] jsonEntry = policy(RedisCachePolicy.Format.JSON).encode(customer, Duration.ofHours(-1));
+        byte[] legacyEntry = "{\"customerId\":\"customer-456\",\"name\":\"John Doe\",\"email\":\"john.doe@example.com\",\"active\":true}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        RedisCachePolicy.Entry<CustomerDetails> staleJson = smile.decode(jsonEntry, CustomerDetails.class);
+        RedisCachePolicy.Entry<CustomerDetails> legacy = smile.decode(legacyEntry, CustomerDetails.class);
+
+        assertEquals(customer, staleJson.value());
+        assertTrue(staleJson.stale());
+        assertFalse(staleJson.plain());
+        assertEquals(customer, legacy.value());
+        assertFalse(legacy.stale());
+        assertTrue(legacy.plain());
+    }
+
+    @Test
+    public void testDecode_NegativeEntriesInBothFormats() throws Exception {
+        RedisCachePolicy smile = policy(RedisCachePolicy.Format.SMILE);
+        RedisCachePolicy json = policy(RedisCachePolicy.Format.JSON);
+
+        assertTrue(smile.decode(smile.encodeNegative(), CustomerDetails.class).isNegative());
+        assertTrue(smile.decode(json.encodeNegative(), CustomerDetails.class).isNegative());
+        assertTrue(json.decode(smile.encodeNegative(), CustomerDetails.class).isNegative());
+    }
+
+    @Test
+    public void testEncode_PlainJsonWithoutStaleWhileRevalidate() throws Exception {
+        RedisCachePolicy json = new RedisCachePolicy(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(1),
+                false, Duration.ofMinutes(10), RedisCachePolicy.Format.JSON, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        byte[] entry = json.encode(customer, Duration.ofHours(1));
+
+        assertEquals('{', (char) entry[0]);
+        assertEquals(customer, json.decode(entry, CustomerDetails.class).value());
+        assertFalse(json.decode(entry, CustomerDetails.class).stale());
+    }
+
+    private static RedisCachePolicy policy(RedisCachePolicy.Format format) {
+        return new RedisCachePolicy(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(1),
+                true, Duration.ofMinutes(10), format, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,139 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.foo.worker.metrics.WorkerMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for RedisFailureService using Mockito and StepVerifier.
+ *
+ * This test class validates:
+ * - A failure is recorded by one script call, with the due time of every attempt
+ * - Orders that used up their attempts are counted as dead-lettered
+ * - An order locked elsewhere is rescheduled without counting an attempt
+ * - A malformed order is dead-lettered right away
+ * - Due orders are claimed through a single script call
+ */
+public class RedisFailureServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-10-20T10:00:00Z");
+    private static final List<String> KEYS = List.of("failed_order:order-123", "failed_attempts:order-123",
+            RedisFailureService.RETRY_QUEUE_KEY, RedisFailureService.DEAD_LETTER_STREAM_KEY);
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private RedisFailureService redisFailureService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        redisFailureService = new RedisFailureService(redisTemplate, 3, Duration.ofSeconds(5), Duration.ofSeconds(15),
+                Duration.ofMinutes(5), metrics, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testRecordFailure_SchedulesRetryInOneScript() {
+        scriptReturns(2L);
+
+        StepVerifier.create(redisFailureService.recordFailure("order-123", "{}", 1, "Inactive customer"))
+                .verifyComplete();
+
+        verifyScript("Inactive customer", "1", "1", "3");
+        assertEquals(1.0, meterRegistry.get("worker.retry.scheduled").counter().count());
+    }
+
+    @Test
+    public void testRecordFailure_MaxAttemptsCountsDeadLetter() {
+        scriptReturns(4L);
+
+        StepVerifier.create(redisFailureService.recordFailure("order-123", "{}", 0, "Inactive customer"))
+                .verifyComplete();
+
+        assertEquals(1.0, meterRegistry.get("worker.retry.dead-lettered").counter().count());
+    }
+
+    @Test
+    public void testReschedule_DoesNotCountAnAttempt() {
+        scriptReturns(1L);
+
+        StepVerifier.create(redisFailureService.reschedule("order-123", "{}", 0))
+                .verifyComplete();
+
+        verifyScript("", "0", "0", "3");
+    }
+
+    @Test
+    public void testDeadLetter_SkipsTheRetries() {
+        scriptReturns(0L);
+
+        StepVerifier.create(redisFailureService.deadLetter("order-123", "{}", "Malformed message"))
+                .verifyComplete();
+
+        verifyScript("Malformed message", "0", "0", "-1");
+        assertEquals(1.0, meterRegistry.get("worker.retry.dead-lettered").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testClaimDueRetries_ReturnsClaimedOrders() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(List.of("order-1", "order-2")));
+
+        StepVerifier.create(redisFailureService.claimDueRetries(10))
+                .expectNext("order-1", "order-2")
+                .verifyComplete();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(RedisFailureService.RETRY_QUEUE_KEY)),
+                eq(List.of(String.valueOf(NOW.toEpochMilli()), "10",
+                        String.valueOf(NOW.toEpochMilli() + Duration.ofMinutes(5).toMillis()))));
+    }
+
+    @Test
+    public void testBackoff_DoublesUpToMax() {
+        assertEquals(Duration.ofSeconds(5), redisFailureService.backoff(1));
+        assertEquals(Duration.ofSeconds(10), redisFailureService.backoff(2));
+        assertEquals(Duration.ofSeconds(15), redisFailureService.backoff(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scriptReturns(long attempt) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(attempt));
+    }
+
+    /**
+     * Verifies the record script call, with the due times of the three attempts (5s, 10s, 15s).
+     */
+    @SuppressWarnings("unchecked")
+    private void verifyScript(String reason, String previousAttempts, String counted, String maxAttempts) {
+        long now = NOW.toEpochMilli();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(KEYS), eq(List.of("order-123", "{}", reason,
+                previousAttempts, counted, maxAttempts,
+                String.valueOf(now + 5_000), String.valueOf(now + 10_000), String.valueOf(now + 15_000))));
+    }
+}
@@ -1,16 +1,31 @@
 package com.foo.worker.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.foo.worker.metrics.WorkerMetrics;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -18,8 +33,9 @@ import reactor.test.StepVerifier;
  * Unit tests for RedisLockServiceImpl using Mockito and StepVerifier.
  *
  * This test class validates:
- * - Successful and unsuccessful lock acquisition
- * - Successful and unsuccessful lock release
+ * - Successful and unsuccessful lock acquisition with a single SET NX PX
+ * - Successful and unsuccessful lock release with the owner token
+ * - Lease renewal by the watchdog
  *
  * Author: Freyder Otalvaro
  */
@@ -31,55 +47,96 @@ public class RedisLockServiceImplTest {
     @Mock
     private ReactiveValueOperations<String, String> valueOperations; // Mock for opsForValue()
 
-    @InjectMocks
     private RedisLockServiceImpl redisLockService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WorkerMetrics metrics = new WorkerMetrics(meterRegistry);
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
 
         // Simulate that opsForValue() returns the mocked valueOperations
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        redisLockService = new RedisLockServiceImpl(redisTemplate, Duration.ofMinutes(5), metrics);
     }
 
     @Test
     public void testAcquireLock_Successful() {
         // Simulate successful lock acquisition
-        when(valueOperations.setIfAbsent(any(String.class), any(String.class))).thenReturn(Mono.just(true));
-        when(redisTemplate.expire(any(String.class), any())).thenReturn(Mono.just(true));
+        when(valueOperations.setIfAbsent(any(String.class), any(String.class), any(Duration.class))).thenReturn(Mono.just(true));
 
         StepVerifier.create(redisLockService.acquireLock("order-123"))
                 .expectNext(true)
                 .verifyComplete();
+
+        verify(valueOperations).setIfAbsent(eq("lock_order:order-123"), any(String.class), eq(Duration.ofMinutes(5)));
+        verify(redisTemplate, never()).expire(any(String.class), any());
     }
 
     @Test
     public void testAcquireLock_Unsuccessful() {
         // Simulate lock not acquired
-        when(valueOperations.setIfAbsent(any(String.class), any(String.class))).thenReturn(Mono.just(false));
+        when(valueOperations.setIfAbsent(any(String.class), any(String.class), any(Duration.class))).thenReturn(Mono.just(false));
 
         StepVerifier.create(redisLockService.acquireLock("order-123"))
                 .expectNext(false)
                 .verifyComplete();
+
+        assertEquals(1.0, meterRegistry.get("worker.lock.contention").counter().count());
+        assertEquals(1L, meterRegistry.get("worker.lock.acquire").tag("outcome", "contended").timer().count());
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     public void testReleaseLock_Successful() {
-        // Simulate successful lock release
-        when(redisTemplate.delete(any(String.class))).thenReturn(Mono.just(1L)); // 1L means key was deleted
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        when(valueOperations.setIfAbsent(any(String.class), token.capture(), any(Duration.class))).thenReturn(Mono.just(true));
+        // Simulate successful lock release: 1L means the key was deleted
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
 
-        StepVerifier.create(redisLockService.releaseLock("order-123"))
+        StepVerifier.create(redisLockService.acquireLock("order-123").then(redisLockService.releaseLock("order-123")))
                 .expectNext(true)
                 .verifyComplete();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("lock_order:order-123")), eq(List.of(token.getValue())));
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     public void testReleaseLock_Unsuccessful() {
-        // Simulate lock not released
-        when(redisTemplate.delete(any(String.class))).thenReturn(Mono.just(0L)); // 0L means no key was deleted
+        when(valueOperations.setIfAbsent(any(String.class), any(String.class), any(Duration.class))).thenReturn(Mono.just(true));
+        // Simulate lock held by another owner: 0L means no key was deleted
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(0L));
+
+        StepVerifier.create(redisLockService.acquireLock("order-123").then(redisLockService.releaseLock("order-123")))
+                .expectNext(false)
+                .verifyComplete();
+    }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReleaseLock_NotHeldSkipsRedis() {
         StepVerifier.create(redisLockService.releaseLock("order-123"))
                 .expectNext(false)
                 .verifyComplete();
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAcquireLock_WatchdogRenewsLease() {
+        redisLockService = new RedisLockServiceImpl(redisTemplate, Duration.ofMillis(150), metrics);
+        when(valueOperations.setIfAbsent(any(String.class), any(String.class), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(redisLockService.acquireLock("order-123"))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(redisTemplate, timeout(1000).atLeastOnce())
+                .execute(any(RedisScript.class), eq(List.of("lock_order:order-123")), argThat(args -> args.size() == 2 && "150".equals(args.get(1))));
+        redisLockService.releaseLock("order-123").block();
     }
 }
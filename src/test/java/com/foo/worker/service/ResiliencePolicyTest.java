@@ -0,0 +1,153 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+/**
+ * Unit tests for ResiliencePolicy on a virtual-time scheduler.
+ *
+ * This test class validates:
+ * - Transient failures are retried after an exponential backoff, without jitter here
+ * - The last error is propagated once the attempts are exhausted
+ * - Answers such as a 404 are neither retried nor counted as failures
+ * - Calls rejected by the concurrency limiter are retried
+ * - No retry is scheduled past the order deadline
+ * - The circuit opens on failures and then rejects calls right away
+ * - Jitter shortens the backoff by up to its share
+ */
+public class ResiliencePolicyTest {
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final List<Long> attemptTimes = new ArrayList<>();
+
+    @Test
+    public void testRetry_TransientFailureIsRetriedWithBackoff() {
+        ResiliencePolicy policy = policy(3, 0);
+
+        StepVerifier.withVirtualTime(() -> policy.retry(failingTimes(2, 503)), () -> scheduler, 1)
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(300))
+                .expectNext("answer")
+                .verifyComplete();
+
+        assertEquals(List.of(0L, 100L, 300L), attemptTimes);
+        assertEquals(2, policy.getRetries());
+    }
+
+    @Test
+    public void testRetry_LastErrorOnceAttemptsAreExhausted() {
+        ResiliencePolicy policy = policy(3, 0);
+
+        StepVerifier.withVirtualTime(() -> policy.retry(failingTimes(5, 503)), () -> scheduler, 1)
+                .thenAwait(Duration.ofSeconds(1))
+                .verifyErrorMatches(error -> error instanceof WebClientResponseException.ServiceUnavailable);
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testRetry_NotFoundIsNotRetried() {
+        ResiliencePolicy policy = policy(3, 0);
+
+        StepVerifier.withVirtualTime(() -> policy.retry(failingTimes(5, 404)), () -> scheduler, 1)
+                .verifyError(WebClientResponseException.NotFound.class);
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testRetry_LimiterRejectionIsRetried() {
+        ResiliencePolicy policy = policy(3, 0);
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.error(new AdaptiveConcurrencyLimiter.LimitExceededException("api", 1))
+                : Mono.just("answer"));
+
+        StepVerifier.withVirtualTime(() -> policy.retry(call), () -> scheduler, 1)
+                .thenAwait(Duration.ofMillis(100))
+                .expectNext("answer")
+                .verifyComplete();
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testRetry_NoRetryPastTheOrderDeadline() {
+        ResiliencePolicy policy = policy(3, 0);
+
+        StepVerifier.withVirtualTime(() -> policy.retry(failingTimes(5, 503))
+                        .contextWrite(context -> OrderDeadline.withBudget(context, Duration.ofMillis(50))),
+                        () -> scheduler, 1)
+                .verifyError(WebClientResponseException.ServiceUnavailable.class);
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testCircuitBreaker_OpensOnFailuresAndRejectsCalls() {
+        ResiliencePolicy policy = policy(1, 0);
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(policy.circuitBreaker(failingTimes(Integer.MAX_VALUE, 404))).verifyError();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, policy.getCircuitBreakerState());
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(policy.circuitBreaker(failingTimes(Integer.MAX_VALUE, 503))).verifyError();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, policy.getCircuitBreakerState());
+
+        StepVerifier.create(policy.circuitBreaker(failingTimes(Integer.MAX_VALUE, 503)))
+                .verifyError(CallNotPermittedException.class);
+        assertEquals(8, attempts.get());
+        assertEquals(1, policy.getRejectedCalls());
+    }
+
+    @Test
+    public void testBackoff_JitterShortensTheBackoff() {
+        ResiliencePolicy policy = new ResiliencePolicy("api", 5, Duration.ofMillis(100), Duration.ofMillis(300), 0.5,
+                CircuitBreakerConfig.ofDefaults(), scheduler, () -> 1.0);
+
+        assertEquals(Duration.ofMillis(50), policy.backoff(0));
+        assertEquals(Duration.ofMillis(100), policy.backoff(1));
+        assertEquals(Duration.ofMillis(150), policy.backoff(2)); // capped at 300ms
+    }
+
+    private ResiliencePolicy policy(int maxAttempts, double jitter) {
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindow(8, 8, CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .failureRateThreshold(50)
+                .build();
+        return new ResiliencePolicy("api", maxAttempts, Duration.ofMillis(100), Duration.ofSeconds(1), jitter,
+                circuitBreakerConfig, scheduler, () -> 0.5);
+    }
+
+    /**
+     * Returns a call that fails with the given status the first {@code failures} times.
+     */
+    private Mono<String> failingTimes(int failures, int status) {
+        return Mono.defer(() -> {
+            attemptTimes.add(scheduler.now(TimeUnit.MILLISECONDS));
+            if (attempts.incrementAndGet() <= failures) {
+                return Mono.error(WebClientResponseException.create(status, "error", HttpHeaders.EMPTY, new byte[0], null));
+            }
+            return Mono.just("answer");
+        });
+    }
+}
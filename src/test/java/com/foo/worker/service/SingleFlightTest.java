@@ -0,0 +1,112 @@
+package com.foo.worker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests for SingleFlight using StepVerifier.
+ *
+ * This test class validates:
+ * - Concurrent callers of the same key share one load
+ * - A completed load frees the key for a fresh load
+ * - A failed load is shared for the error window only
+ * - A load left by its only caller keeps running and frees the key when it ends
+ * - The load runs without the order deadline of the caller that started it
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testExecute_ConcurrentCallersShareOneLoad() {
+        SingleFlight<String> singleFlight = new SingleFlight<>(Duration.ofMillis(100));
+        AtomicInteger loads = new AtomicInteger();
+
+        Mono<String> load = singleFlight.execute("customer:1", () -> Mono.fromSupplier(() -> "value-" + loads.incrementAndGet())
+                .delayElement(Duration.ofMillis(50)));
+
+        StepVerifier.create(Flux.merge(load, load, load))
+                .expectNext("value-1", "value-1", "value-1")
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void testExecute_LoadsAgainAfterCompletion() {
+        SingleFlight<String> singleFlight = new SingleFlight<>(Duration.ofMillis(100));
+        AtomicInteger loads = new AtomicInteger();
+
+        Mono<String> load = singleFlight.execute("customer:1", () -> Mono.fromSupplier(() -> "value-" + loads.incrementAndGet()));
+
+        StepVerifier.create(load).expectNext("value-1").verifyComplete();
+        StepVerifier.create(load).expectNext("value-2").verifyComplete();
+    }
+
+    @Test
+    public void testExecute_AbandonedLoadKeepsRunning() {
+        SingleFlight<String> singleFlight = new SingleFlight<>(Duration.ofMillis(100));
+        Sinks.One<String> response = Sinks.one();
+        AtomicInteger loads = new AtomicInteger();
+        Mono<String> load = singleFlight.execute("customer:1", () -> {
+            loads.incrementAndGet();
+            return response.asMono();
+        });
+
+        Disposable caller = load.subscribe();
+        caller.dispose();
+        StepVerifier.create(load)
+                .then(() -> response.tryEmitValue("value"))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void testExecute_LoadRunsWithoutTheOrderDeadline() {
+        SingleFlight<String> singleFlight = new SingleFlight<>(Duration.ofMillis(100));
+        AtomicReference<Boolean> deadlineSeen = new AtomicReference<>();
+        Mono<String> load = singleFlight.execute("customer:1", () -> Mono.deferContextual(context -> {
+            deadlineSeen.set(OrderDeadline.remaining(context).isPresent());
+            return Mono.just("value");
+        }));
+
+        StepVerifier.create(OrderDeadline.within(Duration.ofSeconds(1), load))
+                .expectNext("value")
+                .verifyComplete();
+
+        assertEquals(Boolean.FALSE, deadlineSeen.get());
+    }
+
+    @Test
+    public void testExecute_ErrorIsSharedForErrorWindow() {
+        SingleFlight<String> singleFlight = new SingleFlight<>(Duration.ofMillis(200));
+        AtomicInteger loads = new AtomicInteger();
+
+        Mono<String> load = singleFlight.execute("customer:1", () -> Mono.defer(() -> {
+            loads.incrementAndGet();
+            return Mono.error(new RuntimeException("upstream down"));
+        }));
+
+        StepVerifier.create(load).expectErrorMessage("upstream down").verify();
+        StepVerifier.create(load).expectErrorMessage("upstream down").verify();
+        assertEquals(1, loads.get());
+
+        StepVerifier.create(Mono.delay(Duration.ofMillis(400)).then(load))
+                .expectErrorMessage("upstream down")
+                .verify();
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,58 @@
+package com.foo.worker.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.exporter.FinishedSpan;
+
+/**
+ * Unit tests for LogSpanReporter using Mockito.
+ *
+ * This test class validates:
+ * - A finished span is written as one line with its IDs, duration and tags
+ * - Missing parent, kind and error are written as "-"
+ */
+public class LogSpanReporterTest {
+
+    private static final Instant START = Instant.parse("2024-10-20T10:00:00Z");
+
+    @Test
+    public void testFormat_WritesSpanOnOneLine() {
+        FinishedSpan span = span("a3ce929d0e0e4736", Span.Kind.CLIENT, new IllegalStateException("down"));
+
+        assertEquals("trace=4bf92f3577b34da6a3ce929d0e0e4736 span=00f067aa0ba902b7 parent=a3ce929d0e0e4736"
+                        + " name=worker.enrichment.upstream kind=CLIENT duration=1.500ms error=IllegalStateException"
+                        + " tags={outcome=error}",
+                LogSpanReporter.format(span));
+    }
+
+    @Test
+    public void testFormat_RootSpanWithoutKindOrError() {
+        FinishedSpan span = span("0000000000000000", null, null);
+
+        assertEquals("trace=4bf92f3577b34da6a3ce929d0e0e4736 span=00f067aa0ba902b7 parent=-"
+                        + " name=worker.enrichment.upstream kind=- duration=1.500ms error=- tags={outcome=error}",
+                LogSpanReporter.format(span));
+    }
+
+    private static FinishedSpan span(String parentId, Span.Kind kind, Throwable error) {
+        FinishedSpan span = mock(FinishedSpan.class);
+        when(span.getTraceId()).thenReturn("4bf92f3577b34da6a3ce929d0e0e4736");
+        when(span.getSpanId()).thenReturn("00f067aa0ba902b7");
+        when(span.getParentId()).thenReturn(parentId);
+        when(span.getName()).thenReturn("worker.enrichment.upstream");
+        when(span.getKind()).thenReturn(kind);
+        when(span.getStartTimestamp()).thenReturn(START);
+        when(span.getEndTimestamp()).thenReturn(START.plusNanos(1_500_000));
+        when(span.getError()).thenReturn(error);
+        when(span.getTags()).thenReturn(Map.of("outcome", "error"));
+        return span;
+    }
+}